@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package ch.wellernet.intellij.plugins.xraycucumber.cli;
+
+import ch.wellernet.intellij.plugins.xraycucumber.model.FileConflict;
+import ch.wellernet.intellij.plugins.xraycucumber.service.ProgressReporter;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.Accessors;
+
+import java.io.PrintStream;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Prints the progress of an operation as plain lines, so that it is readable in CI logs. Progress is printed only if
+ * the message changed or the operation advanced by at least {@value #PROGRESS_STEP_PERCENT}%.
+ */
+@RequiredArgsConstructor
+class ConsoleProgressReporter implements ProgressReporter {
+    private static final int PROGRESS_STEP_PERCENT = 10;
+
+    private final PrintStream out;
+    private final boolean replaceModifiedFiles;
+    @Getter
+    @Accessors(fluent = true)
+    private volatile boolean failed;
+    private String lastMessage;
+    private int lastPercent = -PROGRESS_STEP_PERCENT;
+
+    @Override
+    public synchronized void reportProgress(String message, double completionRatio) {
+        int percent = completionRatio == INDETERMINATE ? -1 : (int) Math.round(completionRatio * 100);
+        if (message.equals(lastMessage) && Math.abs(percent - lastPercent) < PROGRESS_STEP_PERCENT) {
+            return;
+        }
+        lastMessage = message;
+        lastPercent = percent;
+        out.println(percent < 0 ? message : String.format(Locale.ROOT, "[%3d%%] %s", percent, message));
+    }
+
+    @Override
+    public synchronized void reportSuccess(String message) {
+        out.println(plain(message));
+    }
+
+    @Override
+    public synchronized void reportAuthenticationError(String message) {
+        failed = true;
+        out.println("authentication failed: " + plain(message));
+    }
+
+    @Override
+    public synchronized void reportError(String message, Exception exception) {
+        failed = true;
+        out.println("failed: " + plain(message));
+    }
+
+    /**
+     * Nobody can be asked on the console, so locally modified files are replaced only if requested on the command
+     * line, and otherwise kept.
+     */
+    @Override
+    public synchronized Set<FileConflict> askToReplaceExistingFiles(List<FileConflict> conflicts) {
+        if (replaceModifiedFiles) {
+            return new HashSet<>(conflicts);
+        }
+        conflicts.forEach(conflict -> out.println("kept locally modified file " + conflict.file()));
+        return Collections.emptySet();
+    }
+
+    /**
+     * Messages are formatted for IntelliJ notifications, which support HTML line breaks.
+     */
+    private String plain(String message) {
+        return String.valueOf(message).replace("<br>", System.lineSeparator());
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package ch.wellernet.intellij.plugins.xraycucumber.cli;
+
+import ch.wellernet.intellij.plugins.xraycucumber.model.FileReplacementBehaviour;
+import ch.wellernet.intellij.plugins.xraycucumber.model.HttpClientParameters;
+import ch.wellernet.intellij.plugins.xraycucumber.model.ServiceParameters;
+import ch.wellernet.intellij.plugins.xraycucumber.service.FileChanges;
+import ch.wellernet.intellij.plugins.xraycucumber.service.PooledHttpClientFactory;
+import ch.wellernet.intellij.plugins.xraycucumber.service.ServiceParametersParser;
+import ch.wellernet.intellij.plugins.xraycucumber.service.XrayCucumberService;
+import org.apache.http.impl.client.CloseableHttpClient;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Command line entry point running a download or upload outside of the IDE, e.g. on a CI server. It only depends on
+ * the service layer, so that it starts without loading any IntelliJ classes.
+ */
+public class XrayCucumberCli {
+    static final int EXIT_OK = 0;
+    static final int EXIT_FAILED = 1;
+    static final int EXIT_USAGE = 2;
+
+    static final String USERNAME_VARIABLE = "XRAY_CUCUMBER_USERNAME";
+    static final String PASSWORD_VARIABLE = "XRAY_CUCUMBER_PASSWORD";
+
+    private static final String USAGE = String.join(System.lineSeparator(),
+            "usage: xray-cucumber [--replace-modified] download <xray-cucumber.json>",
+            "       xray-cucumber upload <xray-cucumber.json> [<feature file or directory>...]",
+            "       xray-cucumber upload-changed <xray-cucumber.json> [<feature file or directory>...]",
+            "       xray-cucumber import-results <xray-cucumber.json> <cucumber JSON report>",
+            "",
+            "Feature files are downloaded to, and by default uploaded from, the directory of xray-cucumber.json.",
+            "Credentials missing in xray-cucumber.json are read from " + USERNAME_VARIABLE + " and " + PASSWORD_VARIABLE + ".");
+
+    public static void main(String[] args) {
+        System.exit(run(Arrays.asList(args), System.err));
+    }
+
+    static int run(List<String> arguments, PrintStream out) {
+        LinkedList<String> remaining = new LinkedList<>(arguments);
+        boolean replaceModifiedFiles = remaining.remove("--replace-modified");
+        if (remaining.size() < 2) {
+            out.println(USAGE);
+            return EXIT_USAGE;
+        }
+        String command = remaining.removeFirst();
+        Path serviceParametersFile = Paths.get(remaining.removeFirst()).toAbsolutePath();
+        if (!Arrays.asList("download", "upload", "upload-changed", "import-results").contains(command)
+                || "download".equals(command) && !remaining.isEmpty()
+                || "import-results".equals(command) && remaining.size() != 1) {
+            out.println(USAGE);
+            return EXIT_USAGE;
+        }
+
+        ServiceParameters serviceParameters;
+        try {
+            serviceParameters = withCredentialsFromEnvironment(load(serviceParametersFile));
+        } catch (IOException | RuntimeException e) {
+            out.println("cannot read " + serviceParametersFile + ": " + e.getMessage());
+            return EXIT_USAGE;
+        }
+        if (replaceModifiedFiles) {
+            serviceParameters = serviceParameters.toBuilder().fileReplacementBehaviour(FileReplacementBehaviour.REPLACE).build();
+        }
+        Path baseDir = serviceParametersFile.getParent();
+        List<Path> featureFilesOrDirectories = new ArrayList<>();
+        remaining.forEach(argument -> featureFilesOrDirectories.add(Paths.get(argument).toAbsolutePath()));
+        if (featureFilesOrDirectories.isEmpty()) {
+            featureFilesOrDirectories.add(baseDir);
+        }
+
+        ConsoleProgressReporter progressReporter = new ConsoleProgressReporter(out, replaceModifiedFiles);
+        HttpClientParameters httpClientParameters = HttpClientParameters.DEFAULT;
+        try (CloseableHttpClient httpClient = PooledHttpClientFactory.create(httpClientParameters)) {
+            XrayCucumberService service = new XrayCucumberService(httpClient, httpClientParameters, null, null);
+            switch (command) {
+                case "download":
+                    FileChanges changes = service.downloadXrayCucumberTests(serviceParameters, baseDir, progressReporter);
+                    if (!progressReporter.failed()) {
+                        out.println(changes);
+                    }
+                    break;
+                case "upload":
+                    service.uploadXrayCucumberTests(serviceParameters, featureFilesOrDirectories, progressReporter);
+                    break;
+                case "import-results":
+                    service.importExecutionResults(serviceParameters, featureFilesOrDirectories.get(0), progressReporter);
+                    break;
+                default:
+                    service.uploadChangedXrayCucumberTests(serviceParameters, featureFilesOrDirectories, progressReporter);
+            }
+        } catch (IOException | RuntimeException e) {
+            out.println("failed: " + e);
+            return EXIT_FAILED;
+        }
+        return progressReporter.failed() ? EXIT_FAILED : EXIT_OK;
+    }
+
+    private static ServiceParameters load(Path serviceParametersFile) throws IOException {
+        try (InputStream inputStream = Files.newInputStream(serviceParametersFile)) {
+            return ServiceParametersParser.parse(inputStream);
+        }
+    }
+
+    private static ServiceParameters withCredentialsFromEnvironment(ServiceParameters serviceParameters) {
+        return serviceParameters.toBuilder()
+                .username(Optional.ofNullable(serviceParameters.username()).orElse(System.getenv(USERNAME_VARIABLE)))
+                .password(Optional.ofNullable(serviceParameters.password()).orElse(System.getenv(PASSWORD_VARIABLE)))
+                .build();
+    }
+}
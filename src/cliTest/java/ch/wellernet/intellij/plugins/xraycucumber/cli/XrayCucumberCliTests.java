@@ -0,0 +1,215 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package ch.wellernet.intellij.plugins.xraycucumber.cli;
+
+import ch.wellernet.intellij.plugins.xraycucumber.service.XrayCucumberService;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class XrayCucumberCliTests {
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    private final PrintStream out = new PrintStream(output, true);
+    private final List<String> requestedPaths = new CopyOnWriteArrayList<>();
+    private HttpServer jira;
+
+    @TempDir
+    Path baseDir;
+
+    @BeforeEach
+    void startJira() throws IOException {
+        jira = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        jira.createContext(XrayCucumberService.REST_ENDPOINT_EXPORT_TEST, exchange ->
+                respond(exchange, "application/octet-stream", featureZip("mycool.feature", "Feature: my cool feature")));
+        jira.createContext(XrayCucumberService.REST_ENDPOINT_IMPORT_FEATURE, exchange ->
+                respond(exchange, "application/json", "[{\"id\":\"10000\",\"key\":\"TEST-1\",\"self\":\"https://issues.example.com/rest/api/2/issue/10000\"}]"
+                        .getBytes(StandardCharsets.UTF_8)));
+        jira.start();
+    }
+
+    @AfterEach
+    void stopJira() {
+        jira.stop(0);
+    }
+
+    @Test
+    void run_noArguments_shallPrintUsage() throws UnsupportedEncodingException {
+        // act
+        int exitCode = XrayCucumberCli.run(Collections.emptyList(), out);
+
+        // assert
+        assertThat(exitCode).isEqualTo(XrayCucumberCli.EXIT_USAGE);
+        assertThat(output()).startsWith("usage: xray-cucumber");
+    }
+
+    @Test
+    void run_unknownCommand_shallPrintUsage() throws UnsupportedEncodingException {
+        // act
+        int exitCode = XrayCucumberCli.run(Arrays.asList("sync", baseDir.resolve("xray-cucumber.json").toString()), out);
+
+        // assert
+        assertThat(exitCode).isEqualTo(XrayCucumberCli.EXIT_USAGE);
+        assertThat(output()).startsWith("usage: xray-cucumber");
+    }
+
+    @Test
+    void run_downloadWithFeatureFiles_shallPrintUsage() throws IOException {
+        Path serviceParametersFile = writeServiceParameters();
+
+        // act
+        int exitCode = XrayCucumberCli.run(Arrays.asList("download", serviceParametersFile.toString(), "mycool.feature"), out);
+
+        // assert
+        assertThat(exitCode).isEqualTo(XrayCucumberCli.EXIT_USAGE);
+        assertThat(requestedPaths).isEmpty();
+    }
+
+    @Test
+    void run_missingConfig_shallFailWithoutRequest() throws UnsupportedEncodingException {
+        Path serviceParametersFile = baseDir.resolve("xray-cucumber.json");
+
+        // act
+        int exitCode = XrayCucumberCli.run(Arrays.asList("download", serviceParametersFile.toString()), out);
+
+        // assert
+        assertThat(exitCode).isEqualTo(XrayCucumberCli.EXIT_USAGE);
+        assertThat(output()).startsWith("cannot read " + serviceParametersFile);
+        assertThat(requestedPaths).isEmpty();
+    }
+
+    @Test
+    void run_download_successful() throws IOException {
+        Path serviceParametersFile = writeServiceParameters();
+
+        // act
+        int exitCode = XrayCucumberCli.run(Arrays.asList("download", serviceParametersFile.toString()), out);
+
+        // assert
+        assertThat(exitCode).isEqualTo(XrayCucumberCli.EXIT_OK);
+        assertThat(requestedPaths).containsExactly(XrayCucumberService.REST_ENDPOINT_EXPORT_TEST);
+        assertThat(baseDir.resolve("mycool.feature")).hasContent("Feature: my cool feature");
+        assertThat(output()).contains("extracted successfully");
+    }
+
+    @Test
+    void run_upload_successful() throws IOException {
+        Path serviceParametersFile = writeServiceParameters();
+        Path featureFile = Files.write(baseDir.resolve("mynew.feature"), "Feature: my new feature".getBytes(StandardCharsets.UTF_8));
+
+        // act
+        int exitCode = XrayCucumberCli.run(Arrays.asList("upload", serviceParametersFile.toString(), featureFile.toString()), out);
+
+        // assert
+        assertThat(exitCode).isEqualTo(XrayCucumberCli.EXIT_OK);
+        assertThat(requestedPaths).containsExactly(XrayCucumberService.REST_ENDPOINT_IMPORT_FEATURE);
+        assertThat(output()).contains("TEST-1");
+    }
+
+    @Test
+    void run_jiraFailing_shallExitWithFailure() throws IOException {
+        jira.removeContext(XrayCucumberService.REST_ENDPOINT_EXPORT_TEST);
+        Path serviceParametersFile = writeServiceParameters();
+
+        // act
+        int exitCode = XrayCucumberCli.run(Arrays.asList("download", serviceParametersFile.toString()), out);
+
+        // assert
+        assertThat(exitCode).isEqualTo(XrayCucumberCli.EXIT_FAILED);
+        assertThat(output()).contains("failed: ");
+    }
+
+    @Test
+    void consoleProgressReporter_shallPrintProgressInSteps() throws UnsupportedEncodingException {
+        ConsoleProgressReporter progressReporter = new ConsoleProgressReporter(out, false);
+
+        // act
+        progressReporter.reportProgress("downloading", 0.0);
+        progressReporter.reportProgress("downloading", 0.05);
+        progressReporter.reportProgress("downloading", 0.1);
+        progressReporter.reportSuccess("done<br>2 added");
+
+        // assert
+        assertThat(output()).isEqualTo(String.join(System.lineSeparator(), "[  0%] downloading", "[ 10%] downloading", "done", "2 added", ""));
+        assertThat(progressReporter.failed()).isFalse();
+    }
+
+    @Test
+    void consoleProgressReporter_error_shallFail() throws UnsupportedEncodingException {
+        ConsoleProgressReporter progressReporter = new ConsoleProgressReporter(out, false);
+
+        // act
+        progressReporter.reportAuthenticationError("Jira refused authentication (HTTP 401)");
+
+        // assert
+        assertThat(output()).startsWith("authentication failed: Jira refused authentication (HTTP 401)");
+        assertThat(progressReporter.failed()).isTrue();
+    }
+
+    private Path writeServiceParameters() throws IOException {
+        String serviceParameters = "{\"url\": \"http://localhost:" + jira.getAddress().getPort() + "\", \"username\": \"user\", \"password\": \"secret\","
+                + " \"projectKey\": \"TEST\", \"filterId\": 4711, \"maxRetries\": 0}";
+        return Files.write(baseDir.resolve("xray-cucumber.json"), serviceParameters.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void respond(HttpExchange exchange, String contentType, byte[] body) throws IOException {
+        requestedPaths.add(exchange.getRequestURI().getPath());
+        exchange.getResponseHeaders().add("Content-Type", contentType);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            responseBody.write(body);
+        }
+    }
+
+    private byte[] featureZip(String name, String content) throws IOException {
+        ByteArrayOutputStream zip = new ByteArrayOutputStream();
+        try (ZipOutputStream zipOutputStream = new ZipOutputStream(zip)) {
+            zipOutputStream.putNextEntry(new ZipEntry(name));
+            zipOutputStream.write(content.getBytes(StandardCharsets.UTF_8));
+            zipOutputStream.closeEntry();
+        }
+        return zip.toByteArray();
+    }
+
+    private String output() throws UnsupportedEncodingException {
+        return output.toString(StandardCharsets.UTF_8.name());
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package ch.wellernet.intellij.plugins.xraycucumber.benchmark;
+
+import com.google.common.jimfs.Configuration;
+import com.google.common.jimfs.Jimfs;
+import lombok.experimental.UtilityClass;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+@UtilityClass
+class BenchmarkData {
+
+    static final String JIMFS = "jimfs";
+    static final String TEMP = "temp";
+
+    private static final String[] WORDS = {"Given", "When", "Then", "And", "the", "user", "opens", "page", "clicks",
+            "button", "enters", "value", "sees", "message", "account", "order", "is", "created", "with", "status"};
+
+    /**
+     * Parses workload shapes such as {@code 100x1KB} or {@code 10x1MB} into entry count and bytes per feature.
+     */
+    static int[] parseWorkload(String workload) {
+        String[] parts = workload.split("x");
+        String size = parts[1];
+        int multiplier = size.endsWith("MB") ? 1024 * 1024 : size.endsWith("KB") ? 1024 : 1;
+        return new int[]{Integer.parseInt(parts[0]), Integer.parseInt(size.replaceAll("[A-Z]", "")) * multiplier};
+    }
+
+    static String featureName(int index) {
+        return index + "_TEST-" + index + ".feature";
+    }
+
+    /**
+     * Generates pseudo random but reproducible feature content so that it compresses roughly like real features.
+     */
+    static byte[] featureContent(int index, int size) {
+        Random random = new Random(index);
+        StringBuilder content = new StringBuilder(size + 64)
+                .append("@TEST-").append(index).append("\nFeature: generated feature ").append(index).append("\n\n")
+                .append("  Scenario: generated scenario ").append(index).append("\n");
+        while (content.length() < size) {
+            content.append("   ");
+            for (int i = 0; i < 8; i++) {
+                content.append(' ').append(WORDS[random.nextInt(WORDS.length)]);
+            }
+            content.append('\n');
+        }
+        content.setLength(size);
+        return content.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    static byte[] exportZip(int featureCount, int featureSize) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream)) {
+            for (int i = 0; i < featureCount; i++) {
+                zipOutputStream.putNextEntry(new ZipEntry(featureName(i)));
+                zipOutputStream.write(featureContent(i, featureSize));
+                zipOutputStream.closeEntry();
+            }
+        }
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * Creates a root directory either on an in-memory file system or in the default temporary directory.
+     */
+    static Path createRoot(String fileSystem) throws IOException {
+        if (JIMFS.equals(fileSystem)) {
+            FileSystem jimfs = Jimfs.newFileSystem(Configuration.unix());
+            return Files.createDirectories(jimfs.getPath("/benchmark"));
+        }
+        return Files.createTempDirectory("xray-cucumber-benchmark");
+    }
+
+    static void deleteRecursively(Path directory) throws IOException {
+        if (Files.exists(directory)) {
+            try (Stream<Path> paths = Files.walk(directory)) {
+                for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                    Files.delete(path);
+                }
+            }
+        }
+    }
+
+    static void disposeRoot(Path root) throws IOException {
+        deleteRecursively(root);
+        if (root.getFileSystem() != FileSystems.getDefault()) {
+            root.getFileSystem().close();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package ch.wellernet.intellij.plugins.xraycucumber.benchmark;
+
+import ch.wellernet.intellij.plugins.xraycucumber.model.ServiceParameters;
+import ch.wellernet.intellij.plugins.xraycucumber.service.XrayCucumberService;
+import org.apache.http.entity.ContentType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building and streaming feature upload requests ({@code buildFeatureUploadRequest} and the bulk ZIP
+ * variant) against an in-process stub that discards the request body.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class UploadBenchmark {
+
+    @Param({"1x1KB", "10x1KB", "100x1KB", "1000x1KB", "10x1MB"})
+    public String workload;
+
+    @Param({BenchmarkData.JIMFS, BenchmarkData.TEMP})
+    public String fileSystem;
+
+    @Param({"false", "true"})
+    public boolean bulkUpload;
+
+    private XrayCucumberService xrayCucumberService;
+    private ServiceParameters serviceParameters;
+    private Path root;
+
+    @Setup(Level.Trial)
+    public void setupTrial() throws IOException {
+        int[] shape = BenchmarkData.parseWorkload(workload);
+        root = BenchmarkData.createRoot(fileSystem);
+        for (int i = 0; i < shape[0]; i++) {
+            Files.write(root.resolve(BenchmarkData.featureName(i)), BenchmarkData.featureContent(i, shape[1]));
+        }
+        xrayCucumberService = new XrayCucumberService(new StubHttpClient("[]".getBytes(StandardCharsets.UTF_8), ContentType.APPLICATION_JSON));
+        serviceParameters = ServiceParameters.builder()
+                .url(new URL("http://localhost"))
+                .username("benchmark")
+                .password("benchmark")
+                .projectKey("BENCH")
+                .bulkUpload(bulkUpload)
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() throws IOException {
+        BenchmarkData.disposeRoot(root);
+    }
+
+    @Benchmark
+    public void uploadFeatureFiles() {
+        xrayCucumberService.uploadXrayCucumberTests(serviceParameters, Collections.singletonList(root), null);
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package ch.wellernet.intellij.plugins.xraycucumber.model;
+
+import lombok.Builder;
+import lombok.Value;
+import lombok.experimental.Accessors;
+
+@Value
+@Builder(toBuilder = true)
+@Accessors(fluent = true)
+public class HttpClientParameters {
+    public static final HttpClientParameters DEFAULT = HttpClientParameters.builder().build();
+
+    @Builder.Default
+    int maxConnections = 20;
+
+    /**
+     * Upper bound of the requests in flight to a single Jira instance, see {@link ServiceParameters#maxConcurrentRequests()}.
+     */
+    @Builder.Default
+    int maxConnectionsPerRoute = 8;
+
+    @Builder.Default
+    int connectTimeoutMillis = 10_000;
+
+    @Builder.Default
+    int socketTimeoutMillis = 60_000;
+
+    @Builder.Default
+    long keepAliveMillis = 30_000;
+}
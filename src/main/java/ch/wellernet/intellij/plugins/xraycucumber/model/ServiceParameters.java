@@ -26,6 +26,8 @@ import lombok.experimental.Accessors;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 @Value
@@ -35,22 +37,163 @@ public class ServiceParameters {
     @Nonnull
     URL url;
 
+    @Nullable
+    XrayEdition edition;
+
     @Nullable
     String username;
 
     @Nullable
     String password;
 
+    @Nullable
+    AuthenticationMethod authentication;
+
     @Nullable
     String projectKey;
 
     @Nullable
     Long filterId;
 
+    @Nullable
+    List<FilterParameters> filters;
+
+    @Nullable
+    Integer parallelDownloads;
+
+    @Nullable
+    Integer parallelUploads;
+
+    @Nullable
+    Boolean bulkUpload;
+
     @Nullable
     FileReplacementBehaviour fileReplacementBehaviour;
 
+    @Nullable
+    Integer extractionThreads;
+
+    @Nullable
+    Integer extractionBufferSize;
+
+    @Nullable
+    Boolean transactionalSync;
+
+    @Nullable
+    Integer connectTimeout;
+
+    @Nullable
+    Integer socketTimeout;
+
+    @Nullable
+    Integer maxRetries;
+
+    @Nullable
+    Integer retryBackoff;
+
+    @Nullable
+    Integer maxRequestsPerSecond;
+
+    @Nullable
+    Integer maxConcurrentRequests;
+
+    @Nullable
+    Integer syncInterval;
+
+    @Nullable
+    Boolean compressExecutionResults;
+
+    @Nullable
+    Long executionChunkSize;
+
+    public XrayEdition edition() {
+        return Optional.ofNullable(edition).orElse(XrayEdition.SERVER);
+    }
+
+    public AuthenticationMethod authentication() {
+        return Optional.ofNullable(authentication).orElse(AuthenticationMethod.BASIC);
+    }
+
+    /**
+     * @return whether all credentials required by the authentication method are defined
+     */
+    public boolean hasCredentials() {
+        return password != null && (username != null || authentication() == AuthenticationMethod.TOKEN);
+    }
+
     public FileReplacementBehaviour fileReplacementBehaviour() {
         return Optional.ofNullable(fileReplacementBehaviour).orElse(FileReplacementBehaviour.ASK);
     }
+
+    /**
+     * @return the single filter given by {@link #filterId} followed by all further {@link #filters}
+     */
+    public List<FilterParameters> exportedFilters() {
+        List<FilterParameters> exportedFilters = new ArrayList<>();
+        Optional.ofNullable(filterId).ifPresent(id -> exportedFilters.add(new FilterParameters(id, null)));
+        Optional.ofNullable(filters).ifPresent(exportedFilters::addAll);
+        return exportedFilters;
+    }
+
+    public int parallelDownloads() {
+        return Optional.ofNullable(parallelDownloads).orElse(4);
+    }
+
+    public int parallelUploads() {
+        return Optional.ofNullable(parallelUploads).orElse(4);
+    }
+
+    public boolean bulkUpload() {
+        return Optional.ofNullable(bulkUpload).orElse(false);
+    }
+
+    public int extractionThreads() {
+        return Optional.ofNullable(extractionThreads).orElse(1);
+    }
+
+    public int extractionBufferSize() {
+        return Optional.ofNullable(extractionBufferSize).orElse(8 * 1024 * 1024);
+    }
+
+    public boolean transactionalSync() {
+        return Optional.ofNullable(transactionalSync).orElse(false);
+    }
+
+    public int maxRetries() {
+        return Optional.ofNullable(maxRetries).orElse(3);
+    }
+
+    public int retryBackoff() {
+        return Optional.ofNullable(retryBackoff).orElse(1_000);
+    }
+
+    /**
+     * @return the maximum number of requests per second sent to Jira, where 0 means unlimited
+     */
+    public int maxRequestsPerSecond() {
+        return Optional.ofNullable(maxRequestsPerSecond).orElse(0);
+    }
+
+    public int maxConcurrentRequests() {
+        return Optional.ofNullable(maxConcurrentRequests).orElse(8);
+    }
+
+    /**
+     * @return the interval in minutes between downloads in the background, where 0 means never
+     */
+    public int syncInterval() {
+        return Optional.ofNullable(syncInterval).orElse(0);
+    }
+
+    public boolean compressExecutionResults() {
+        return Optional.ofNullable(compressExecutionResults).orElse(false);
+    }
+
+    /**
+     * @return the maximum number of bytes of execution results imported as a single test execution, where 0 means
+     * unlimited
+     */
+    public long executionChunkSize() {
+        return Optional.ofNullable(executionChunkSize).orElse(0L);
+    }
 }
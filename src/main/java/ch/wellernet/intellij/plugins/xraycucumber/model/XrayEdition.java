@@ -19,14 +19,16 @@
 
 package ch.wellernet.intellij.plugins.xraycucumber.model;
 
-import lombok.Value;
+import com.fasterxml.jackson.annotation.JsonEnumDefaultValue;
 
-import javax.annotation.Nonnull;
-
-@Value
-public class FileReplacementDecision {
-    @Nonnull
-    FileReplacementBehaviour fileReplacementBehaviour;
-
-    boolean replaceExistingFile;
+public enum XrayEdition {
+    /**
+     * Xray Server or Data Center, installed within Jira.
+     */
+    @JsonEnumDefaultValue
+    SERVER,
+    /**
+     * Xray Cloud, accessed with the client id and secret of an API key.
+     */
+    CLOUD
 }
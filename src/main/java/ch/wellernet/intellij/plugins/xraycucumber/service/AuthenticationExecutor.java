@@ -0,0 +1,42 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package ch.wellernet.intellij.plugins.xraycucumber.service;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.auth.AuthenticationException;
+import org.apache.http.protocol.HttpContext;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.net.URISyntaxException;
+
+/**
+ * Executes the requests a {@link XrayBackend} authenticates with (e.g. to log in or obtain a token) like any other
+ * request to Jira, i.e. in turn as given by the {@link RequestGovernor}, with the configured timeouts and repeated if
+ * the failure is temporary, see {@link RetryPolicy}. The request is sent within the permit of the request it
+ * authenticates.
+ */
+@FunctionalInterface
+interface AuthenticationExecutor {
+    /**
+     * @return the response, whatever its status, which is to be verified by the caller
+     */
+    HttpResponse execute(RequestFactory requestFactory, @Nullable HttpContext context) throws AuthenticationException, URISyntaxException, IOException;
+}
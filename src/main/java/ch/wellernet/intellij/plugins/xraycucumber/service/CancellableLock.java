@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ch.wellernet.intellij.plugins.xraycucumber.service;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Lock for work on the network that may take long (e.g. logging in, including retries and backoff). Unlike a monitor,
+ * waiting for it can be canceled, so that an operation waiting for another one to authenticate can be aborted.
+ */
+class CancellableLock {
+    private static final long POLL_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(CancellationWatcher.POLL_INTERVAL_MILLIS);
+
+    private final ReentrantLock lock = new ReentrantLock(true);
+
+    /**
+     * Blocks until the lock is acquired, unless the given check throws meanwhile. The lock must be released by
+     * {@link #unlock()} in a <code>finally</code> block.
+     */
+    void lock(Runnable cancellationCheck) throws InterruptedIOException {
+        try {
+            while (!lock.tryLock(POLL_INTERVAL_NANOS, TimeUnit.NANOSECONDS)) {
+                cancellationCheck.run();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for authentication");
+        }
+    }
+
+    void unlock() {
+        lock.unlock();
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package ch.wellernet.intellij.plugins.xraycucumber.service;
+
+import lombok.experimental.UtilityClass;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Polls {@link CancellationToken}s in the background, so that operations blocked on the network (e.g. waiting for
+ * Jira to build an export) can be aborted as soon as they are canceled.
+ */
+@UtilityClass
+class CancellationWatcher {
+    static final long POLL_INTERVAL_MILLIS = 100;
+
+    private static final ScheduledExecutorService SCHEDULER =
+            Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("xray-cucumber-cancellation"));
+
+    /**
+     * Runs the given action once the token is canceled, unless the returned registration has been canceled before.
+     */
+    static Registration whenCanceled(CancellationToken cancellationToken, Runnable action) {
+        if (cancellationToken == CancellationToken.NONE) {
+            return () -> {
+            };
+        }
+        AtomicBoolean done = new AtomicBoolean();
+        ScheduledFuture<?> future = SCHEDULER.scheduleWithFixedDelay(() -> {
+            if (cancellationToken.isCanceled() && done.compareAndSet(false, true)) {
+                action.run();
+            }
+        }, 0, POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        return () -> {
+            done.set(true);
+            future.cancel(false);
+        };
+    }
+
+    interface Registration {
+        void cancel();
+    }
+}
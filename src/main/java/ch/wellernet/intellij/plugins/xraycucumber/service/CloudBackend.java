@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package ch.wellernet.intellij.plugins.xraycucumber.service;
+
+import ch.wellernet.intellij.plugins.xraycucumber.model.ServiceParameters;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.auth.AuthenticationException;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.utils.URIBuilder;
+import org.apache.http.util.EntityUtils;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+
+/**
+ * Xray Cloud, see "https://docs.getxray.app/display/XRAYCLOUD/REST+API". Every request is authenticated with a
+ * token obtained for the client id and secret given as username and password, see {@link XrayCloudToken}.
+ */
+class CloudBackend implements XrayBackend {
+    static final CloudBackend INSTANCE = new CloudBackend();
+
+    @Override
+    public String exportEndpoint() {
+        return XrayCucumberService.CLOUD_ENDPOINT_EXPORT_TEST;
+    }
+
+    @Override
+    public String importEndpoint() {
+        return XrayCucumberService.CLOUD_ENDPOINT_IMPORT_FEATURE;
+    }
+
+    @Override
+    public String executionImportEndpoint() {
+        return XrayCucumberService.CLOUD_ENDPOINT_IMPORT_EXECUTION;
+    }
+
+    @Override
+    public URI exportUri(ServiceParameters serviceParameters, long filterId) throws URISyntaxException {
+        return new URIBuilder(serviceParameters.url() + exportEndpoint())
+                .addParameter("filter", String.valueOf(filterId))
+                .build();
+    }
+
+    @Override
+    public HttpResponse execute(HttpClient httpClient, HttpUriRequest request, RequestFactory requestFactory, ServiceParameters serviceParameters,
+                                AuthenticationExecutor authenticationExecutor, Runnable cancellationCheck) throws AuthenticationException, URISyntaxException, IOException {
+        XrayCloudToken cloudToken = XrayCloudToken.of(serviceParameters);
+        String token = cloudToken.get(authenticationExecutor, serviceParameters, cancellationCheck);
+        request.setHeader(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+        HttpResponse httpResponse = httpClient.execute(request);
+        if (httpResponse.getStatusLine().getStatusCode() != HttpStatus.SC_UNAUTHORIZED) {
+            return httpResponse;
+        }
+        EntityUtils.consume(httpResponse.getEntity());
+        cloudToken.expire(token);
+        HttpUriRequest repeatedRequest = requestFactory.create();
+        repeatedRequest.setHeader(HttpHeaders.AUTHORIZATION, "Bearer " + cloudToken.get(authenticationExecutor, serviceParameters, cancellationCheck));
+        return httpClient.execute(repeatedRequest);
+    }
+}
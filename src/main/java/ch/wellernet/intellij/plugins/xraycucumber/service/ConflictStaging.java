@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package ch.wellernet.intellij.plugins.xraycucumber.service;
+
+import ch.wellernet.intellij.plugins.xraycucumber.model.FileConflict;
+import lombok.Value;
+import lombok.experimental.Accessors;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the versions downloaded from Jira of locally modified feature files aside, so that the extraction does not
+ * need to wait for the user. Once all exports are extracted, the user decides about all conflicts at once and only
+ * the accepted versions are moved over the local copies. Staged files are kept in a hidden directory within the
+ * output directory, so that they can be moved atomically.
+ */
+class ConflictStaging implements Closeable {
+    static final String STAGING_DIR_PREFIX = ".xray-cucumber-staging-";
+
+    private final Map<Path, Path> stagingDirs = new HashMap<>();
+    private final List<StagedConflict> stagedConflicts = new ArrayList<>();
+    private final FileChanges fileChanges;
+
+    ConflictStaging(FileChanges fileChanges) {
+        this.fileChanges = fileChanges;
+    }
+
+    synchronized void stage(Path outputDir, String fileName, byte[] content, String hash, ExtractionManifest manifest) throws IOException {
+        Path stagingDir = stagingDirs.get(outputDir);
+        if (stagingDir == null) {
+            stagingDir = Files.createTempDirectory(outputDir, STAGING_DIR_PREFIX);
+            stagingDirs.put(outputDir, stagingDir);
+        }
+        Path stagedFile = stagingDir.resolve(fileName);
+        Files.write(stagedFile, content);
+        stagedConflicts.add(new StagedConflict(new FileConflict(outputDir.resolve(fileName), stagedFile), fileName, hash, manifest));
+    }
+
+    /**
+     * Drops the conflict staged for the given file, if any.
+     */
+    synchronized void discard(Path file) throws IOException {
+        for (Iterator<StagedConflict> iterator = stagedConflicts.iterator(); iterator.hasNext(); ) {
+            StagedConflict stagedConflict = iterator.next();
+            if (stagedConflict.conflict().file().equals(file)) {
+                Files.deleteIfExists(stagedConflict.conflict().stagedFile());
+                iterator.remove();
+            }
+        }
+    }
+
+    synchronized List<FileConflict> conflicts() {
+        return stagedConflicts.stream().map(StagedConflict::conflict).collect(Collectors.toList());
+    }
+
+    /**
+     * Replaces the local copies of all accepted conflicts and records the new versions in their manifest.
+     *
+     * @return the number of replaced files
+     */
+    synchronized int commit(Set<FileConflict> acceptedConflicts) throws IOException {
+        int replaced = 0;
+        for (StagedConflict stagedConflict : stagedConflicts) {
+            if (acceptedConflicts.contains(stagedConflict.conflict())) {
+                AtomicFiles.move(stagedConflict.conflict().stagedFile(), stagedConflict.conflict().file());
+                fileChanges.fileWritten(stagedConflict.conflict().file(), true);
+                stagedConflict.manifest().put(stagedConflict.fileName(), stagedConflict.hash());
+                replaced++;
+            }
+        }
+        return replaced;
+    }
+
+    /**
+     * Removes all staging directories, including the versions of rejected conflicts.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        for (Path stagingDir : stagingDirs.values()) {
+            try (Stream<Path> paths = Files.walk(stagingDir)) {
+                for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                    Files.delete(path);
+                }
+            }
+        }
+        stagingDirs.clear();
+        stagedConflicts.clear();
+    }
+
+    @Value
+    @Accessors(fluent = true)
+    private static class StagedConflict {
+        FileConflict conflict;
+        String fileName;
+        String hash;
+        ExtractionManifest manifest;
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package ch.wellernet.intellij.plugins.xraycucumber.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.experimental.UtilityClass;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Splits a cucumber JSON report, i.e. an array of features, into several reports of limited size, so that each can be
+ * imported as a test execution of its own. The report is streamed, so that only a single feature is held in memory at
+ * a time. A feature exceeding the limit on its own ends up alone in a report.
+ */
+@UtilityClass
+class CucumberReportSplitter {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    /**
+     * @param maxSize maximum number of bytes of a part, where 0 means unlimited
+     * @return the report itself if it does not exceed the given size, temporary files next to it otherwise, which are
+     * to be removed with {@link #delete(Path, List)}
+     */
+    List<Path> split(Path report, long maxSize) throws IOException {
+        if (maxSize <= 0 || Files.size(report) <= maxSize) {
+            return Collections.singletonList(report);
+        }
+        List<Path> parts = new ArrayList<>();
+        try (JsonParser parser = OBJECT_MAPPER.createParser(Files.newInputStream(report))) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException(report.getFileName() + " is not a cucumber JSON report");
+            }
+            OutputStream part = null;
+            long partSize = 0;
+            try {
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    byte[] feature = OBJECT_MAPPER.writeValueAsBytes(parser.<JsonNode>readValueAsTree());
+                    // a separating comma is needed to append the feature to the current part
+                    if (part != null && partSize + 1 + feature.length > maxSize) {
+                        part.write(']');
+                        part.close();
+                        part = null;
+                    }
+                    if (part == null) {
+                        Path file = Files.createTempFile(report.toAbsolutePath().getParent(), "." + report.getFileName(), ".part");
+                        parts.add(file);
+                        part = new BufferedOutputStream(Files.newOutputStream(file));
+                        part.write('[');
+                        partSize = 2;
+                    } else {
+                        part.write(',');
+                        partSize++;
+                    }
+                    part.write(feature);
+                    partSize += feature.length;
+                }
+                if (parser.currentToken() != JsonToken.END_ARRAY) {
+                    throw new IllegalArgumentException(report.getFileName() + " is not a cucumber JSON report");
+                }
+                if (part != null) {
+                    part.write(']');
+                }
+            } finally {
+                if (part != null) {
+                    part.close();
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            delete(report, parts);
+            throw e;
+        }
+        return parts;
+    }
+
+    /**
+     * Deletes the temporary parts of the given report.
+     */
+    void delete(Path report, List<Path> parts) throws IOException {
+        for (Path part : parts) {
+            if (!part.equals(report)) {
+                Files.deleteIfExists(part);
+            }
+        }
+    }
+}
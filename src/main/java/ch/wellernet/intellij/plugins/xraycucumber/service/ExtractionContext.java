@@ -0,0 +1,216 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package ch.wellernet.intellij.plugins.xraycucumber.service;
+
+import ch.wellernet.intellij.plugins.xraycucumber.model.FilterParameters;
+import lombok.Getter;
+import lombok.Value;
+import lombok.experimental.Accessors;
+
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+
+/**
+ * State shared by all exports of a single download, which may be extracted concurrently.
+ */
+class ExtractionContext implements Closeable {
+    private final Map<Path, ExtractionManifest> manifests = new HashMap<>();
+    private final Map<String, Claim> claims = new HashMap<>();
+    private final List<Claim> rejectedClaims = new ArrayList<>();
+    private final List<Claim> supersededClaims = new ArrayList<>();
+    private final Map<String, CachedExport> downloadedExports = new LinkedHashMap<>();
+    @Getter
+    @Accessors(fluent = true)
+    private final FileChanges fileChanges;
+    @Getter
+    @Accessors(fluent = true)
+    private final ConflictStaging conflictStaging;
+    @Getter
+    @Accessors(fluent = true)
+    private final FileTransaction fileTransaction;
+
+    private final List<FilterParameters> filters;
+    private final CancellationToken cancellationToken;
+
+    /**
+     * @param filters     the filters exported by the download, in the order they are declared
+     * @param fileChanges collects the files changed by the download
+     */
+    ExtractionContext(List<FilterParameters> filters, boolean transactional, CancellationToken cancellationToken, FileChanges fileChanges) {
+        this.filters = filters;
+        this.fileChanges = fileChanges;
+        this.conflictStaging = new ConflictStaging(fileChanges);
+        this.fileTransaction = new FileTransaction(transactional, fileChanges);
+        this.cancellationToken = cancellationToken;
+    }
+
+    CancellationWatcher.Registration whenCanceled(Runnable action) {
+        return CancellationWatcher.whenCanceled(cancellationToken, action);
+    }
+
+    void checkCanceled() {
+        if (cancellationToken.isCanceled()) {
+            throw new CancellationException("download canceled");
+        }
+    }
+
+    synchronized ExtractionManifest manifest(Path outputDir) throws IOException {
+        ExtractionManifest manifest = manifests.get(outputDir);
+        if (manifest == null) {
+            manifest = ExtractionManifest.load(outputDir);
+            manifests.put(outputDir, manifest);
+        }
+        return manifest;
+    }
+
+    /**
+     * Claims a test listed by the export of the given filter. A test is extracted by the first declared filter which
+     * lists it, no matter in which order the exports are downloaded, so that it does not move between directories from
+     * one download to the next. A filter declared earlier supersedes the claim of a later filter, whose copy is removed
+     * by {@link #removeDuplicates(ExtractionResult)}.
+     *
+     * @return the claim, or nothing if the test is claimed by a filter declared earlier
+     */
+    synchronized Optional<Claim> claim(FilterParameters filter, Path outputDir, String fileName, ExtractionManifest manifest) {
+        Claim claim = new Claim(filters.indexOf(filter), outputDir, fileName, manifest, manifest.get(fileName).orElse(null), new ExtractionResult());
+        Claim previousClaim = claims.get(testName(fileName));
+        if (previousClaim != null && previousClaim.filterIndex() <= claim.filterIndex()) {
+            rejectedClaims.add(claim);
+            return Optional.empty();
+        }
+        if (previousClaim != null) {
+            supersededClaims.add(previousClaim);
+        }
+        claims.put(testName(fileName), claim);
+        return Optional.of(claim);
+    }
+
+    /**
+     * Removes the copies of all tests claimed by another filter, whether extracted by this download before the claim
+     * has been superseded or left over from previous downloads. Locally modified copies are kept, but not tracked by
+     * their manifest any more. Must be called once all exports are extracted.
+     *
+     * @param extractionResult the result of all exports, which is corrected for the superseded claims
+     */
+    synchronized void removeDuplicates(ExtractionResult extractionResult) throws IOException {
+        for (Claim claim : supersededClaims) {
+            extractionResult.fileSuperseded(claim.extractionResult());
+            removeDuplicate(claim);
+        }
+        for (Claim claim : rejectedClaims) {
+            removeDuplicate(claim);
+        }
+        supersededClaims.clear();
+        rejectedClaims.clear();
+    }
+
+    private void removeDuplicate(Claim duplicate) throws IOException {
+        Claim owner = claims.get(testName(duplicate.fileName()));
+        Path file = duplicate.outputDir().resolve(duplicate.fileName());
+        if (file.equals(owner.outputDir().resolve(owner.fileName()))) {
+            return;
+        }
+        // a copy written within a transaction is still pending, so the file has still the content recorded before
+        String hash = fileTransaction.discard(file) ?
+                duplicate.previousHash() :
+                duplicate.manifest().get(duplicate.fileName()).orElse(null);
+        conflictStaging.discard(file);
+        duplicate.manifest().remove(duplicate.fileName());
+        if (hash != null && Files.isRegularFile(file) && hash.equals(ExtractionManifest.hash(Files.readAllBytes(file)))) {
+            fileTransaction.delete(file);
+        }
+    }
+
+    private String testName(String fileName) {
+        // Xray prefixes exported files with a sequence number which depends on the export
+        return fileName.replaceFirst("^\\d+_", "");
+    }
+
+    /**
+     * Remembers the validators of a downloaded export, which must only be cached once the download succeeded as a
+     * whole, as otherwise the next download would not fetch the export again.
+     *
+     * @param cachedExport the validators, or <code>null</code> if the export has none
+     */
+    synchronized void exportDownloaded(String exportCacheKey, @Nullable CachedExport cachedExport) {
+        downloadedExports.put(exportCacheKey, cachedExport);
+    }
+
+    synchronized Map<String, CachedExport> downloadedExports() {
+        return new LinkedHashMap<>(downloadedExports);
+    }
+
+    /**
+     * Moves all files written within a transactional download into place, deletes the removed duplicates and records
+     * all of them in the manifests.
+     */
+    synchronized void commit() throws IOException {
+        fileTransaction.commit();
+        for (ExtractionManifest manifest : manifests.values()) {
+            save(manifest);
+        }
+    }
+
+    void save(ExtractionManifest manifest) throws IOException {
+        boolean existed = Files.exists(manifest.file());
+        if (manifest.save()) {
+            fileChanges.fileWritten(manifest.file(), existed);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            fileTransaction.close();
+        } finally {
+            conflictStaging.close();
+        }
+    }
+
+    @Value
+    @Accessors(fluent = true)
+    static class Claim {
+        int filterIndex;
+        Path outputDir;
+        String fileName;
+        ExtractionManifest manifest;
+
+        /**
+         * The hash recorded in the manifest before the test has been extracted, if any.
+         */
+        @Nullable
+        String previousHash;
+
+        /**
+         * The result of extracting the test, which no longer counts once the claim is superseded.
+         */
+        ExtractionResult extractionResult;
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package ch.wellernet.intellij.plugins.xraycucumber.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Records a content hash for each feature file extracted from Xray, so that subsequent downloads can detect files that
+ * did not change on Jira side and files that have not been modified locally since they were downloaded.
+ */
+class ExtractionManifest {
+
+    static final String XRAY_CUCUMBER_MANIFEST_JSON = "xray-cucumber-manifest.json";
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .enable(SerializationFeature.INDENT_OUTPUT);
+
+    private final Path manifestFile;
+    private final Map<String, String> hashes;
+    private boolean modified;
+
+    private ExtractionManifest(Path manifestFile, Map<String, String> hashes) {
+        this.manifestFile = manifestFile;
+        this.hashes = hashes;
+    }
+
+    static ExtractionManifest load(Path outputDir) throws IOException {
+        Path manifestFile = outputDir.resolve(XRAY_CUCUMBER_MANIFEST_JSON);
+        Map<String, String> hashes = new TreeMap<>();
+        if (Files.exists(manifestFile)) {
+            try (InputStream inputStream = Files.newInputStream(manifestFile)) {
+                hashes.putAll(OBJECT_MAPPER.readValue(inputStream, new TypeReference<Map<String, String>>() {
+                }));
+            }
+        }
+        return new ExtractionManifest(manifestFile, hashes);
+    }
+
+    synchronized Optional<String> get(String fileName) {
+        return Optional.ofNullable(hashes.get(fileName));
+    }
+
+    synchronized void put(String fileName, String hash) {
+        if (!hash.equals(hashes.put(fileName, hash))) {
+            modified = true;
+        }
+    }
+
+    synchronized void remove(String fileName) {
+        if (hashes.remove(fileName) != null) {
+            modified = true;
+        }
+    }
+
+    /**
+     * @return whether all files recorded in the manifest still exist with the recorded content
+     */
+    synchronized boolean isIntact() throws IOException {
+        Path outputDir = manifestFile.getParent();
+        for (Map.Entry<String, String> entry : hashes.entrySet()) {
+            Path file = outputDir.resolve(entry.getKey());
+            if (!Files.isRegularFile(file) || !entry.getValue().equals(hash(Files.readAllBytes(file)))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    Path file() {
+        return manifestFile;
+    }
+
+    /**
+     * Writes the manifest unless it exists already and no hash changed since it was loaded.
+     *
+     * @return whether the manifest file has been written
+     */
+    synchronized boolean save() throws IOException {
+        if (!modified && Files.exists(manifestFile)) {
+            return false;
+        }
+        AtomicFiles.write(manifestFile, OBJECT_MAPPER.writeValueAsBytes(hashes));
+        modified = false;
+        return true;
+    }
+
+    static String hash(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            StringBuilder hash = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hash.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hash.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+}
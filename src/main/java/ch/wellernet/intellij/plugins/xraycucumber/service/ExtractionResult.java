@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package ch.wellernet.intellij.plugins.xraycucumber.service;
+
+import lombok.Getter;
+import lombok.experimental.Accessors;
+
+@Getter
+@Accessors(fluent = true)
+class ExtractionResult {
+    private int added;
+    private int changed;
+    private int unchanged;
+    private int skipped;
+    private int duplicated;
+
+    void fileAdded() {
+        added++;
+    }
+
+    void fileChanged() {
+        changed++;
+    }
+
+    void fileUnchanged() {
+        unchanged++;
+    }
+
+    void fileSkipped() {
+        skipped++;
+    }
+
+    void fileDuplicated() {
+        duplicated++;
+    }
+
+    /**
+     * Takes back the result of extracting a test whose claim has been superseded by another filter.
+     */
+    void fileSuperseded(ExtractionResult fileExtractionResult) {
+        added -= fileExtractionResult.added;
+        changed -= fileExtractionResult.changed;
+        unchanged -= fileExtractionResult.unchanged;
+        skipped -= fileExtractionResult.skipped;
+        duplicated++;
+    }
+
+    void conflictsResolved(int replaced, int kept) {
+        changed += replaced;
+        skipped += kept;
+    }
+
+    void add(ExtractionResult extractionResult) {
+        added += extractionResult.added;
+        changed += extractionResult.changed;
+        unchanged += extractionResult.unchanged;
+        skipped += extractionResult.skipped;
+        duplicated += extractionResult.duplicated;
+    }
+
+    int total() {
+        return added + changed + unchanged + skipped;
+    }
+
+    @Override
+    public String toString() {
+        return total() + " cucumber tests (" + added + " added, " + changed + " changed, "
+                + unchanged + " unchanged, " + skipped + " skipped"
+                + (duplicated > 0 ? ", " + duplicated + " duplicates ignored" : "") + ")";
+    }
+}
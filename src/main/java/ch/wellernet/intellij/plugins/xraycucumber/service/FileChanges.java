@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package ch.wellernet.intellij.plugins.xraycucumber.service;
+
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The files created, modified and deleted by a download, so that the IDE needs to refresh only these instead of the
+ * whole output directory. Files written to temporary locations and moved into place are reported at their final
+ * location only.
+ */
+public class FileChanges {
+    private final Set<Path> created = new TreeSet<>();
+    private final Set<Path> modified = new TreeSet<>();
+    private final Set<Path> deleted = new TreeSet<>();
+
+    /**
+     * @param existed whether the file existed before it has been written
+     */
+    synchronized void fileWritten(Path file, boolean existed) {
+        if (deleted.remove(file) || existed && !created.contains(file)) {
+            modified.add(file);
+        } else {
+            created.add(file);
+        }
+    }
+
+    synchronized void fileDeleted(Path file) {
+        modified.remove(file);
+        if (!created.remove(file)) {
+            deleted.add(file);
+        }
+    }
+
+    public synchronized Set<Path> created() {
+        return new TreeSet<>(created);
+    }
+
+    public synchronized Set<Path> modified() {
+        return new TreeSet<>(modified);
+    }
+
+    public synchronized Set<Path> deleted() {
+        return new TreeSet<>(deleted);
+    }
+
+    /**
+     * @return all created, modified and deleted files
+     */
+    public synchronized Set<Path> all() {
+        Set<Path> all = new TreeSet<>(created);
+        all.addAll(modified);
+        all.addAll(deleted);
+        return all;
+    }
+
+    public synchronized boolean isEmpty() {
+        return created.isEmpty() && modified.isEmpty() && deleted.isEmpty();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return created.size() + " created, " + modified.size() + " modified, " + deleted.size() + " deleted";
+    }
+}
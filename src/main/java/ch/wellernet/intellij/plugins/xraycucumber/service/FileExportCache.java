@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package ch.wellernet.intellij.plugins.xraycucumber.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * {@link ExportCache} persisted as single JSON file, so that conditional requests survive restarts of the IDE.
+ */
+public class FileExportCache implements ExportCache {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+            .enable(SerializationFeature.INDENT_OUTPUT);
+
+    private final Path cacheFile;
+    private Map<String, CachedExport> cachedExports;
+
+    public FileExportCache(Path cacheFile) {
+        this.cacheFile = cacheFile;
+    }
+
+    @Override
+    public synchronized Optional<CachedExport> get(String key) {
+        return Optional.ofNullable(cachedExports().get(key));
+    }
+
+    @Override
+    public synchronized void put(String key, CachedExport cachedExport) throws IOException {
+        cachedExports().put(key, cachedExport);
+        save();
+    }
+
+    @Override
+    public synchronized void remove(String key) throws IOException {
+        if (cachedExports().remove(key) != null) {
+            save();
+        }
+    }
+
+    private Map<String, CachedExport> cachedExports() {
+        if (cachedExports == null) {
+            cachedExports = new TreeMap<>();
+            if (Files.exists(cacheFile)) {
+                try (InputStream inputStream = Files.newInputStream(cacheFile)) {
+                    cachedExports.putAll(OBJECT_MAPPER.readValue(inputStream, new TypeReference<Map<String, CachedExport>>() {
+                    }));
+                } catch (IOException e) {
+                    // a corrupt cache only costs an unconditional request
+                    cachedExports.clear();
+                }
+            }
+        }
+        return cachedExports;
+    }
+
+    private void save() throws IOException {
+        Path parent = cacheFile.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        AtomicFiles.write(cacheFile, OBJECT_MAPPER.writeValueAsBytes(cachedExports));
+    }
+}
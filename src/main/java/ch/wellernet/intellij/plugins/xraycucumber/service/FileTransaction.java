@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package ch.wellernet.intellij.plugins.xraycucumber.service;
+
+import lombok.Value;
+import lombok.experimental.Accessors;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Writes and deletes feature files atomically. If deferred, the written files are kept as temporary siblings and the
+ * deleted files in place until {@link #commit()}, so that a download either changes all files or, if it fails or is
+ * canceled, none of them.
+ */
+class FileTransaction implements Closeable {
+    private final boolean deferred;
+    private final FileChanges fileChanges;
+    private final List<PendingFile> pendingFiles = new ArrayList<>();
+    private final List<Path> pendingDeletions = new ArrayList<>();
+
+    FileTransaction(boolean deferred, FileChanges fileChanges) {
+        this.deferred = deferred;
+        this.fileChanges = fileChanges;
+    }
+
+    boolean isDeferred() {
+        return deferred;
+    }
+
+    void write(Path file, byte[] content) throws IOException {
+        if (!deferred) {
+            boolean existed = Files.exists(file);
+            AtomicFiles.write(file, content);
+            fileChanges.fileWritten(file, existed);
+            return;
+        }
+        Path temporaryFile = AtomicFiles.writeTemporary(file, content);
+        synchronized (pendingFiles) {
+            pendingFiles.add(new PendingFile(temporaryFile, file));
+        }
+    }
+
+    void delete(Path file) throws IOException {
+        if (!deferred) {
+            if (Files.deleteIfExists(file)) {
+                fileChanges.fileDeleted(file);
+            }
+            return;
+        }
+        synchronized (pendingFiles) {
+            pendingDeletions.add(file);
+        }
+    }
+
+    /**
+     * Discards the files written to the given location which have not been committed.
+     *
+     * @return whether any file has been discarded
+     */
+    boolean discard(Path file) throws IOException {
+        boolean discarded = false;
+        synchronized (pendingFiles) {
+            for (Iterator<PendingFile> iterator = pendingFiles.iterator(); iterator.hasNext(); ) {
+                PendingFile pendingFile = iterator.next();
+                if (pendingFile.file().equals(file)) {
+                    Files.deleteIfExists(pendingFile.temporaryFile());
+                    iterator.remove();
+                    discarded = true;
+                }
+            }
+        }
+        return discarded;
+    }
+
+    void commit() throws IOException {
+        synchronized (pendingFiles) {
+            for (PendingFile pendingFile : pendingFiles) {
+                boolean existed = Files.exists(pendingFile.file());
+                AtomicFiles.move(pendingFile.temporaryFile(), pendingFile.file());
+                fileChanges.fileWritten(pendingFile.file(), existed);
+            }
+            pendingFiles.clear();
+            for (Path file : pendingDeletions) {
+                if (Files.deleteIfExists(file)) {
+                    fileChanges.fileDeleted(file);
+                }
+            }
+            pendingDeletions.clear();
+        }
+    }
+
+    /**
+     * Discards all files which have not been committed.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (pendingFiles) {
+            for (PendingFile pendingFile : pendingFiles) {
+                Files.deleteIfExists(pendingFile.temporaryFile());
+            }
+            pendingFiles.clear();
+            pendingDeletions.clear();
+        }
+    }
+
+    @Value
+    @Accessors(fluent = true)
+    private static class PendingFile {
+        Path temporaryFile;
+        Path file;
+    }
+}
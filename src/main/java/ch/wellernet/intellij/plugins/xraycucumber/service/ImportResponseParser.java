@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package ch.wellernet.intellij.plugins.xraycucumber.service;
+
+import ch.wellernet.intellij.plugins.xraycucumber.model.ImportedIssue;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.experimental.UtilityClass;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Parses the response of the Xray feature import. Depending on the Xray version, the response is either a plain array
+ * of tests or an object listing created or updated tests and preconditions separately.
+ *
+ * @see "https://docs.getxray.app/display/XRAY/Importing+Cucumber+Tests+-+REST"
+ */
+@UtilityClass
+class ImportResponseParser {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    List<ImportedIssue> parse(InputStream inputStream) throws IOException {
+        JsonNode response = OBJECT_MAPPER.readTree(inputStream);
+        List<ImportedIssue> importedIssues = new ArrayList<>();
+        if (response == null) {
+            return importedIssues;
+        }
+        if (response.isArray()) {
+            addIssues(response, ImportedIssue.Type.TEST, importedIssues);
+        } else if (response.has("testExecIssue")) {
+            addIssues(Collections.singletonList(response.get("testExecIssue")), ImportedIssue.Type.TEST_EXECUTION, importedIssues);
+        } else if (response.has("key")) {
+            // execution imported into Xray Cloud
+            addIssues(Collections.singletonList(response), ImportedIssue.Type.TEST_EXECUTION, importedIssues);
+        } else {
+            addIssues(response.path("updatedOrCreatedTests"), ImportedIssue.Type.TEST, importedIssues);
+            addIssues(response.path("updatedOrCreatedPreconditions"), ImportedIssue.Type.PRECONDITION, importedIssues);
+        }
+        return importedIssues;
+    }
+
+    /**
+     * @return the error message Xray reported in a JSON error response, if any
+     */
+    Optional<String> parseError(InputStream inputStream) throws IOException {
+        JsonNode response = OBJECT_MAPPER.readTree(inputStream);
+        return Optional.ofNullable(response)
+                .map(node -> node.path("error"))
+                .filter(JsonNode::isTextual)
+                .map(JsonNode::asText);
+    }
+
+    private void addIssues(Iterable<JsonNode> issues, ImportedIssue.Type type, List<ImportedIssue> importedIssues) {
+        for (JsonNode issue : issues) {
+            if (issue.hasNonNull("key")) {
+                importedIssues.add(new ImportedIssue(
+                        textOrNull(issue, "id"),
+                        issue.get("key").asText(),
+                        textOrNull(issue, "self"),
+                        type));
+            }
+        }
+    }
+
+    private String textOrNull(JsonNode node, String fieldName) {
+        return node.hasNonNull(fieldName) ? node.get(fieldName).asText() : null;
+    }
+}
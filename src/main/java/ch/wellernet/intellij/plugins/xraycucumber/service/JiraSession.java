@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package ch.wellernet.intellij.plugins.xraycucumber.service;
+
+import ch.wellernet.intellij.plugins.xraycucumber.model.ServiceParameters;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.auth.AuthenticationException;
+import org.apache.http.client.CookieStore;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.BasicCookieStore;
+import org.apache.http.util.EntityUtils;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Session of a user with a single Jira instance, shared by all operations of the IDE together. Username and password
+ * are sent only once to log in, all further requests authenticate with the <code>JSESSIONID</code> cookie (and pass
+ * the XSRF check with the cookies set by Jira), which spares Jira a directory lookup per request. If Jira does not
+ * accept the session any more, it is logged in again.
+ */
+class JiraSession {
+    static final String REST_ENDPOINT_SESSION = "/rest/auth/1/session";
+
+    private static final Map<String, JiraSession> SESSIONS = new ConcurrentHashMap<>();
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final String baseUrl;
+    private final String username;
+    private final CookieStore cookieStore = new BasicCookieStore();
+    private final CancellableLock loginLock = new CancellableLock();
+    private boolean authenticated;
+    private int generation;
+
+    JiraSession(String baseUrl, String username) {
+        this.baseUrl = baseUrl;
+        this.username = username;
+    }
+
+    /**
+     * @return the session of the Jira instance of the given parameters, which is replaced if another user logs in
+     */
+    static JiraSession of(ServiceParameters serviceParameters) {
+        String baseUrl = serviceParameters.url().toExternalForm().replaceFirst("/+$", "");
+        return SESSIONS.compute(baseUrl, (url, session) ->
+                session != null && Objects.equals(session.username, serviceParameters.username()) ?
+                        session : new JiraSession(url, serviceParameters.username()));
+    }
+
+    /**
+     * @return the context to execute requests with, so that they send and receive the cookies of this session
+     */
+    HttpClientContext context() {
+        HttpClientContext context = HttpClientContext.create();
+        context.setCookieStore(cookieStore);
+        return context;
+    }
+
+    /**
+     * Logs in unless this has already been done by another request. Requests arriving meanwhile wait for the login in
+     * progress, until it completes or the given check throws.
+     *
+     * @return the generation of the session, to be passed to {@link #expire(int)} if Jira does not accept it
+     */
+    int authenticate(AuthenticationExecutor authenticationExecutor, ServiceParameters serviceParameters, Runnable cancellationCheck)
+            throws AuthenticationException, URISyntaxException, IOException {
+        loginLock.lock(cancellationCheck);
+        try {
+            synchronized (this) {
+                if (authenticated) {
+                    return generation;
+                }
+            }
+            return logIn(authenticationExecutor, serviceParameters);
+        } finally {
+            loginLock.unlock();
+        }
+    }
+
+    /**
+     * Forces the next request to log in again, unless this has already been done since the given generation.
+     */
+    synchronized void expire(int expiredGeneration) {
+        if (generation == expiredGeneration) {
+            authenticated = false;
+        }
+    }
+
+    private int logIn(AuthenticationExecutor authenticationExecutor, ServiceParameters serviceParameters)
+            throws AuthenticationException, URISyntaxException, IOException {
+        ObjectNode credentials = OBJECT_MAPPER.createObjectNode()
+                .put("username", Optional.ofNullable(serviceParameters.username()).orElseThrow(() -> new AuthenticationException("user is required")))
+                .put("password", Optional.ofNullable(serviceParameters.password()).orElseThrow(() -> new AuthenticationException("password is required")));
+        String body = OBJECT_MAPPER.writeValueAsString(credentials);
+        cookieStore.clear();
+        HttpResponse httpResponse = authenticationExecutor.execute(() -> {
+            HttpPost request = new HttpPost(baseUrl + REST_ENDPOINT_SESSION);
+            request.setEntity(new StringEntity(body, ContentType.APPLICATION_JSON));
+            return request;
+        }, context());
+        int statusCode = httpResponse.getStatusLine().getStatusCode();
+        EntityUtils.consume(httpResponse.getEntity());
+        if (statusCode == HttpStatus.SC_UNAUTHORIZED || statusCode == HttpStatus.SC_FORBIDDEN) {
+            throw new AuthenticationException("Jira refused login (HTTP " + statusCode + ")");
+        }
+        if (statusCode != HttpStatus.SC_OK) {
+            throw new IllegalStateException("login to Jira failed (HTTP " + statusCode + ")");
+        }
+        synchronized (this) {
+            authenticated = true;
+            return ++generation;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package ch.wellernet.intellij.plugins.xraycucumber.service;
+
+import ch.wellernet.intellij.plugins.xraycucumber.model.FileConflict;
+import ch.wellernet.intellij.plugins.xraycucumber.model.FilterParameters;
+import lombok.RequiredArgsConstructor;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Aggregates the progress of exports running concurrently for several filters into a single {@link ProgressReporter}.
+ * Successes and errors are not forwarded, as they are reported once for all filters.
+ */
+@RequiredArgsConstructor
+class MultiFilterProgressReporter {
+    @Nullable
+    private final ProgressReporter progressReporter;
+    private final int filterCount;
+    private final AtomicInteger completedFilters = new AtomicInteger();
+
+    @Nullable
+    ProgressReporter forFilter(FilterParameters filter) {
+        if (progressReporter == null) {
+            return null;
+        }
+        return new ProgressReporter() {
+            @Override
+            public void reportProgress(String message, double completionRatio) {
+                progressReporter.reportProgress("filter " + filter.filterId() + ": " + message, completionRatio());
+            }
+
+            @Override
+            public void reportSuccess(String message) {
+            }
+
+            @Override
+            public void reportAuthenticationError(String message) {
+            }
+
+            @Override
+            public void reportError(String message, Exception exception) {
+            }
+
+            @Override
+            public Set<FileConflict> askToReplaceExistingFiles(List<FileConflict> conflicts) {
+                return progressReporter.askToReplaceExistingFiles(conflicts);
+            }
+        };
+    }
+
+    void filterCompleted() {
+        int completed = completedFilters.incrementAndGet();
+        if (progressReporter != null) {
+            progressReporter.reportProgress("downloaded " + completed + " of " + filterCount + " filters", completionRatio());
+        }
+    }
+
+    private double completionRatio() {
+        return (double) completedFilters.get() / filterCount;
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package ch.wellernet.intellij.plugins.xraycucumber.service;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.Accessors;
+
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Timings and counters of a single download or upload. Phase times are summed up over all threads involved, so with
+ * parallel downloads, uploads or writes, they may exceed the elapsed time of the whole operation.
+ */
+@Accessors(fluent = true)
+public class OperationMetrics {
+
+    @RequiredArgsConstructor
+    public enum Phase {
+        /**
+         * Blocking the UI thread while preparing the operation, before it is handed over to a background task.
+         */
+        UI_THREAD("UI thread"),
+        /**
+         * Waiting for a free slot respectively a turn to send a request, as limited per Jira instance.
+         */
+        QUEUE("queue"),
+        /**
+         * Waiting for the response of Jira, i.e. authentication and building the export respectively importing the
+         * uploaded features on server side.
+         */
+        REQUEST("Jira"),
+        /**
+         * Waiting before repeating a request that failed temporarily.
+         */
+        BACKOFF("retry backoff"),
+        TRANSFER("transfer"),
+        INFLATION("inflation"),
+        WRITE("disk write"),
+        /**
+         * Blocked until the user answered whether to replace a locally modified file.
+         */
+        USER_INPUT("user input");
+
+        @Getter
+        private final String label;
+    }
+
+    @Getter
+    private final String operation;
+    @Getter
+    private final Instant startedAt = Instant.now();
+    private final long startNanos = System.nanoTime();
+    private final Map<Phase, LongAdder> phaseNanos = new EnumMap<>(Phase.class);
+    private final LongAdder bytesReceived = new LongAdder();
+    private final LongAdder bytesSent = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+    private final LongAdder entries = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private volatile long elapsedNanos = -1;
+    @Getter
+    private volatile boolean failed;
+    @Getter
+    private volatile String outcome;
+
+    public OperationMetrics(String operation) {
+        this.operation = operation;
+        for (Phase phase : Phase.values()) {
+            phaseNanos.put(phase, new LongAdder());
+        }
+    }
+
+    void phaseTime(Phase phase, long nanos) {
+        phaseNanos.get(phase).add(nanos);
+    }
+
+    /**
+     * Adds the time the UI thread was blocked by preparing this operation, which is measured by the caller as the
+     * operation itself never runs on the UI thread.
+     */
+    public void uiThreadTime(long nanos) {
+        phaseTime(Phase.UI_THREAD, nanos);
+    }
+
+    void bytesReceived(long bytes) {
+        bytesReceived.add(bytes);
+    }
+
+    void bytesSent(long bytes) {
+        bytesSent.add(bytes);
+    }
+
+    void fileWritten(long bytes, long nanos) {
+        bytesWritten.add(bytes);
+        phaseTime(Phase.WRITE, nanos);
+    }
+
+    void entryProcessed() {
+        entries.increment();
+    }
+
+    void retried() {
+        retries.increment();
+    }
+
+    void completed(boolean failed, String outcome) {
+        this.failed = failed;
+        this.outcome = outcome;
+        this.elapsedNanos = System.nanoTime() - startNanos;
+    }
+
+    public boolean isCompleted() {
+        return elapsedNanos >= 0;
+    }
+
+    public long elapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(isCompleted() ? elapsedNanos : System.nanoTime() - startNanos);
+    }
+
+    public long phaseMillis(Phase phase) {
+        return TimeUnit.NANOSECONDS.toMillis(phaseNanos.get(phase).sum());
+    }
+
+    public long bytesReceived() {
+        return bytesReceived.sum();
+    }
+
+    public long bytesSent() {
+        return bytesSent.sum();
+    }
+
+    public long bytesWritten() {
+        return bytesWritten.sum();
+    }
+
+    public long entries() {
+        return entries.sum();
+    }
+
+    public long retries() {
+        return retries.sum();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder(operation).append(": ").append(elapsedMillis()).append(" ms (");
+        for (Phase phase : Phase.values()) {
+            result.append(phase.ordinal() == 0 ? "" : ", ").append(phase.label()).append(' ').append(phaseMillis(phase)).append(" ms");
+        }
+        return result.append(String.format(Locale.ROOT, "), %d bytes received, %d bytes sent, %d bytes written, %d entries, %d retries",
+                bytesReceived(), bytesSent(), bytesWritten(), entries(), retries())).toString();
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package ch.wellernet.intellij.plugins.xraycucumber.service;
+
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.entity.ContentType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Request entity of a file, which is only opened while the request is sent and closed right after, so that it is
+ * repeatable as well. Unlike {@link org.apache.http.entity.FileEntity}, it is not restricted to the default file
+ * system.
+ */
+class PathEntity extends AbstractHttpEntity {
+    private final Path file;
+    private final long contentLength;
+
+    PathEntity(Path file, ContentType contentType) throws IOException {
+        this.file = file;
+        this.contentLength = Files.size(file);
+        setContentType(contentType.toString());
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    @Override
+    public long getContentLength() {
+        return contentLength;
+    }
+
+    @Override
+    public InputStream getContent() throws IOException {
+        return Files.newInputStream(file);
+    }
+
+    @Override
+    public void writeTo(OutputStream outputStream) throws IOException {
+        Files.copy(file, outputStream);
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return false;
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package ch.wellernet.intellij.plugins.xraycucumber.service;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Hands completely inflated entries over to a bounded pool of writer threads, so that reading from network and
+ * inflating can continue while previous entries are written to disk. The amount of buffered content is capped: once
+ * the limit is reached, {@link #write(Path, byte[])} blocks until enough pending writes are completed.
+ */
+class PipelinedFeatureFileWriter implements FeatureFileWriter {
+
+    private final ExecutorService executorService;
+    private final Semaphore bufferPermits;
+    private final int maxBufferedBytes;
+    private final FileTransaction fileTransaction;
+    private final OperationMetrics metrics;
+    private final AtomicReference<IOException> failure = new AtomicReference<>();
+
+    PipelinedFeatureFileWriter(int threads, int maxBufferedBytes, FileTransaction fileTransaction, OperationMetrics metrics) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("at least one extraction thread is required");
+        }
+        if (maxBufferedBytes < 1) {
+            throw new IllegalArgumentException("extraction buffer size must be positive");
+        }
+        this.executorService = Executors.newFixedThreadPool(threads, new DaemonThreadFactory("xray-cucumber-writer"));
+        this.bufferPermits = new Semaphore(maxBufferedBytes);
+        this.maxBufferedBytes = maxBufferedBytes;
+        this.fileTransaction = fileTransaction;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void write(Path featureFile, byte[] content) throws IOException {
+        rethrowFailure();
+        // a single entry larger than the whole buffer is allowed, but then it is the only one in flight
+        int permits = Math.max(1, Math.min(content.length, maxBufferedBytes));
+        try {
+            bufferPermits.acquire(permits);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for pending writes");
+        }
+        try {
+            executorService.execute(() -> {
+                try {
+                    if (failure.get() == null) {
+                        long start = System.nanoTime();
+                        fileTransaction.write(featureFile, content);
+                        metrics.fileWritten(content.length, System.nanoTime() - start);
+                    }
+                } catch (IOException e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    bufferPermits.release(permits);
+                }
+            });
+        } catch (RuntimeException e) {
+            bufferPermits.release(permits);
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        executorService.shutdown();
+        try {
+            while (!executorService.awaitTermination(1, TimeUnit.SECONDS)) {
+                // keep waiting for pending writes
+            }
+        } catch (InterruptedException e) {
+            executorService.shutdownNow();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for pending writes");
+        }
+        rethrowFailure();
+    }
+
+    private void rethrowFailure() throws IOException {
+        IOException exception = failure.get();
+        if (exception != null) {
+            throw new IOException("failed to write feature file: " + exception.getMessage(), exception);
+        }
+    }
+}
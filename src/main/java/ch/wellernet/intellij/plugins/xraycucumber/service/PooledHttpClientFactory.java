@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package ch.wellernet.intellij.plugins.xraycucumber.service;
+
+import ch.wellernet.intellij.plugins.xraycucumber.model.HttpClientParameters;
+import lombok.experimental.UtilityClass;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+
+import java.util.concurrent.TimeUnit;
+
+@UtilityClass
+public class PooledHttpClientFactory {
+
+    public CloseableHttpClient create(HttpClientParameters parameters) {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(
+                parameters.keepAliveMillis(), TimeUnit.MILLISECONDS);
+        connectionManager.setMaxTotal(parameters.maxConnections());
+        connectionManager.setDefaultMaxPerRoute(parameters.maxConnectionsPerRoute());
+        // a pooled connection may have been closed by the server meanwhile
+        connectionManager.setValidateAfterInactivity(2_000);
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig(parameters))
+                .setKeepAliveStrategy(keepAliveStrategy(parameters.keepAliveMillis()))
+                .evictExpiredConnections()
+                .evictIdleConnections(parameters.keepAliveMillis(), TimeUnit.MILLISECONDS)
+                .useSystemProperties()
+                .build();
+    }
+
+    /**
+     * @return the default config of the requests executed by a client created with the given parameters
+     */
+    public RequestConfig requestConfig(HttpClientParameters parameters) {
+        return RequestConfig.custom()
+                .setConnectTimeout(parameters.connectTimeoutMillis())
+                .setConnectionRequestTimeout(parameters.connectTimeoutMillis())
+                .setSocketTimeout(parameters.socketTimeoutMillis())
+                .build();
+    }
+
+    private ConnectionKeepAliveStrategy keepAliveStrategy(long maxKeepAliveMillis) {
+        return (response, context) -> {
+            long keepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return keepAlive > 0 ? Math.min(keepAlive, maxKeepAliveMillis) : maxKeepAliveMillis;
+        };
+    }
+}
@@ -19,11 +19,20 @@
 
 package ch.wellernet.intellij.plugins.xraycucumber.service;
 
-import ch.wellernet.intellij.plugins.xraycucumber.model.FileReplacementDecision;
+import ch.wellernet.intellij.plugins.xraycucumber.model.FileConflict;
 
-import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
 
 public interface ProgressReporter {
+    /**
+     * Completion ratio reported when the total amount of work is not known.
+     */
+    double INDETERMINATE = -1;
+
+    /**
+     * @param completionRatio a value between 0 and 1, or {@link #INDETERMINATE}
+     */
     void reportProgress(String message, double completionRatio);
 
     void reportSuccess(String message);
@@ -32,5 +41,11 @@ public interface ProgressReporter {
 
     void reportError(String message, Exception exception);
 
-    FileReplacementDecision askToReplaceExistingFile(Path file);
+    /**
+     * Asks once per download, after all exports have been extracted, which of the locally modified files shall be
+     * replaced by the version downloaded from Jira.
+     *
+     * @return the conflicts to resolve in favour of Jira, all others keep their local copy
+     */
+    Set<FileConflict> askToReplaceExistingFiles(List<FileConflict> conflicts);
 }
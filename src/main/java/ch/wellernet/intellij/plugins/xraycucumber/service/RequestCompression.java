@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package ch.wellernet.intellij.plugins.xraycucumber.service;
+
+import ch.wellernet.intellij.plugins.xraycucumber.model.ServiceParameters;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.entity.GzipCompressingEntity;
+import org.apache.http.client.methods.HttpUriRequest;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compresses large request bodies with gzip while they are sent. Jira itself does not decode compressed requests, so
+ * this only works if e.g. a reverse proxy does so. A Jira instance rejecting a compressed request (HTTP 415) is not
+ * sent any compressed requests any more until the IDE is restarted.
+ */
+class RequestCompression {
+    private static final Set<String> REJECTED = ConcurrentHashMap.newKeySet();
+
+    static HttpEntity compress(ServiceParameters serviceParameters, HttpEntity entity) {
+        return serviceParameters.compressExecutionResults() && !REJECTED.contains(baseUrl(serviceParameters)) ?
+                new GzipCompressingEntity(entity) : entity;
+    }
+
+    /**
+     * @return whether the response rejects the compressed body of the request, in which case the request is to be
+     * repeated, as it will not be compressed any more
+     */
+    static boolean rejected(ServiceParameters serviceParameters, HttpUriRequest request, HttpResponse httpResponse) {
+        if (httpResponse.getStatusLine().getStatusCode() != HttpStatus.SC_UNSUPPORTED_MEDIA_TYPE || !(request instanceof HttpEntityEnclosingRequest)) {
+            return false;
+        }
+        HttpEntity entity = ((HttpEntityEnclosingRequest) request).getEntity();
+        if (entity == null || entity.getContentEncoding() == null) {
+            return false;
+        }
+        REJECTED.add(baseUrl(serviceParameters));
+        return true;
+    }
+
+    private static String baseUrl(ServiceParameters serviceParameters) {
+        return serviceParameters.url().toExternalForm().replaceFirst("/+$", "");
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package ch.wellernet.intellij.plugins.xraycucumber.service;
+
+import ch.wellernet.intellij.plugins.xraycucumber.model.HttpClientParameters;
+import ch.wellernet.intellij.plugins.xraycucumber.model.ServiceParameters;
+
+import java.io.InterruptedIOException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Limits the requests sent to a single Jira instance by all operations of the IDE together: a token bucket limits the
+ * rate of requests, a fair semaphore the number of requests in flight (including the transfer of their responses).
+ * Waiting for either is reported periodically, so that the user sees why an operation does not proceed.
+ */
+class RequestGovernor {
+    private static final Map<String, RequestGovernor> GOVERNORS = new ConcurrentHashMap<>();
+
+    private static final long POLL_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(CancellationWatcher.POLL_INTERVAL_MILLIS);
+
+    private final String baseUrl;
+    private final int maxRequestsPerSecond;
+    private final int maxConcurrentRequests;
+    private final Semaphore inFlight;
+    private double tokens;
+    private long refilledAt = System.nanoTime();
+
+    RequestGovernor(String baseUrl, int maxRequestsPerSecond, int maxConcurrentRequests) {
+        this.baseUrl = baseUrl;
+        this.maxRequestsPerSecond = maxRequestsPerSecond;
+        this.maxConcurrentRequests = maxConcurrentRequests;
+        this.inFlight = new Semaphore(maxConcurrentRequests, true);
+        // a burst of up to one second worth of requests is allowed
+        this.tokens = maxRequestsPerSecond;
+    }
+
+    /**
+     * @return the governor of the Jira instance of the given parameters, which is replaced if its limits have been
+     * reconfigured meanwhile (requests still in flight then do not count against the new limits)
+     */
+    static RequestGovernor of(ServiceParameters serviceParameters, HttpClientParameters httpClientParameters) {
+        String baseUrl = serviceParameters.url().toExternalForm().replaceFirst("/+$", "");
+        int maxRequestsPerSecond = Math.max(0, serviceParameters.maxRequestsPerSecond());
+        // more requests would wait for a pooled connection, which times out and fails instead of queueing here
+        int maxConcurrentRequests = Math.min(Math.max(1, serviceParameters.maxConcurrentRequests()),
+                Math.max(1, httpClientParameters.maxConnectionsPerRoute()));
+        return GOVERNORS.compute(baseUrl, (url, governor) ->
+                governor != null && governor.maxRequestsPerSecond == maxRequestsPerSecond && governor.maxConcurrentRequests == maxConcurrentRequests ?
+                        governor : new RequestGovernor(url, maxRequestsPerSecond, maxConcurrentRequests));
+    }
+
+    /**
+     * Blocks until less than the maximum number of requests are in flight. The returned permit must be released once
+     * the response has been consumed.
+     */
+    Permit acquire(Runnable cancellationCheck, Consumer<String> waitListener) throws InterruptedIOException {
+        long start = System.nanoTime();
+        try {
+            while (!inFlight.tryAcquire(POLL_INTERVAL_NANOS, TimeUnit.NANOSECONDS)) {
+                cancellationCheck.run();
+                waitListener.accept(String.format(Locale.ROOT, "waiting for one of %d requests in flight to %s (queued for %.1f s)",
+                        maxConcurrentRequests, baseUrl, (System.nanoTime() - start) / 1e9));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for " + baseUrl);
+        }
+        AtomicBoolean released = new AtomicBoolean();
+        return () -> {
+            if (released.compareAndSet(false, true)) {
+                inFlight.release();
+            }
+        };
+    }
+
+    /**
+     * Blocks until the next request may be sent without exceeding the maximum rate of requests.
+     */
+    void awaitTurn(Runnable cancellationCheck, Consumer<String> waitListener) throws InterruptedIOException {
+        if (maxRequestsPerSecond <= 0) {
+            return;
+        }
+        long start = System.nanoTime();
+        long deadline = start + reserveToken();
+        try {
+            for (long remaining = deadline - start; remaining > 0; remaining = deadline - System.nanoTime()) {
+                cancellationCheck.run();
+                TimeUnit.NANOSECONDS.sleep(Math.min(remaining, POLL_INTERVAL_NANOS));
+                if (deadline - System.nanoTime() > 0) {
+                    waitListener.accept(String.format(Locale.ROOT, "throttled to %d requests per second to %s for %.1f s",
+                            maxRequestsPerSecond, baseUrl, (System.nanoTime() - start) / 1e9));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for " + baseUrl);
+        }
+        cancellationCheck.run();
+    }
+
+    /**
+     * Takes the next token, which may be available only in the future, so that waiting requests are served in order.
+     *
+     * @return the nanoseconds to wait until the token is available
+     */
+    private synchronized long reserveToken() {
+        long now = System.nanoTime();
+        tokens = Math.min(maxRequestsPerSecond, tokens + (now - refilledAt) / 1e9 * maxRequestsPerSecond);
+        refilledAt = now;
+        tokens--;
+        return tokens >= 0 ? 0 : (long) (-tokens / maxRequestsPerSecond * 1e9);
+    }
+
+    interface Permit {
+        void release();
+    }
+}
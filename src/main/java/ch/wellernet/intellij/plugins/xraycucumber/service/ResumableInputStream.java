@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package ch.wellernet.intellij.plugins.xraycucumber.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Continues with a new stream where the underlying stream failed with a transient I/O error, e.g. because the
+ * connection has been reset in the middle of a large export.
+ */
+class ResumableInputStream extends InputStream {
+
+    @FunctionalInterface
+    interface Resumer {
+        /**
+         * @return a stream continuing with the byte at the given offset of the original content
+         */
+        InputStream resume(long offset, int resumes) throws IOException;
+    }
+
+    private final Resumer resumer;
+    private final int maxResumes;
+    private InputStream inputStream;
+    private long position;
+    private int resumes;
+
+    ResumableInputStream(InputStream inputStream, int maxResumes, Resumer resumer) {
+        this.inputStream = inputStream;
+        this.maxResumes = maxResumes;
+        this.resumer = resumer;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] buffer = new byte[1];
+        int result = read(buffer, 0, 1);
+        return result > 0 ? buffer[0] & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        while (true) {
+            try {
+                int result = inputStream.read(buffer, offset, length);
+                if (result > 0) {
+                    position += result;
+                }
+                return result;
+            } catch (IOException e) {
+                resume(e);
+            }
+        }
+    }
+
+    @Override
+    public int available() throws IOException {
+        return inputStream.available();
+    }
+
+    @Override
+    public void close() throws IOException {
+        inputStream.close();
+    }
+
+    private void resume(IOException failure) throws IOException {
+        if (resumes >= maxResumes || !RetryPolicy.isRetryable(failure, true)) {
+            throw failure;
+        }
+        resumes++;
+        InputStream failedInputStream = inputStream;
+        try {
+            inputStream = resumer.resume(position, resumes);
+        } catch (IOException e) {
+            failure.addSuppressed(e);
+            throw failure;
+        }
+        try {
+            failedInputStream.close();
+        } catch (IOException e) {
+            // the stream is broken anyway
+        }
+    }
+}
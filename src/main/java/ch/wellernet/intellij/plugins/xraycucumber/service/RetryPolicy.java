@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package ch.wellernet.intellij.plugins.xraycucumber.service;
+
+import ch.wellernet.intellij.plugins.xraycucumber.model.ServiceParameters;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.Accessors;
+import org.apache.http.Header;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.ClientProtocolException;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.utils.DateUtils;
+import org.apache.http.conn.ConnectTimeoutException;
+
+import javax.net.ssl.SSLException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides whether a failed request is worth repeating and how long to wait before. Jira responds with 429 if the
+ * client is rate limited and proxies in front of Jira with 502, 503 or 504 if the node behind is temporarily
+ * unavailable. Requests which may have been processed already (e.g. an import that timed out on a gateway) are only
+ * repeated if they are idempotent.
+ */
+@RequiredArgsConstructor
+class RetryPolicy {
+    static final long MAX_BACKOFF_MILLIS = 30_000;
+
+    /**
+     * A server asking to come back later than this is not waited for.
+     */
+    static final long MAX_RETRY_AFTER_MILLIS = 120_000;
+
+    private static final int SC_TOO_MANY_REQUESTS = 429;
+
+    @Getter
+    @Accessors(fluent = true)
+    private final int maxRetries;
+    private final long initialBackoffMillis;
+
+    static RetryPolicy of(ServiceParameters serviceParameters) {
+        return new RetryPolicy(Math.max(0, serviceParameters.maxRetries()), Math.max(0, serviceParameters.retryBackoff()));
+    }
+
+    static boolean isIdempotent(HttpUriRequest request) {
+        return "GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod());
+    }
+
+    boolean mayRetry(int retries) {
+        return retries < maxRetries;
+    }
+
+    static boolean isRetryable(HttpResponse httpResponse, boolean idempotent) {
+        switch (httpResponse.getStatusLine().getStatusCode()) {
+            case SC_TOO_MANY_REQUESTS:
+            case HttpStatus.SC_SERVICE_UNAVAILABLE:
+                // the request has not been processed at all
+                return retryAfterMillis(httpResponse).orElse(0L) <= MAX_RETRY_AFTER_MILLIS;
+            case HttpStatus.SC_BAD_GATEWAY:
+            case HttpStatus.SC_GATEWAY_TIMEOUT:
+                return idempotent;
+            default:
+                return false;
+        }
+    }
+
+    static boolean isRetryable(IOException exception, boolean idempotent) {
+        if (exception instanceof ConnectException || exception instanceof ConnectTimeoutException) {
+            // the request did not even reach Jira
+            return true;
+        }
+        if (!idempotent) {
+            return false;
+        }
+        if (exception instanceof SocketTimeoutException) {
+            return true;
+        }
+        // aborted requests fail with an InterruptedIOException as well
+        return !(exception instanceof InterruptedIOException
+                || exception instanceof UnknownHostException
+                || exception instanceof SSLException
+                || exception instanceof ClientProtocolException);
+    }
+
+    /**
+     * @return the time to wait before the given retry, which is randomly distributed up to an exponentially growing
+     * limit (so that clients that failed at the same time do not retry at the same time), but not less than requested
+     * by the server
+     */
+    long backoffMillis(int retries, Optional<Long> retryAfterMillis) {
+        long limit = Math.min(MAX_BACKOFF_MILLIS, initialBackoffMillis << Math.min(retries, 20));
+        long backoffMillis = ThreadLocalRandom.current().nextLong(limit + 1);
+        return Math.max(backoffMillis, retryAfterMillis.orElse(0L));
+    }
+
+    /**
+     * @return the delay given by the Retry-After header, either in seconds or as HTTP date
+     */
+    static Optional<Long> retryAfterMillis(HttpResponse httpResponse) {
+        return Optional.ofNullable(httpResponse.getFirstHeader("Retry-After"))
+                .map(Header::getValue)
+                .map(String::trim)
+                .flatMap(value -> {
+                    if (value.matches("\\d+")) {
+                        return Optional.of(Long.parseLong(value) * 1000);
+                    }
+                    return Optional.ofNullable(DateUtils.parseDate(value))
+                            .map(Date::getTime)
+                            .map(time -> Math.max(0, time - System.currentTimeMillis()));
+                });
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package ch.wellernet.intellij.plugins.xraycucumber.service;
+
+import ch.wellernet.intellij.plugins.xraycucumber.model.AuthenticationMethod;
+import ch.wellernet.intellij.plugins.xraycucumber.model.ServiceParameters;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.auth.AuthenticationException;
+import org.apache.http.auth.UsernamePasswordCredentials;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.utils.URIBuilder;
+import org.apache.http.impl.auth.BasicScheme;
+import org.apache.http.util.EntityUtils;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Optional;
+
+/**
+ * Xray Server and Data Center, see "https://docs.getxray.app/display/XRAY/REST+API".
+ */
+class ServerBackend implements XrayBackend {
+    static final ServerBackend INSTANCE = new ServerBackend();
+
+    private static final String HEADER_ATLASSIAN_TOKEN = "X-Atlassian-Token";
+
+    @Override
+    public String exportEndpoint() {
+        return XrayCucumberService.REST_ENDPOINT_EXPORT_TEST;
+    }
+
+    @Override
+    public String importEndpoint() {
+        return XrayCucumberService.REST_ENDPOINT_IMPORT_FEATURE;
+    }
+
+    @Override
+    public String executionImportEndpoint() {
+        return XrayCucumberService.REST_ENDPOINT_IMPORT_EXECUTION;
+    }
+
+    @Override
+    public URI exportUri(ServiceParameters serviceParameters, long filterId) throws URISyntaxException {
+        return new URIBuilder(serviceParameters.url() + exportEndpoint())
+                .addParameter("filter", String.valueOf(filterId))
+                .addParameter("fz", String.valueOf(true))
+                .build();
+    }
+
+    @Override
+    public HttpResponse execute(HttpClient httpClient, HttpUriRequest request, RequestFactory requestFactory, ServiceParameters serviceParameters,
+                                AuthenticationExecutor authenticationExecutor, Runnable cancellationCheck) throws AuthenticationException, URISyntaxException, IOException {
+        if (serviceParameters.authentication() == AuthenticationMethod.SESSION) {
+            return executeInSession(httpClient, request, requestFactory, serviceParameters, authenticationExecutor, cancellationCheck);
+        }
+        addAuthentication(serviceParameters, request);
+        return httpClient.execute(request);
+    }
+
+    /**
+     * Executes the request with the cookies of the {@link JiraSession}, logging in first if necessary. If Jira does not
+     * accept the session any more, the request is repeated once after logging in again.
+     */
+    private HttpResponse executeInSession(HttpClient httpClient, HttpUriRequest request, RequestFactory requestFactory, ServiceParameters serviceParameters,
+                                          AuthenticationExecutor authenticationExecutor, Runnable cancellationCheck) throws AuthenticationException, URISyntaxException, IOException {
+        JiraSession session = JiraSession.of(serviceParameters);
+        int generation = session.authenticate(authenticationExecutor, serviceParameters, cancellationCheck);
+        request.addHeader(HEADER_ATLASSIAN_TOKEN, "no-check");
+        HttpResponse httpResponse = httpClient.execute(request, session.context());
+        if (httpResponse.getStatusLine().getStatusCode() != HttpStatus.SC_UNAUTHORIZED) {
+            return httpResponse;
+        }
+        EntityUtils.consume(httpResponse.getEntity());
+        session.expire(generation);
+        session.authenticate(authenticationExecutor, serviceParameters, cancellationCheck);
+        HttpUriRequest repeatedRequest = requestFactory.create();
+        repeatedRequest.addHeader(HEADER_ATLASSIAN_TOKEN, "no-check");
+        return httpClient.execute(repeatedRequest, session.context());
+    }
+
+    private void addAuthentication(ServiceParameters serviceParameters, HttpUriRequest request) throws AuthenticationException {
+        if (serviceParameters.authentication() == AuthenticationMethod.TOKEN) {
+            String token = Optional.ofNullable(serviceParameters.password()).orElseThrow(() -> new AuthenticationException("personal access token is required"));
+            request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+            return;
+        }
+        String userName = Optional.ofNullable(serviceParameters.username()).orElseThrow(() -> new AuthenticationException("user is required"));
+        String password = Optional.ofNullable(serviceParameters.password()).orElseThrow(() -> new AuthenticationException("password is required"));
+        UsernamePasswordCredentials usernamePasswordCredentials = new UsernamePasswordCredentials(userName, password);
+        request.addHeader(new BasicScheme().authenticate(usernamePasswordCredentials, request, null));
+    }
+}
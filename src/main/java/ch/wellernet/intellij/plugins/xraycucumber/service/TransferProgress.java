@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package ch.wellernet.intellij.plugins.xraycucumber.service;
+
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reports the progress of an export based on the bytes consumed from the response. The completion is known if the
+ * server sent a Content-Length, otherwise the progress is indeterminate and the throughput is shown instead. Reports
+ * are rate limited, so that large exports do not flood the UI.
+ */
+class TransferProgress {
+    static final long REPORT_INTERVAL_MILLIS = 200;
+
+    private static final double MEGABYTE = 1024 * 1024;
+
+    private final Optional<ProgressReporter> progressReporter;
+    private final CountingInputStream countingInputStream;
+    private final long contentLength;
+    private final long reportIntervalNanos;
+    private final long startNanos = System.nanoTime();
+    private long lastReportNanos;
+    private boolean reported;
+    private int entries;
+
+    TransferProgress(Optional<ProgressReporter> progressReporter, CountingInputStream countingInputStream, long contentLength) {
+        this(progressReporter, countingInputStream, contentLength, REPORT_INTERVAL_MILLIS);
+    }
+
+    TransferProgress(Optional<ProgressReporter> progressReporter, CountingInputStream countingInputStream, long contentLength, long reportIntervalMillis) {
+        this.progressReporter = progressReporter;
+        this.countingInputStream = countingInputStream;
+        this.contentLength = contentLength;
+        this.reportIntervalNanos = TimeUnit.MILLISECONDS.toNanos(reportIntervalMillis);
+    }
+
+    long transferNanos() {
+        return countingInputStream.readNanos();
+    }
+
+    void entryStarted(String fileName) {
+        entries++;
+        long now = System.nanoTime();
+        if (reported && now - lastReportNanos < reportIntervalNanos) {
+            return;
+        }
+        reported = true;
+        lastReportNanos = now;
+        progressReporter.ifPresent(reporter -> reporter.reportProgress(message(fileName, now), completionRatio()));
+    }
+
+    private double completionRatio() {
+        if (contentLength <= 0) {
+            return ProgressReporter.INDETERMINATE;
+        }
+        return Math.min(1., (double) countingInputStream.count() / contentLength);
+    }
+
+    private String message(String fileName, long now) {
+        long bytes = countingInputStream.count();
+        double seconds = (now - startNanos) / 1e9;
+        StringBuilder message = new StringBuilder("extracting ").append(fileName).append(" (");
+        if (contentLength > 0) {
+            message.append(String.format(Locale.ROOT, "%.1f of %.1f MB", bytes / MEGABYTE, contentLength / MEGABYTE));
+        } else {
+            message.append(String.format(Locale.ROOT, "%.1f MB", bytes / MEGABYTE));
+        }
+        if (seconds > 0.1) {
+            message.append(String.format(Locale.ROOT, ", %.1f MB/s", bytes / MEGABYTE / seconds));
+            if (contentLength <= 0) {
+                message.append(String.format(Locale.ROOT, ", %.0f entries/s", entries / seconds));
+            }
+        }
+        return message.append(")").toString();
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package ch.wellernet.intellij.plugins.xraycucumber.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Tells which feature files changed since they were last downloaded or uploaded, by comparing their content hash with
+ * the one recorded in the {@link ExtractionManifest} of their directory, and records the hashes of uploaded files. The
+ * manifest of each directory is loaded at most once per upload and only saved if a file of it was uploaded, so that
+ * files uploaded concurrently do not overwrite each other's hashes.
+ */
+class UploadFingerprints {
+    private final Map<Path, ExtractionManifest> manifests = new HashMap<>();
+    private final Set<ExtractionManifest> modifiedManifests = new LinkedHashSet<>();
+    private final FileChanges fileChanges;
+
+    /**
+     * @param fileChanges collects the manifest files written
+     */
+    UploadFingerprints(FileChanges fileChanges) {
+        this.fileChanges = fileChanges;
+    }
+
+    static String hash(Path featureFile) throws IOException {
+        return ExtractionManifest.hash(Files.readAllBytes(featureFile));
+    }
+
+    synchronized boolean isChanged(Path featureFile) throws IOException {
+        Optional<String> syncedHash = manifest(featureFile).get(fileName(featureFile));
+        return !syncedHash.filter(hash(featureFile)::equals).isPresent();
+    }
+
+    /**
+     * @param hash the hash of the content that has been uploaded
+     */
+    synchronized void uploaded(Path featureFile, String hash) throws IOException {
+        ExtractionManifest manifest = manifest(featureFile);
+        manifest.put(fileName(featureFile), hash);
+        modifiedManifests.add(manifest);
+    }
+
+    synchronized void save() throws IOException {
+        for (ExtractionManifest manifest : modifiedManifests) {
+            boolean existed = Files.exists(manifest.file());
+            if (manifest.save()) {
+                fileChanges.fileWritten(manifest.file(), existed);
+            }
+        }
+        modifiedManifests.clear();
+    }
+
+    private ExtractionManifest manifest(Path featureFile) throws IOException {
+        Path directory = featureFile.toAbsolutePath().getParent();
+        ExtractionManifest manifest = manifests.get(directory);
+        if (manifest == null) {
+            manifest = ExtractionManifest.load(directory);
+            manifests.put(directory, manifest);
+        }
+        return manifest;
+    }
+
+    private String fileName(Path featureFile) {
+        return featureFile.getFileName().toString();
+    }
+}
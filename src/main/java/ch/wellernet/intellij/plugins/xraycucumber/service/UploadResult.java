@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package ch.wellernet.intellij.plugins.xraycucumber.service;
+
+import ch.wellernet.intellij.plugins.xraycucumber.model.ImportedIssue;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Collects the outcome of uploading several feature files, which may be uploaded concurrently.
+ */
+class UploadResult {
+    private final List<Path> uploadedFiles = new ArrayList<>();
+    private final Map<Path, Exception> failedFiles = new LinkedHashMap<>();
+    private final List<ImportedIssue> importedIssues = new ArrayList<>();
+    private int unchangedFiles;
+
+    synchronized void fileUploaded(Path featureFile, List<ImportedIssue> importedIssues) {
+        uploadedFiles.add(featureFile);
+        this.importedIssues.addAll(importedIssues);
+    }
+
+    synchronized void issuesImported(List<ImportedIssue> importedIssues) {
+        this.importedIssues.addAll(importedIssues);
+    }
+
+    /**
+     * @param count the number of files not uploaded as they did not change since they were last synchronized
+     */
+    synchronized void filesUnchanged(int count) {
+        unchangedFiles += count;
+    }
+
+    synchronized void fileFailed(Path featureFile, Exception exception) {
+        failedFiles.put(featureFile, exception);
+    }
+
+    synchronized int completed() {
+        return uploadedFiles.size() + failedFiles.size();
+    }
+
+    synchronized Optional<Exception> firstFailure() {
+        return failedFiles.values().stream().findFirst();
+    }
+
+    @Override
+    public synchronized String toString() {
+        if (completed() == 0 && unchangedFiles > 0) {
+            return "all " + unchangedFiles + " feature files are unchanged since last synchronization, nothing uploaded";
+        }
+        String summary = "uploaded successfully " + uploadedFiles.size() + " of " + completed() + " feature files"
+                + (unchangedFiles > 0 ? ", " + unchangedFiles + " unchanged" : "")
+                + formatIssueKeys(importedIssues);
+        if (failedFiles.isEmpty()) {
+            return summary;
+        }
+        return summary + "<br>failed: " + failedFiles.entrySet().stream()
+                .map(failure -> failure.getKey().getFileName() + " (" + failure.getValue().getMessage() + ")")
+                .collect(Collectors.joining(", "));
+    }
+
+    static String formatIssueKeys(List<ImportedIssue> importedIssues) {
+        if (importedIssues.isEmpty()) {
+            return "";
+        }
+        return " (" + importedIssues.stream().map(ImportedIssue::key).collect(Collectors.joining(", ")) + ")";
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package ch.wellernet.intellij.plugins.xraycucumber.service;
+
+import ch.wellernet.intellij.plugins.xraycucumber.model.ServiceParameters;
+import ch.wellernet.intellij.plugins.xraycucumber.model.XrayEdition;
+import org.apache.http.HttpResponse;
+import org.apache.http.auth.AuthenticationException;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.utils.URIBuilder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+
+/**
+ * REST API of an Xray edition, i.e. where cucumber tests are exported and imported and how requests are authenticated.
+ */
+interface XrayBackend {
+
+    static XrayBackend of(ServiceParameters serviceParameters) {
+        return serviceParameters.edition() == XrayEdition.CLOUD ? CloudBackend.INSTANCE : ServerBackend.INSTANCE;
+    }
+
+    String exportEndpoint();
+
+    String importEndpoint();
+
+    String executionImportEndpoint();
+
+    URI exportUri(ServiceParameters serviceParameters, long filterId) throws URISyntaxException;
+
+    default URI importUri(ServiceParameters serviceParameters, String projectKey) throws URISyntaxException {
+        return new URIBuilder(serviceParameters.url() + importEndpoint())
+                .addParameter("projectKey", projectKey)
+                .build();
+    }
+
+    default URI executionImportUri(ServiceParameters serviceParameters) throws URISyntaxException {
+        return new URI(serviceParameters.url() + executionImportEndpoint());
+    }
+
+    /**
+     * Authenticates and executes the request. If the credentials are not accepted any more (e.g. because a session or
+     * token expired), they are renewed and the request is repeated once with a new request created by the factory.
+     * Requests needed to authenticate are executed by the given executor. Waiting for another request authenticating
+     * meanwhile is aborted once the given check throws.
+     */
+    HttpResponse execute(HttpClient httpClient, HttpUriRequest request, RequestFactory requestFactory, ServiceParameters serviceParameters,
+                         AuthenticationExecutor authenticationExecutor, Runnable cancellationCheck)
+            throws AuthenticationException, URISyntaxException, IOException;
+}
@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package ch.wellernet.intellij.plugins.xraycucumber.service;
+
+import ch.wellernet.intellij.plugins.xraycucumber.model.ServiceParameters;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.auth.AuthenticationException;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.util.EntityUtils;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token authenticating the requests of a client to Xray Cloud, shared by all operations of the IDE together. It is
+ * reused until shortly before it expires as given by its <code>exp</code> claim, so that a batch of requests needs a
+ * single authentication. Concurrent requests wait for the one authenticating instead of authenticating themselves.
+ */
+class XrayCloudToken {
+    private static final Map<String, XrayCloudToken> TOKENS = new ConcurrentHashMap<>();
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    /**
+     * A token is renewed this long before it expires, so that it does not expire while a request is in flight.
+     */
+    private static final long EXPIRY_MARGIN_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    /**
+     * Assumed lifetime of tokens without <code>exp</code> claim.
+     */
+    private static final long DEFAULT_LIFETIME_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private final String baseUrl;
+    private final CancellableLock authenticationLock = new CancellableLock();
+    private String token;
+    private long expiresAt;
+
+    XrayCloudToken(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    static XrayCloudToken of(ServiceParameters serviceParameters) {
+        String baseUrl = serviceParameters.url().toExternalForm().replaceFirst("/+$", "");
+        return TOKENS.computeIfAbsent(baseUrl + " " + serviceParameters.username(), key -> new XrayCloudToken(baseUrl));
+    }
+
+    /**
+     * @return the current token, which is obtained first if there is none or it is about to expire; waiting for another
+     * request obtaining it is aborted once the given check throws
+     */
+    String get(AuthenticationExecutor authenticationExecutor, ServiceParameters serviceParameters, Runnable cancellationCheck)
+            throws AuthenticationException, URISyntaxException, IOException {
+        authenticationLock.lock(cancellationCheck);
+        try {
+            synchronized (this) {
+                if (token != null && System.currentTimeMillis() < expiresAt - EXPIRY_MARGIN_MILLIS) {
+                    return token;
+                }
+            }
+            String newToken = authenticate(authenticationExecutor, serviceParameters);
+            long newExpiresAt = expiresAt(newToken);
+            synchronized (this) {
+                token = newToken;
+                expiresAt = newExpiresAt;
+                return token;
+            }
+        } finally {
+            authenticationLock.unlock();
+        }
+    }
+
+    /**
+     * Forces the next request to obtain a new token, unless this has already been done since the given token was used.
+     */
+    synchronized void expire(String expiredToken) {
+        if (expiredToken.equals(token)) {
+            token = null;
+        }
+    }
+
+    private String authenticate(AuthenticationExecutor authenticationExecutor, ServiceParameters serviceParameters)
+            throws AuthenticationException, URISyntaxException, IOException {
+        ObjectNode credentials = OBJECT_MAPPER.createObjectNode()
+                .put("client_id", Optional.ofNullable(serviceParameters.username()).orElseThrow(() -> new AuthenticationException("client id is required")))
+                .put("client_secret", Optional.ofNullable(serviceParameters.password()).orElseThrow(() -> new AuthenticationException("client secret is required")));
+        String body = OBJECT_MAPPER.writeValueAsString(credentials);
+        HttpResponse httpResponse = authenticationExecutor.execute(() -> {
+            HttpPost request = new HttpPost(baseUrl + XrayCucumberService.CLOUD_ENDPOINT_AUTHENTICATE);
+            request.setEntity(new StringEntity(body, ContentType.APPLICATION_JSON));
+            return request;
+        }, null);
+        int statusCode = httpResponse.getStatusLine().getStatusCode();
+        HttpEntity httpEntity = httpResponse.getEntity();
+        if (statusCode == HttpStatus.SC_BAD_REQUEST || statusCode == HttpStatus.SC_UNAUTHORIZED) {
+            EntityUtils.consume(httpEntity);
+            throw new AuthenticationException("Xray Cloud refused client credentials (HTTP " + statusCode + ")");
+        }
+        if (statusCode != HttpStatus.SC_OK || httpEntity == null) {
+            EntityUtils.consume(httpEntity);
+            throw new IllegalStateException("authentication with Xray Cloud failed (HTTP " + statusCode + ")");
+        }
+        // the token is returned as JSON string
+        JsonNode response = OBJECT_MAPPER.readTree(EntityUtils.toString(httpEntity));
+        if (response == null || !response.isTextual()) {
+            throw new IllegalStateException("Xray Cloud returned no token");
+        }
+        return response.asText();
+    }
+
+    private long expiresAt(String token) {
+        String[] parts = token.split("\\.");
+        try {
+            JsonNode claims = OBJECT_MAPPER.readTree(Base64.getUrlDecoder().decode(parts[1]));
+            if (claims.path("exp").canConvertToLong()) {
+                return TimeUnit.SECONDS.toMillis(claims.get("exp").asLong());
+            }
+        } catch (IOException | RuntimeException e) {
+            // not a JWT as documented, so the lifetime is not known
+        }
+        return System.currentTimeMillis() + DEFAULT_LIFETIME_MILLIS;
+    }
+}
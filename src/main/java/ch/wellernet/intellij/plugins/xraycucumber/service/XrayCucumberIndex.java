@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package ch.wellernet.intellij.plugins.xraycucumber.service;
+
+import ch.wellernet.intellij.plugins.xraycucumber.model.FilterParameters;
+import ch.wellernet.intellij.plugins.xraycucumber.model.ServiceParameters;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Knows all xray-cucumber.json files of a project along with the directories their tests are downloaded to, as well
+ * as the Xray issue keys tagged in all feature files, so that none of the lookups needs to walk the project tree. It is
+ * meant to be updated incrementally whenever a config or a feature file changes.
+ */
+public class XrayCucumberIndex {
+    private static final Pattern ISSUE_KEY_TAG = Pattern.compile("(?<=^|\\s)@([A-Z][A-Z0-9_]*-\\d+)(?=\\s|$)", Pattern.MULTILINE);
+
+    private final Map<Path, Set<Path>> outputDirsByConfig = new HashMap<>();
+    private final Map<Path, Set<Path>> configsByOutputDir = new HashMap<>();
+    private final Map<Path, Set<String>> issueKeysByFeatureFile = new HashMap<>();
+    private final Map<String, Set<Path>> featureFilesByIssueKey = new HashMap<>();
+
+    /**
+     * Registers the directory of the given config and the directories of all its filters as owned by the config.
+     */
+    public synchronized void putConfig(Path configFile, ServiceParameters serviceParameters) {
+        removeConfig(configFile);
+        Path configDir = configFile.toAbsolutePath().getParent();
+        Set<Path> outputDirs = new LinkedHashSet<>();
+        outputDirs.add(configDir);
+        Optional.ofNullable(serviceParameters.filters()).ifPresent(filters -> filters.stream()
+                .map(FilterParameters::directory)
+                .filter(Objects::nonNull)
+                .map(directory -> configDir.resolve(directory).normalize())
+                .forEach(outputDirs::add));
+        outputDirsByConfig.put(configFile.toAbsolutePath(), outputDirs);
+        outputDirs.forEach(outputDir -> configsByOutputDir.computeIfAbsent(outputDir, dir -> new LinkedHashSet<>()).add(configFile.toAbsolutePath()));
+    }
+
+    public synchronized void removeConfig(Path configFile) {
+        Set<Path> outputDirs = outputDirsByConfig.remove(configFile.toAbsolutePath());
+        if (outputDirs != null) {
+            outputDirs.forEach(outputDir -> removeFrom(configsByOutputDir, outputDir, configFile.toAbsolutePath()));
+        }
+    }
+
+    public synchronized void putFeatureFile(Path featureFile, CharSequence content) {
+        removeFeatureFile(featureFile);
+        Set<String> issueKeys = parseIssueKeys(content);
+        if (!issueKeys.isEmpty()) {
+            issueKeysByFeatureFile.put(featureFile.toAbsolutePath(), issueKeys);
+            issueKeys.forEach(issueKey -> featureFilesByIssueKey.computeIfAbsent(issueKey, key -> new TreeSet<>()).add(featureFile.toAbsolutePath()));
+        }
+    }
+
+    public synchronized void removeFeatureFile(Path featureFile) {
+        Set<String> issueKeys = issueKeysByFeatureFile.remove(featureFile.toAbsolutePath());
+        if (issueKeys != null) {
+            issueKeys.forEach(issueKey -> removeFrom(featureFilesByIssueKey, issueKey, featureFile.toAbsolutePath()));
+        }
+    }
+
+    /**
+     * Removes all configs and feature files located in the given directory or its subdirectories.
+     */
+    public synchronized void removeAll(Path directory) {
+        Path absoluteDirectory = directory.toAbsolutePath();
+        new ArrayList<>(outputDirsByConfig.keySet()).stream().filter(file -> file.startsWith(absoluteDirectory)).forEach(this::removeConfig);
+        new ArrayList<>(issueKeysByFeatureFile.keySet()).stream().filter(file -> file.startsWith(absoluteDirectory)).forEach(this::removeFeatureFile);
+    }
+
+    public synchronized List<Path> configs() {
+        List<Path> configs = new ArrayList<>(outputDirsByConfig.keySet());
+        Collections.sort(configs);
+        return configs;
+    }
+
+    public synchronized Set<Path> outputDirs(Path configFile) {
+        return new LinkedHashSet<>(outputDirsByConfig.getOrDefault(configFile.toAbsolutePath(), Collections.emptySet()));
+    }
+
+    /**
+     * @return the config owning the nearest output directory containing the given file
+     */
+    public Optional<Path> findConfig(Path file) {
+        return Optional.ofNullable(file.toAbsolutePath().getParent()).flatMap(this::findConfigOfDirectory);
+    }
+
+    /**
+     * @return the config owning the given directory or its nearest parent directory, where the config located in that
+     * very directory takes precedence over others downloading into the same directory
+     */
+    public synchronized Optional<Path> findConfigOfDirectory(Path directory) {
+        for (Path current = directory.toAbsolutePath(); current != null; current = current.getParent()) {
+            Set<Path> configs = configsByOutputDir.get(current);
+            if (configs != null) {
+                Path ownDirectory = current;
+                return Optional.of(configs.stream()
+                        .filter(config -> ownDirectory.equals(config.getParent()))
+                        .findFirst()
+                        .orElse(configs.iterator().next()));
+            }
+        }
+        return Optional.empty();
+    }
+
+    public synchronized Set<String> issueKeys(Path featureFile) {
+        return new TreeSet<>(issueKeysByFeatureFile.getOrDefault(featureFile.toAbsolutePath(), Collections.emptySet()));
+    }
+
+    public synchronized Set<Path> featureFiles(String issueKey) {
+        return new TreeSet<>(featureFilesByIssueKey.getOrDefault(issueKey, Collections.emptySet()));
+    }
+
+    public synchronized void clear() {
+        outputDirsByConfig.clear();
+        configsByOutputDir.clear();
+        issueKeysByFeatureFile.clear();
+        featureFilesByIssueKey.clear();
+    }
+
+    /**
+     * @return the issue keys of all tags of the given feature file, e.g. <code>TEST-123</code> for <code>@TEST-123</code>
+     */
+    static Set<String> parseIssueKeys(CharSequence content) {
+        Set<String> issueKeys = new TreeSet<>();
+        Matcher matcher = ISSUE_KEY_TAG.matcher(content);
+        while (matcher.find()) {
+            issueKeys.add(matcher.group(1));
+        }
+        return issueKeys;
+    }
+
+    private <K, V> void removeFrom(Map<K, Set<V>> map, K key, V value) {
+        Set<V> values = map.get(key);
+        if (values != null) {
+            values.remove(value);
+            if (values.isEmpty()) {
+                map.remove(key);
+            }
+        }
+    }
+}
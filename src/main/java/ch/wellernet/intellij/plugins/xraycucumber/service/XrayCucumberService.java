@@ -19,31 +19,56 @@
 
 package ch.wellernet.intellij.plugins.xraycucumber.service;
 
+import ch.wellernet.intellij.plugins.xraycucumber.model.FileConflict;
 import ch.wellernet.intellij.plugins.xraycucumber.model.FileReplacementBehaviour;
+import ch.wellernet.intellij.plugins.xraycucumber.model.FilterParameters;
+import ch.wellernet.intellij.plugins.xraycucumber.model.HttpClientParameters;
+import ch.wellernet.intellij.plugins.xraycucumber.model.ImportedIssue;
 import ch.wellernet.intellij.plugins.xraycucumber.model.ServiceParameters;
 import lombok.RequiredArgsConstructor;
 import org.apache.commons.lang.UnhandledException;
+import org.apache.http.Header;
 import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
 import org.apache.http.auth.AuthenticationException;
-import org.apache.http.auth.UsernamePasswordCredentials;
 import org.apache.http.client.HttpClient;
+import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpRequestBase;
 import org.apache.http.client.methods.HttpUriRequest;
-import org.apache.http.client.utils.URIBuilder;
 import org.apache.http.entity.ContentType;
 import org.apache.http.entity.mime.MultipartEntityBuilder;
-import org.apache.http.impl.auth.BasicScheme;
 import org.apache.http.util.EntityUtils;
 
+import javax.annotation.Nullable;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.net.URISyntaxException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
@@ -52,124 +77,900 @@ public class XrayCucumberService {
 
     public static final String REST_ENDPOINT_EXPORT_TEST = "/rest/raven/1.0/export/test";
     public static final String REST_ENDPOINT_IMPORT_FEATURE = "/rest/raven/1.0/import/feature";
+    public static final String REST_ENDPOINT_IMPORT_EXECUTION = "/rest/raven/1.0/import/execution/cucumber";
+    public static final String CLOUD_ENDPOINT_AUTHENTICATE = "/api/v2/authenticate";
+    public static final String CLOUD_ENDPOINT_EXPORT_TEST = "/api/v2/export/cucumber";
+    public static final String CLOUD_ENDPOINT_IMPORT_FEATURE = "/api/v2/import/feature";
+    public static final String CLOUD_ENDPOINT_IMPORT_EXECUTION = "/api/v2/import/execution/cucumber";
+
+    private static final String FEATURE_FILE_EXTENSION = ".feature";
+    private static final String HEADER_AUTHENTICATION_DENIED_REASON = "X-Authentication-Denied-Reason";
 
     private final HttpClient httpClient;
 
     /**
+     * The parameters the HTTP client has been created with, see {@link PooledHttpClientFactory}.
+     */
+    private final HttpClientParameters httpClientParameters;
+
+    @Nullable
+    private final ExportCache exportCache;
+
+    @Nullable
+    private final MetricsListener metricsListener;
+
+    public XrayCucumberService(HttpClient httpClient) {
+        this(httpClient, null);
+    }
+
+    public XrayCucumberService(HttpClient httpClient, @Nullable ExportCache exportCache) {
+        this(httpClient, exportCache, null);
+    }
+
+    public XrayCucumberService(HttpClient httpClient, @Nullable ExportCache exportCache, @Nullable MetricsListener metricsListener) {
+        this(httpClient, HttpClientParameters.DEFAULT, exportCache, metricsListener);
+    }
+
+    /**
+     * @return the files created, modified or deleted by the download, even if it failed
      * @see "https://docs.getxray.app/display/XRAY/Exporting+Cucumber+Tests+-+REST"
      */
-    public void downloadXrayCucumberTests(ServiceParameters serviceParameters, Path outputDir, ProgressReporter progressReporter) {
+    public FileChanges downloadXrayCucumberTests(ServiceParameters serviceParameters, Path outputDir, ProgressReporter progressReporter) {
+        return downloadXrayCucumberTests(serviceParameters, outputDir, progressReporter, CancellationToken.NONE);
+    }
+
+    /**
+     * @return the files created, modified or deleted by the download, even if it failed
+     * @see "https://docs.getxray.app/display/XRAY/Exporting+Cucumber+Tests+-+REST"
+     */
+    public FileChanges downloadXrayCucumberTests(ServiceParameters serviceParameters, Path outputDir, ProgressReporter progressReporter, CancellationToken cancellationToken) {
         Optional<ProgressReporter> nullSafeProgressReporter = Optional.ofNullable(progressReporter);
+        OperationMetrics metrics = new OperationMetrics("download");
+        FileChanges fileChanges = new FileChanges();
         try {
-            HttpUriRequest request = buildDownloadRequest(serviceParameters);
-            HttpEntity httpEntity = executeRequest(request);
-            verifyContentType(httpEntity, ContentType.APPLICATION_OCTET_STREAM);
-            try (ZipInputStream zipInputStream = new ZipInputStream(httpEntity.getContent())) {
-                extractFilesFromZip(progressReporter, serviceParameters.fileReplacementBehaviour(), zipInputStream, outputDir, nullSafeProgressReporter);
+            List<FilterParameters> filters = serviceParameters.exportedFilters();
+            if (filters.isEmpty()) {
+                throw new IllegalArgumentException("filterId is required to download cucumber tests");
+            }
+            Optional<ExtractionResult> extractionResult;
+            try (ExtractionContext extractionContext = new ExtractionContext(filters, serviceParameters.transactionalSync(), cancellationToken, fileChanges)) {
+                extractionResult = filters.size() == 1 ?
+                        downloadFilter(serviceParameters, filters.get(0), true, outputDir, progressReporter, extractionContext, metrics) :
+                        downloadFilters(serviceParameters, filters, outputDir, progressReporter, extractionContext, metrics);
+                if (extractionResult.isPresent()) {
+                    extractionContext.removeDuplicates(extractionResult.get());
+                    resolveConflicts(progressReporter, extractionContext, extractionResult.get(), metrics);
+                    extractionContext.checkCanceled();
+                    extractionContext.commit();
+                    updateCachedExports(extractionContext);
+                }
+            }
+            String message = extractionResult
+                    .map(result -> "extracted successfully " + result)
+                    .orElse("cucumber tests are up to date, nothing changed");
+            metrics.completed(false, message);
+            nullSafeProgressReporter.ifPresent(reporter -> reporter.reportSuccess(message));
+        } catch (AuthenticationException e) {
+            metrics.completed(true, e.getMessage());
+            if (!nullSafeProgressReporter.isPresent()) {
+                throw new UnhandledException(e);
             }
+            nullSafeProgressReporter.ifPresent(reporter -> reporter.reportAuthenticationError(e.getMessage()));
+        } catch (IllegalArgumentException | IllegalStateException | URISyntaxException | IOException e) {
+            metrics.completed(true, e.getMessage());
+            if (!nullSafeProgressReporter.isPresent()) {
+                throw new UnhandledException(e);
+            }
+            nullSafeProgressReporter.ifPresent(reporter -> reporter.reportError(e.getMessage(), e));
+        } finally {
+            publishMetrics(metrics);
+        }
+        return fileChanges;
+    }
+
+    /**
+     * @return the manifest files written by the upload, even if it failed
+     * @see "https://docs.getxray.app/display/XRAY/Importing+Cucumber+Tests+-+REST"
+     */
+    public FileChanges uploadXrayCucumberTest(ServiceParameters serviceParameters, Path featureFile, ProgressReporter progressReporter) {
+        Optional<ProgressReporter> nullSafeProgressReporter = Optional.ofNullable(progressReporter);
+        OperationMetrics metrics = new OperationMetrics("upload");
+        FileChanges fileChanges = new FileChanges();
+        try {
+            UploadFingerprints fingerprints = new UploadFingerprints(fileChanges);
+            List<ImportedIssue> importedIssues = uploadFeatureFile(serviceParameters, featureFile, fingerprints, nullSafeProgressReporter, metrics);
+            fingerprints.save();
+            String message = "uploaded successfully " + featureFile + UploadResult.formatIssueKeys(importedIssues);
+            metrics.completed(false, message);
+            nullSafeProgressReporter.ifPresent(reporter -> reporter.reportSuccess(message));
         } catch (AuthenticationException e) {
+            metrics.completed(true, e.getMessage());
             if (!nullSafeProgressReporter.isPresent()) {
                 throw new UnhandledException(e);
             }
             nullSafeProgressReporter.ifPresent(reporter -> reporter.reportAuthenticationError(e.getMessage()));
         } catch (IllegalArgumentException | IllegalStateException | URISyntaxException | IOException e) {
+            metrics.completed(true, e.getMessage());
             if (!nullSafeProgressReporter.isPresent()) {
                 throw new UnhandledException(e);
             }
             nullSafeProgressReporter.ifPresent(reporter -> reporter.reportError(e.getMessage(), e));
+        } finally {
+            publishMetrics(metrics);
         }
+        return fileChanges;
     }
 
     /**
+     * Uploads all given feature files and all feature files located in the given directories (including
+     * subdirectories) on up to {@link ServiceParameters#parallelUploads()} threads. The outcome is reported once for
+     * all files.
+     *
+     * @return the manifest files written by the upload, even if it failed
      * @see "https://docs.getxray.app/display/XRAY/Importing+Cucumber+Tests+-+REST"
      */
-    public void uploadXrayCucumberTest(ServiceParameters serviceParameters, Path featureFile, ProgressReporter progressReporter) {
+    public FileChanges uploadXrayCucumberTests(ServiceParameters serviceParameters, Collection<Path> featureFilesOrDirectories, ProgressReporter progressReporter) {
+        return uploadXrayCucumberTests(serviceParameters, featureFilesOrDirectories, progressReporter, false);
+    }
+
+    /**
+     * Like {@link #uploadXrayCucumberTests(ServiceParameters, Collection, ProgressReporter)}, but uploads only the
+     * feature files whose content changed since they were last downloaded or uploaded, as recorded in the
+     * xray-cucumber-manifest.json file of their directory.
+     */
+    public FileChanges uploadChangedXrayCucumberTests(ServiceParameters serviceParameters, Collection<Path> featureFilesOrDirectories, ProgressReporter progressReporter) {
+        return uploadXrayCucumberTests(serviceParameters, featureFilesOrDirectories, progressReporter, true);
+    }
+
+    /**
+     * Imports the results of a cucumber run as test execution. The report is streamed from disk, compressed if
+     * {@link ServiceParameters#compressExecutionResults()}, and split into several test executions if it exceeds
+     * {@link ServiceParameters#executionChunkSize()}.
+     *
+     * @see "https://docs.getxray.app/display/XRAY/Import+Execution+Results+-+REST"
+     */
+    public void importExecutionResults(ServiceParameters serviceParameters, Path report, ProgressReporter progressReporter) {
         Optional<ProgressReporter> nullSafeProgressReporter = Optional.ofNullable(progressReporter);
+        OperationMetrics metrics = new OperationMetrics("import results");
         try {
-            HttpUriRequest request = buildFeatureUploadRequest(serviceParameters, featureFile);
-            HttpEntity httpEntity = executeRequest(request);
-            verifyContentType(httpEntity, ContentType.APPLICATION_JSON);
-            nullSafeProgressReporter.ifPresent(reporter -> reporter.reportSuccess("uploaded successfully " + featureFile));
+            List<Path> parts = CucumberReportSplitter.split(report, serviceParameters.executionChunkSize());
+            List<ImportedIssue> testExecutions = new ArrayList<>();
+            try {
+                if (parts.isEmpty()) {
+                    throw new IllegalArgumentException(report.getFileName() + " contains no results");
+                }
+                for (int i = 0; i < parts.size(); i++) {
+                    Path part = parts.get(i);
+                    String message = parts.size() == 1 ? "importing results of " + report.getFileName() :
+                            String.format(Locale.ROOT, "importing results of %s (part %d of %d)", report.getFileName(), i + 1, parts.size());
+                    double completionRatio = (double) i / parts.size();
+                    nullSafeProgressReporter.ifPresent(reporter -> reporter.reportProgress(message, completionRatio));
+                    try {
+                        testExecutions.addAll(executeImportRequest(() -> buildExecutionImportRequest(serviceParameters, part), serviceParameters, nullSafeProgressReporter, metrics));
+                    } catch (IllegalStateException | IOException e) {
+                        if (testExecutions.isEmpty()) {
+                            throw e;
+                        }
+                        // the parts imported so far remain in Jira
+                        throw new IllegalStateException(String.format(Locale.ROOT, "part %d of %d failed: %s, imported already%s",
+                                i + 1, parts.size(), e.getMessage(), UploadResult.formatIssueKeys(testExecutions)), e);
+                    }
+                    metrics.bytesSent(Files.size(part));
+                    metrics.entryProcessed();
+                }
+            } finally {
+                CucumberReportSplitter.delete(report, parts);
+            }
+            String message = "imported execution results of " + report + UploadResult.formatIssueKeys(testExecutions);
+            metrics.completed(false, message);
+            nullSafeProgressReporter.ifPresent(reporter -> reporter.reportSuccess(message));
         } catch (AuthenticationException e) {
+            metrics.completed(true, e.getMessage());
             if (!nullSafeProgressReporter.isPresent()) {
                 throw new UnhandledException(e);
             }
             nullSafeProgressReporter.ifPresent(reporter -> reporter.reportAuthenticationError(e.getMessage()));
         } catch (IllegalArgumentException | IllegalStateException | URISyntaxException | IOException e) {
+            metrics.completed(true, e.getMessage());
             if (!nullSafeProgressReporter.isPresent()) {
                 throw new UnhandledException(e);
             }
             nullSafeProgressReporter.ifPresent(reporter -> reporter.reportError(e.getMessage(), e));
+        } finally {
+            publishMetrics(metrics);
         }
     }
 
-    private HttpUriRequest buildDownloadRequest(ServiceParameters serviceParameters)
+    private FileChanges uploadXrayCucumberTests(ServiceParameters serviceParameters, Collection<Path> featureFilesOrDirectories, ProgressReporter progressReporter, boolean changedOnly) {
+        Optional<ProgressReporter> nullSafeProgressReporter = Optional.ofNullable(progressReporter);
+        OperationMetrics metrics = new OperationMetrics("upload");
+        FileChanges fileChanges = new FileChanges();
+        try {
+            List<Path> featureFiles = collectFeatureFiles(featureFilesOrDirectories);
+            if (featureFiles.isEmpty()) {
+                throw new IllegalArgumentException("no feature files found to upload");
+            }
+            UploadFingerprints fingerprints = new UploadFingerprints(fileChanges);
+            UploadResult uploadResult = new UploadResult();
+            if (changedOnly) {
+                List<Path> changedFeatureFiles = new ArrayList<>();
+                for (Path featureFile : featureFiles) {
+                    if (fingerprints.isChanged(featureFile)) {
+                        changedFeatureFiles.add(featureFile);
+                    }
+                }
+                uploadResult.filesUnchanged(featureFiles.size() - changedFeatureFiles.size());
+                featureFiles = changedFeatureFiles;
+            }
+            if (!featureFiles.isEmpty()) {
+                if (serviceParameters.bulkUpload()) {
+                    uploadFeatureFileBundle(serviceParameters, featureFiles, fingerprints, uploadResult, nullSafeProgressReporter, metrics);
+                } else {
+                    uploadFeatureFiles(serviceParameters, featureFiles, fingerprints, uploadResult, nullSafeProgressReporter, metrics);
+                }
+            }
+            fingerprints.save();
+            Optional<Exception> failure = uploadResult.firstFailure();
+            if (failure.isPresent()) {
+                throw new IllegalStateException(uploadResult.toString(), failure.get());
+            }
+            metrics.completed(false, uploadResult.toString());
+            nullSafeProgressReporter.ifPresent(reporter -> reporter.reportSuccess(uploadResult.toString()));
+        } catch (AuthenticationException e) {
+            metrics.completed(true, e.getMessage());
+            if (!nullSafeProgressReporter.isPresent()) {
+                throw new UnhandledException(e);
+            }
+            nullSafeProgressReporter.ifPresent(reporter -> reporter.reportAuthenticationError(e.getMessage()));
+        } catch (IllegalArgumentException | IllegalStateException | IOException e) {
+            metrics.completed(true, e.getMessage());
+            if (!nullSafeProgressReporter.isPresent()) {
+                throw new UnhandledException(e);
+            }
+            nullSafeProgressReporter.ifPresent(reporter -> reporter.reportError(e.getMessage(), e));
+        } finally {
+            publishMetrics(metrics);
+        }
+        return fileChanges;
+    }
+
+    private List<ImportedIssue> uploadFeatureFile(ServiceParameters serviceParameters, Path featureFile, UploadFingerprints fingerprints, Optional<ProgressReporter> nullSafeProgressReporter, OperationMetrics metrics)
+            throws AuthenticationException, URISyntaxException, IOException {
+        String hash = UploadFingerprints.hash(featureFile);
+        List<ImportedIssue> importedIssues = executeImportRequest(() -> buildFeatureUploadRequest(serviceParameters, featureFile), serviceParameters, nullSafeProgressReporter, metrics);
+        fingerprints.uploaded(featureFile, hash);
+        metrics.bytesSent(Files.size(featureFile));
+        metrics.entryProcessed();
+        return importedIssues;
+    }
+
+    private List<ImportedIssue> executeImportRequest(RequestFactory requestFactory, ServiceParameters serviceParameters, Optional<ProgressReporter> nullSafeProgressReporter, OperationMetrics metrics)
+            throws AuthenticationException, URISyntaxException, IOException {
+        Runnable cancellationCheck = () -> {
+        };
+        RequestGovernor.Permit permit = acquirePermit(serviceParameters, nullSafeProgressReporter, cancellationCheck, metrics);
+        try {
+            HttpEntity httpEntity = executeRequest(requestFactory, false, serviceParameters, nullSafeProgressReporter, cancellationCheck, metrics).getEntity();
+            try {
+                verifyContentType(httpEntity, ContentType.APPLICATION_JSON);
+                try (InputStream inputStream = httpEntity.getContent()) {
+                    return ImportResponseParser.parse(inputStream);
+                }
+            } finally {
+                EntityUtils.consume(httpEntity);
+            }
+        } finally {
+            permit.release();
+        }
+    }
+
+    private List<Path> collectFeatureFiles(Collection<Path> featureFilesOrDirectories) throws IOException {
+        Set<Path> featureFiles = new LinkedHashSet<>();
+        for (Path featureFileOrDirectory : featureFilesOrDirectories) {
+            if (Files.isDirectory(featureFileOrDirectory)) {
+                try (Stream<Path> files = Files.walk(featureFileOrDirectory)) {
+                    files.filter(Files::isRegularFile)
+                            .filter(file -> file.getFileName().toString().endsWith(FEATURE_FILE_EXTENSION))
+                            .sorted()
+                            .forEach(featureFiles::add);
+                }
+            } else {
+                featureFiles.add(featureFileOrDirectory);
+            }
+        }
+        return new ArrayList<>(featureFiles);
+    }
+
+    private void uploadFeatureFileBundle(ServiceParameters serviceParameters, List<Path> featureFiles, UploadFingerprints fingerprints, UploadResult uploadResult, Optional<ProgressReporter> nullSafeProgressReporter, OperationMetrics metrics)
+            throws AuthenticationException, IOException {
+        nullSafeProgressReporter.ifPresent(reporter -> reporter.reportProgress("uploading " + featureFiles.size() + " feature files as ZIP bundle", 0));
+        try {
+            Map<Path, String> hashes = new LinkedHashMap<>();
+            for (Path featureFile : featureFiles) {
+                hashes.put(featureFile, UploadFingerprints.hash(featureFile));
+            }
+            List<ImportedIssue> importedIssues = executeImportRequest(() -> buildFeatureBundleUploadRequest(serviceParameters, featureFiles), serviceParameters, nullSafeProgressReporter, metrics);
+            for (Path featureFile : featureFiles) {
+                fingerprints.uploaded(featureFile, hashes.get(featureFile));
+                uploadResult.fileUploaded(featureFile, Collections.emptyList());
+                metrics.bytesSent(Files.size(featureFile));
+                metrics.entryProcessed();
+            }
+            uploadResult.issuesImported(importedIssues);
+        } catch (IllegalArgumentException | IllegalStateException | URISyntaxException | IOException e) {
+            featureFiles.forEach(featureFile -> uploadResult.fileFailed(featureFile, e));
+        }
+    }
+
+    private void uploadFeatureFiles(ServiceParameters serviceParameters, List<Path> featureFiles, UploadFingerprints fingerprints, UploadResult uploadResult, Optional<ProgressReporter> nullSafeProgressReporter, OperationMetrics metrics)
+            throws AuthenticationException, IOException {
+        AtomicReference<AuthenticationException> authenticationFailure = new AtomicReference<>();
+        int threads = Math.max(1, Math.min(serviceParameters.parallelUploads(), featureFiles.size()));
+        ExecutorService executorService = Executors.newFixedThreadPool(threads, new DaemonThreadFactory("xray-cucumber-upload"));
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Path featureFile : featureFiles) {
+                futures.add(executorService.submit(() -> {
+                    // once Jira refused the credentials, there is no point in trying any further
+                    if (authenticationFailure.get() != null) {
+                        return;
+                    }
+                    nullSafeProgressReporter.ifPresent(reporter -> reporter.reportProgress("uploading " + featureFile.getFileName(),
+                            (double) uploadResult.completed() / featureFiles.size()));
+                    try {
+                        uploadResult.fileUploaded(featureFile, uploadFeatureFile(serviceParameters, featureFile, fingerprints, nullSafeProgressReporter, metrics));
+                    } catch (AuthenticationException e) {
+                        authenticationFailure.compareAndSet(null, e);
+                    } catch (IllegalArgumentException | IllegalStateException | URISyntaxException | IOException e) {
+                        uploadResult.fileFailed(featureFile, e);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while uploading cucumber tests");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause().getMessage(), e.getCause());
+        } finally {
+            executorService.shutdownNow();
+        }
+        if (authenticationFailure.get() != null) {
+            throw authenticationFailure.get();
+        }
+    }
+
+    /**
+     * @return the result of the extraction or nothing if the export did not change since last download
+     */
+    private Optional<ExtractionResult> downloadFilter(ServiceParameters serviceParameters, FilterParameters filter, boolean conditional, Path baseOutputDir, ProgressReporter progressReporter,
+                                                      ExtractionContext extractionContext, OperationMetrics metrics)
+            throws AuthenticationException, URISyntaxException, IOException {
+        extractionContext.checkCanceled();
+        Path outputDir = resolveOutputDir(baseOutputDir, filter);
+        String exportCacheKey = exportCacheKey(serviceParameters, filter.filterId(), outputDir);
+        Optional<CachedExport> cachedExport = conditional ? findCachedExport(exportCacheKey, outputDir, extractionContext) : Optional.empty();
+        // every retry and every resumption of the export is a new request
+        AtomicReference<HttpUriRequest> currentRequest = new AtomicReference<>();
+        try {
+            RequestGovernor.Permit permit = acquirePermit(serviceParameters, Optional.ofNullable(progressReporter), extractionContext::checkCanceled, metrics);
+            try {
+                CancellationWatcher.Registration abortOnCancel = extractionContext.whenCanceled(() -> abort(currentRequest));
+                try {
+                    return downloadExport(serviceParameters, filter, outputDir, exportCacheKey, cachedExport, currentRequest, progressReporter, extractionContext, metrics);
+                } finally {
+                    abortOnCancel.cancel();
+                }
+            } finally {
+                permit.release();
+            }
+        } catch (IOException e) {
+            // an aborted request fails with an I/O error, which is not worth reporting
+            extractionContext.checkCanceled();
+            throw e;
+        }
+    }
+
+    /**
+     * Downloads and extracts the export of a single filter, while holding a permit of the {@link RequestGovernor}.
+     */
+    private Optional<ExtractionResult> downloadExport(ServiceParameters serviceParameters, FilterParameters filter, Path outputDir, String exportCacheKey, Optional<CachedExport> cachedExport,
+                                                      AtomicReference<HttpUriRequest> currentRequest, ProgressReporter progressReporter, ExtractionContext extractionContext, OperationMetrics metrics)
+            throws AuthenticationException, URISyntaxException, IOException {
+        RetryPolicy retryPolicy = RetryPolicy.of(serviceParameters);
+        Optional<ProgressReporter> nullSafeProgressReporter = Optional.ofNullable(progressReporter);
+        HttpResponse httpResponse = executeRequest(() -> {
+            HttpUriRequest request = buildDownloadRequest(serviceParameters, filter.filterId());
+            cachedExport.ifPresent(export -> addConditionalHeaders(export, request));
+            return track(request, currentRequest, extractionContext);
+        }, cachedExport.isPresent(), serviceParameters, nullSafeProgressReporter, extractionContext::checkCanceled, metrics);
+        if (httpResponse.getStatusLine().getStatusCode() == HttpStatus.SC_NOT_MODIFIED) {
+            return Optional.empty();
+        }
+        HttpEntity httpEntity = httpResponse.getEntity();
+        ExtractionResult extractionResult;
+        InputStream content = httpEntity.getContent();
+        Optional<String> rangeValidator = rangeValidator(httpResponse);
+        if (rangeValidator.isPresent()) {
+            content = new ResumableInputStream(content, retryPolicy.maxRetries(), (offset, resumes) -> {
+                abort(currentRequest);
+                metrics.retried();
+                backOff(retryPolicy.backoffMillis(resumes - 1, Optional.empty()), "transfer of export interrupted",
+                        nullSafeProgressReporter, extractionContext::checkCanceled, metrics);
+                return resumeExport(serviceParameters, filter, offset, rangeValidator.get(), currentRequest, nullSafeProgressReporter, extractionContext, metrics);
+            });
+        }
+        CountingInputStream countingInputStream = new CountingInputStream(content);
+        try (ZipInputStream zipInputStream = new ZipInputStream(countingInputStream)) {
+            try {
+                verifyContentType(httpEntity, ContentType.APPLICATION_OCTET_STREAM);
+                TransferProgress transferProgress = new TransferProgress(Optional.ofNullable(progressReporter), countingInputStream, httpEntity.getContentLength());
+                extractionResult = extractFilesFromZip(progressReporter, serviceParameters, filter, zipInputStream, outputDir, extractionContext, transferProgress, metrics);
+            } catch (IOException | RuntimeException e) {
+                // otherwise closing the stream reads the rest of the export in order to reuse the connection
+                abort(currentRequest);
+                throw e;
+            }
+        } finally {
+            metrics.bytesReceived(countingInputStream.count());
+            metrics.phaseTime(OperationMetrics.Phase.TRANSFER, countingInputStream.readNanos());
+        }
+        extractionContext.exportDownloaded(exportCacheKey, cachedExport(httpResponse));
+        return Optional.of(extractionResult);
+    }
+
+    private Optional<ExtractionResult> downloadFilters(ServiceParameters serviceParameters, List<FilterParameters> filters, Path outputDir, ProgressReporter progressReporter, ExtractionContext extractionContext, OperationMetrics metrics)
+            throws AuthenticationException, URISyntaxException, IOException {
+        int threads = Math.max(1, Math.min(serviceParameters.parallelDownloads(), filters.size()));
+        ExecutorService executorService = Executors.newFixedThreadPool(threads, new DaemonThreadFactory("xray-cucumber-download"));
+        try {
+            List<Optional<ExtractionResult>> extractionResults = downloadFilters(serviceParameters, filters, true, outputDir, progressReporter, executorService, extractionContext, metrics);
+            List<FilterParameters> unchangedFilters = new ArrayList<>();
+            for (int i = 0; i < filters.size(); i++) {
+                if (!extractionResults.get(i).isPresent()) {
+                    unchangedFilters.add(filters.get(i));
+                }
+            }
+            // which filter extracts a test listed by a changed export depends on the exports of all other filters too
+            if (!unchangedFilters.isEmpty() && unchangedFilters.size() < filters.size()) {
+                extractionResults.addAll(downloadFilters(serviceParameters, unchangedFilters, false, outputDir, progressReporter, executorService, extractionContext, metrics));
+            }
+            ExtractionResult totalExtractionResult = null;
+            for (Optional<ExtractionResult> extractionResult : extractionResults) {
+                if (extractionResult.isPresent()) {
+                    totalExtractionResult = Optional.ofNullable(totalExtractionResult).orElseGet(ExtractionResult::new);
+                    totalExtractionResult.add(extractionResult.get());
+                }
+            }
+            return Optional.ofNullable(totalExtractionResult);
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * @param conditional whether the exports are only downloaded if they changed since they have been cached
+     * @return the results of the given filters in the same order
+     */
+    private List<Optional<ExtractionResult>> downloadFilters(ServiceParameters serviceParameters, List<FilterParameters> filters, boolean conditional, Path outputDir, ProgressReporter progressReporter,
+                                                             ExecutorService executorService, ExtractionContext extractionContext, OperationMetrics metrics)
+            throws AuthenticationException, URISyntaxException, IOException {
+        MultiFilterProgressReporter multiFilterProgressReporter = new MultiFilterProgressReporter(progressReporter, filters.size());
+        List<Future<Optional<ExtractionResult>>> futures = new ArrayList<>();
+        for (FilterParameters filter : filters) {
+            futures.add(executorService.submit(() -> {
+                try {
+                    return downloadFilter(serviceParameters, filter, conditional, outputDir, multiFilterProgressReporter.forFilter(filter), extractionContext, metrics);
+                } finally {
+                    multiFilterProgressReporter.filterCompleted();
+                }
+            }));
+        }
+        List<Optional<ExtractionResult>> extractionResults = new ArrayList<>();
+        List<Throwable> failures = new ArrayList<>();
+        try {
+            for (Future<Optional<ExtractionResult>> future : futures) {
+                try {
+                    extractionResults.add(future.get());
+                } catch (ExecutionException e) {
+                    failures.add(e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while downloading cucumber tests");
+        }
+        rethrowFirstFailure(failures);
+        return extractionResults;
+    }
+
+    private void rethrowFirstFailure(List<Throwable> failures) throws AuthenticationException, URISyntaxException, IOException {
+        if (failures.isEmpty()) {
+            return;
+        }
+        // authentication failures take precedence, as they require the user to enter credentials again
+        Throwable failure = failures.stream()
+                .filter(AuthenticationException.class::isInstance)
+                .findFirst()
+                .orElse(failures.get(0));
+        failures.stream().filter(other -> other != failure).forEach(failure::addSuppressed);
+        if (failure instanceof AuthenticationException) {
+            throw (AuthenticationException) failure;
+        }
+        if (failure instanceof URISyntaxException) {
+            throw (URISyntaxException) failure;
+        }
+        if (failure instanceof IOException) {
+            throw (IOException) failure;
+        }
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+        throw new IllegalStateException(failure.getMessage(), failure);
+    }
+
+    private Path resolveOutputDir(Path baseOutputDir, FilterParameters filter) {
+        if (filter.directory() == null) {
+            return baseOutputDir;
+        }
+        Path outputDir = baseOutputDir.resolve(filter.directory()).normalize();
+        if (!outputDir.startsWith(baseOutputDir.normalize())) {
+            throw new IllegalArgumentException("directory of filter " + filter.filterId() + " must be located within " + baseOutputDir);
+        }
+        return outputDir;
+    }
+
+    private HttpUriRequest buildDownloadRequest(ServiceParameters serviceParameters, long filterId)
             throws AuthenticationException, URISyntaxException {
-        Long filterId = Optional.ofNullable(serviceParameters.filterId())
-                .orElseThrow(() -> new IllegalArgumentException("filterId is required to download cucumber tests"));
-        URIBuilder uriBuilder = new URIBuilder(serviceParameters.url() + REST_ENDPOINT_EXPORT_TEST)
-                .addParameter("filter", String.valueOf(filterId))
-                .addParameter("fz", String.valueOf(true));
-        HttpUriRequest request = new HttpGet(uriBuilder.build());
-        addAuthentication(serviceParameters, request);
-        return request;
+        return new HttpGet(XrayBackend.of(serviceParameters).exportUri(serviceParameters, filterId));
     }
 
     private HttpUriRequest buildFeatureUploadRequest(ServiceParameters serviceParameters, Path featureFile)
             throws AuthenticationException, URISyntaxException, IOException {
-        String projectKey = Optional.ofNullable(serviceParameters.projectKey())
-                .orElseThrow(() -> new IllegalArgumentException("projectKey is required to download cucumber tests"));
-        URIBuilder uriBuilder = new URIBuilder(serviceParameters.url() + REST_ENDPOINT_IMPORT_FEATURE)
-                .addParameter("projectKey", projectKey);
-        HttpPost request = new HttpPost(uriBuilder.build());
-        addAuthentication(serviceParameters, request);
+        HttpPost request = buildImportRequest(serviceParameters);
         HttpEntity entity = MultipartEntityBuilder.create()
-                .addBinaryBody("file", Files.newInputStream(featureFile), ContentType.APPLICATION_JSON, featureFile.getFileName().toString())
+                .addPart("file", new PathBody(featureFile, ContentType.APPLICATION_OCTET_STREAM))
                 .build();
         request.setEntity(entity);
         return request;
     }
 
-    private void addAuthentication(ServiceParameters serviceParameters, HttpUriRequest request) throws AuthenticationException {
-        String userName = Optional.ofNullable(serviceParameters.username()).orElseThrow(() -> new AuthenticationException("user is required"));
-        String password = Optional.ofNullable(serviceParameters.password()).orElseThrow(() -> new AuthenticationException("password is required"));
-        UsernamePasswordCredentials usernamePasswordCredentials = new UsernamePasswordCredentials(userName, password);
-        request.addHeader(new BasicScheme().authenticate(usernamePasswordCredentials, request, null));
+    private HttpUriRequest buildFeatureBundleUploadRequest(ServiceParameters serviceParameters, List<Path> featureFiles)
+            throws AuthenticationException, URISyntaxException {
+        HttpPost request = buildImportRequest(serviceParameters);
+        HttpEntity entity = MultipartEntityBuilder.create()
+                .addPart("file", new ZippedFeatureFilesBody(featureFiles))
+                .build();
+        request.setEntity(entity);
+        return request;
     }
 
-    private HttpEntity executeRequest(HttpUriRequest request) throws AuthenticationException, IOException {
-        HttpResponse httpResponse = httpClient.execute(request);
+    private HttpUriRequest buildExecutionImportRequest(ServiceParameters serviceParameters, Path report) throws URISyntaxException, IOException {
+        HttpPost request = new HttpPost(XrayBackend.of(serviceParameters).executionImportUri(serviceParameters));
+        request.setEntity(RequestCompression.compress(serviceParameters, new PathEntity(report, ContentType.APPLICATION_JSON)));
+        return request;
+    }
+
+    private HttpPost buildImportRequest(ServiceParameters serviceParameters) throws AuthenticationException, URISyntaxException {
+        String projectKey = Optional.ofNullable(serviceParameters.projectKey())
+                .orElseThrow(() -> new IllegalArgumentException("projectKey is required to upload cucumber tests"));
+        return new HttpPost(XrayBackend.of(serviceParameters).importUri(serviceParameters, projectKey));
+    }
+
+    /**
+     * Overrides the timeouts configured for the HTTP client by those of the Jira instance, if any. All other settings
+     * of the client's default request config are kept, as a request config replaces the default entirely.
+     */
+    private HttpUriRequest configureTimeouts(ServiceParameters serviceParameters, HttpUriRequest request) {
+        if (!(request instanceof HttpRequestBase) || serviceParameters.connectTimeout() == null && serviceParameters.socketTimeout() == null) {
+            return request;
+        }
+        RequestConfig.Builder requestConfig = RequestConfig.copy(PooledHttpClientFactory.requestConfig(httpClientParameters));
+        Optional.ofNullable(serviceParameters.connectTimeout()).ifPresent(requestConfig::setConnectTimeout);
+        Optional.ofNullable(serviceParameters.socketTimeout()).ifPresent(requestConfig::setSocketTimeout);
+        ((HttpRequestBase) request).setConfig(requestConfig.build());
+        return request;
+    }
+
+    /**
+     * Executes requests created by the given factory until Jira responds or the failure is not considered temporary,
+     * see {@link RetryPolicy}. Every request waits for its turn as given by the {@link RequestGovernor} of the Jira
+     * instance, the caller is responsible for holding a permit. Requests to authenticate are executed the same way.
+     */
+    private HttpResponse executeRequest(RequestFactory requestFactory, boolean notModifiedAccepted, ServiceParameters serviceParameters, Optional<ProgressReporter> progressReporter, Runnable cancellationCheck, OperationMetrics metrics)
+            throws AuthenticationException, URISyntaxException, IOException {
+        AuthenticationExecutor authenticationExecutor = (authenticationRequestFactory, context) -> executeWithRetries(authenticationRequestFactory,
+                request -> context == null ? httpClient.execute(request) : httpClient.execute(request, context),
+                serviceParameters, progressReporter, cancellationCheck, metrics);
+        // the backend repeats the request after authenticating again, which must not bypass the timeouts
+        RequestFactory configuredRequestFactory = () -> configureTimeouts(serviceParameters, requestFactory.create());
+        HttpResponse httpResponse = executeWithRetries(configuredRequestFactory,
+                request -> XrayBackend.of(serviceParameters).execute(httpClient, request, configuredRequestFactory, serviceParameters, authenticationExecutor, cancellationCheck),
+                serviceParameters, progressReporter, cancellationCheck, metrics);
+        return verifyResponse(httpResponse, notModifiedAccepted);
+    }
+
+    /**
+     * @return the response to the last attempt, which has not been verified yet
+     */
+    private HttpResponse executeWithRetries(RequestFactory requestFactory, RequestSender requestSender, ServiceParameters serviceParameters,
+                                            Optional<ProgressReporter> progressReporter, Runnable cancellationCheck, OperationMetrics metrics)
+            throws AuthenticationException, URISyntaxException, IOException {
+        RetryPolicy retryPolicy = RetryPolicy.of(serviceParameters);
+        RequestGovernor requestGovernor = RequestGovernor.of(serviceParameters, httpClientParameters);
+        for (int retries = 0; ; retries++) {
+            long queued = System.nanoTime();
+            try {
+                requestGovernor.awaitTurn(cancellationCheck, reportQueueWait(progressReporter));
+            } finally {
+                metrics.phaseTime(OperationMetrics.Phase.QUEUE, System.nanoTime() - queued);
+            }
+            HttpUriRequest request = configureTimeouts(serviceParameters, requestFactory.create());
+            boolean idempotent = RetryPolicy.isIdempotent(request);
+            HttpResponse httpResponse = null;
+            IOException failure = null;
+            long start = System.nanoTime();
+            try {
+                httpResponse = requestSender.send(request);
+            } catch (IOException e) {
+                if (!retryPolicy.mayRetry(retries) || !RetryPolicy.isRetryable(e, idempotent)) {
+                    throw e;
+                }
+                failure = e;
+            } finally {
+                metrics.phaseTime(OperationMetrics.Phase.REQUEST, System.nanoTime() - start);
+            }
+            if (failure != null) {
+                metrics.retried();
+                backOff(retryPolicy.backoffMillis(retries, Optional.empty()), "connection to Jira failed (" + failure.getMessage() + ")",
+                        progressReporter, cancellationCheck, metrics);
+                continue;
+            }
+            if (RequestCompression.rejected(serviceParameters, request, httpResponse)) {
+                EntityUtils.consume(httpResponse.getEntity());
+                continue;
+            }
+            if (retryPolicy.mayRetry(retries) && RetryPolicy.isRetryable(httpResponse, idempotent)) {
+                int statusCode = httpResponse.getStatusLine().getStatusCode();
+                Optional<Long> retryAfterMillis = RetryPolicy.retryAfterMillis(httpResponse);
+                EntityUtils.consume(httpResponse.getEntity());
+                metrics.retried();
+                backOff(retryPolicy.backoffMillis(retries, retryAfterMillis), "Jira is not available (HTTP " + statusCode + ")",
+                        progressReporter, cancellationCheck, metrics);
+                continue;
+            }
+            return httpResponse;
+        }
+    }
+
+    private HttpResponse verifyResponse(HttpResponse httpResponse, boolean notModifiedAccepted) throws AuthenticationException, IOException {
         HttpEntity httpEntity = httpResponse.getEntity();
         int statusCode = httpResponse.getStatusLine().getStatusCode();
         if (statusCode == HttpStatus.SC_UNAUTHORIZED) {
+            EntityUtils.consume(httpEntity);
             throw new AuthenticationException("Jira refused authentication (HTTP 401)");
         }
-        if (statusCode != HttpStatus.SC_OK) {
+        // Jira requires a CAPTCHA after repeated failed logins, until which it refuses even valid credentials
+        Optional<String> authenticationDeniedReason = Optional.ofNullable(headerValue(httpResponse, HEADER_AUTHENTICATION_DENIED_REASON));
+        if (statusCode == HttpStatus.SC_FORBIDDEN && authenticationDeniedReason.isPresent()) {
+            EntityUtils.consume(httpEntity);
+            throw new AuthenticationException("Jira refused authentication (HTTP 403, " + authenticationDeniedReason.get() + ")");
+        }
+        if (statusCode == HttpStatus.SC_NOT_MODIFIED && notModifiedAccepted) {
+            EntityUtils.consume(httpEntity);
+            return httpResponse;
+        }
+        if (statusCode != HttpStatus.SC_OK && statusCode != HttpStatus.SC_PARTIAL_CONTENT) {
             ContentType contentType = ContentType.getOrDefault(httpEntity);
             String message = "unexpected error";
             if (contentType.getMimeType().equals(ContentType.TEXT_PLAIN.getMimeType())) {
                 message = EntityUtils.toString(httpEntity);
+            } else if (contentType.getMimeType().equals(ContentType.APPLICATION_JSON.getMimeType()) && httpEntity != null) {
+                try (InputStream inputStream = httpEntity.getContent()) {
+                    message = ImportResponseParser.parseError(inputStream).orElse(message);
+                } catch (IOException e) {
+                    // keep generic message, as error response is not as documented
+                }
+                EntityUtils.consume(httpEntity);
+            } else {
+                EntityUtils.consume(httpEntity);
             }
             throw new IllegalStateException(message + " (HTTP " + statusCode + ")");
         }
-        return httpEntity;
+        return httpResponse;
+    }
+
+    private RequestGovernor.Permit acquirePermit(ServiceParameters serviceParameters, Optional<ProgressReporter> progressReporter, Runnable cancellationCheck, OperationMetrics metrics)
+            throws InterruptedIOException {
+        long start = System.nanoTime();
+        try {
+            return RequestGovernor.of(serviceParameters, httpClientParameters).acquire(cancellationCheck, reportQueueWait(progressReporter));
+        } finally {
+            metrics.phaseTime(OperationMetrics.Phase.QUEUE, System.nanoTime() - start);
+        }
+    }
+
+    private Consumer<String> reportQueueWait(Optional<ProgressReporter> progressReporter) {
+        return message -> progressReporter.ifPresent(reporter -> reporter.reportProgress(message, ProgressReporter.INDETERMINATE));
+    }
+
+    private void backOff(long millis, String reason, Optional<ProgressReporter> progressReporter, Runnable cancellationCheck, OperationMetrics metrics)
+            throws InterruptedIOException {
+        progressReporter.ifPresent(reporter -> reporter.reportProgress(
+                String.format(Locale.ROOT, "%s, retrying in %.1f s", reason, millis / 1000.), ProgressReporter.INDETERMINATE));
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(millis);
+        try {
+            for (long remaining = deadline - start; remaining > 0; remaining = deadline - System.nanoTime()) {
+                cancellationCheck.run();
+                TimeUnit.NANOSECONDS.sleep(Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(CancellationWatcher.POLL_INTERVAL_MILLIS)));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting to retry");
+        } finally {
+            metrics.phaseTime(OperationMetrics.Phase.BACKOFF, System.nanoTime() - start);
+        }
+        cancellationCheck.run();
+    }
+
+    /**
+     * Makes the given request the one aborted on cancellation. Checking afterwards ensures that a cancellation is not
+     * missed while switching from one request to the next.
+     */
+    private HttpUriRequest track(HttpUriRequest request, AtomicReference<HttpUriRequest> currentRequest, ExtractionContext extractionContext) {
+        currentRequest.set(request);
+        extractionContext.checkCanceled();
+        return request;
+    }
+
+    private void abort(AtomicReference<HttpUriRequest> currentRequest) {
+        Optional.ofNullable(currentRequest.get()).ifPresent(HttpUriRequest::abort);
+    }
+
+    /**
+     * @return the validator which ensures that a range request returns a part of the very same export, if Jira
+     * supports range requests for the export at all
+     */
+    private Optional<String> rangeValidator(HttpResponse httpResponse) {
+        if (!"bytes".equalsIgnoreCase(headerValue(httpResponse, HttpHeaders.ACCEPT_RANGES))) {
+            return Optional.empty();
+        }
+        // weak entity tags must not be used for range requests
+        Optional<String> etag = Optional.ofNullable(headerValue(httpResponse, HttpHeaders.ETAG))
+                .filter(value -> !value.startsWith("W/"));
+        return etag.isPresent() ? etag : Optional.ofNullable(headerValue(httpResponse, HttpHeaders.LAST_MODIFIED));
+    }
+
+    private InputStream resumeExport(ServiceParameters serviceParameters, FilterParameters filter, long offset, String rangeValidator, AtomicReference<HttpUriRequest> currentRequest,
+                                     Optional<ProgressReporter> progressReporter, ExtractionContext extractionContext, OperationMetrics metrics) throws IOException {
+        HttpResponse httpResponse;
+        try {
+            httpResponse = executeRequest(() -> {
+                HttpUriRequest request = buildDownloadRequest(serviceParameters, filter.filterId());
+                request.addHeader(HttpHeaders.RANGE, "bytes=" + offset + "-");
+                request.addHeader(HttpHeaders.IF_RANGE, rangeValidator);
+                return track(request, currentRequest, extractionContext);
+            }, false, serviceParameters, progressReporter, extractionContext::checkCanceled, metrics);
+        } catch (AuthenticationException | URISyntaxException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+        // the export changed meanwhile or Jira ignored the range, so the remaining content is not what is expected
+        String contentRange = headerValue(httpResponse, HttpHeaders.CONTENT_RANGE);
+        if (httpResponse.getStatusLine().getStatusCode() != HttpStatus.SC_PARTIAL_CONTENT
+                || contentRange == null || !contentRange.startsWith("bytes " + offset + "-")) {
+            abort(currentRequest);
+            throw new IOException("Jira cannot resume the export at byte " + offset);
+        }
+        return httpResponse.getEntity().getContent();
+    }
+
+    /**
+     * The cache is shared by all projects of the IDE, hence the validators of an export are only valid for the output
+     * directory it has been extracted to.
+     */
+    private String exportCacheKey(ServiceParameters serviceParameters, long filterId, Path outputDir) {
+        return serviceParameters.url() + XrayBackend.of(serviceParameters).exportEndpoint()
+                + "?filter=" + filterId
+                + "&outputDir=" + outputDir.toAbsolutePath().normalize();
+    }
+
+    private Optional<CachedExport> findCachedExport(String exportCacheKey, Path outputDir, ExtractionContext extractionContext) throws IOException {
+        // without manifest, there is no evidence that the output directory contains the result of the cached export
+        if (exportCache == null || !Files.exists(outputDir.resolve(ExtractionManifest.XRAY_CUCUMBER_MANIFEST_JSON))) {
+            return Optional.empty();
+        }
+        // deleted or modified files are only restored by downloading the export again
+        if (!extractionContext.manifest(outputDir).isIntact()) {
+            return Optional.empty();
+        }
+        return exportCache.get(exportCacheKey);
+    }
+
+    private void addConditionalHeaders(CachedExport cachedExport, HttpUriRequest request) {
+        Optional.ofNullable(cachedExport.etag())
+                .ifPresent(etag -> request.addHeader(HttpHeaders.IF_NONE_MATCH, etag));
+        Optional.ofNullable(cachedExport.lastModified())
+                .ifPresent(lastModified -> request.addHeader(HttpHeaders.IF_MODIFIED_SINCE, lastModified));
+    }
+
+    @Nullable
+    private CachedExport cachedExport(HttpResponse httpResponse) {
+        String etag = headerValue(httpResponse, HttpHeaders.ETAG);
+        String lastModified = headerValue(httpResponse, HttpHeaders.LAST_MODIFIED);
+        return etag == null && lastModified == null ? null : new CachedExport(etag, lastModified);
     }
 
-    private void extractFilesFromZip(ProgressReporter progressReporter, FileReplacementBehaviour fileReplacementBehaviour, ZipInputStream zipInputStream, Path outputDir, Optional<ProgressReporter> nullSafeProgressReporter) throws IOException {
-        int testCount = 0;
+    /**
+     * Caches the validators of all exports downloaded, once their files have been committed and conflicts resolved.
+     */
+    private void updateCachedExports(ExtractionContext extractionContext) throws IOException {
+        if (exportCache == null) {
+            return;
+        }
+        for (Map.Entry<String, CachedExport> downloadedExport : extractionContext.downloadedExports().entrySet()) {
+            if (downloadedExport.getValue() == null) {
+                exportCache.remove(downloadedExport.getKey());
+            } else {
+                exportCache.put(downloadedExport.getKey(), downloadedExport.getValue());
+            }
+        }
+    }
+
+    @Nullable
+    private String headerValue(HttpResponse httpResponse, String name) {
+        return Optional.ofNullable(httpResponse.getFirstHeader(name)).map(Header::getValue).orElse(null);
+    }
+
+    private ExtractionResult extractFilesFromZip(ProgressReporter progressReporter, ServiceParameters serviceParameters, FilterParameters filter, ZipInputStream zipInputStream, Path outputDir, ExtractionContext extractionContext, TransferProgress transferProgress, OperationMetrics metrics) throws IOException {
         Files.createDirectories(outputDir);
-        ZipEntry entry;
-        while ((entry = zipInputStream.getNextEntry()) != null) {
-            // as we total numbers of entries is not know in advance, estimate it as exponential increasing
-            double completionRatio = testCount / Math.pow(10, testCount % 10);
-            String fileName = entry.getName();
-            nullSafeProgressReporter
-                    .ifPresent((reporter -> reporter.reportProgress("extraction " + fileName, completionRatio)));
-            extractFileFromZip(progressReporter, fileReplacementBehaviour, outputDir, zipInputStream, entry);
-            testCount++;
+        ExtractionManifest manifest = extractionContext.manifest(outputDir);
+        ExtractionResult extractionResult = new ExtractionResult();
+        // reading from the ZIP stream includes waiting for the network, which is accounted separately as transfer
+        long zipReadNanos = 0;
+        try (FeatureFileWriter featureFileWriter = createFeatureFileWriter(serviceParameters, extractionContext.fileTransaction(), metrics)) {
+            ZipEntry entry;
+            while (true) {
+                extractionContext.checkCanceled();
+                long start = System.nanoTime();
+                entry = zipInputStream.getNextEntry();
+                zipReadNanos += System.nanoTime() - start;
+                if (entry == null) {
+                    break;
+                }
+                String fileName = entry.getName();
+                transferProgress.entryStarted(fileName);
+                metrics.entryProcessed();
+                Optional<ExtractionContext.Claim> claim = extractionContext.claim(filter, outputDir, fileName, manifest);
+                if (!claim.isPresent()) {
+                    extractionResult.fileDuplicated();
+                    continue;
+                }
+                start = System.nanoTime();
+                byte[] content = readEntry(zipInputStream, entry, extractionContext);
+                zipInputStream.closeEntry();
+                zipReadNanos += System.nanoTime() - start;
+                ExtractionResult fileExtractionResult = claim.get().extractionResult();
+                extractFileFromZip(serviceParameters.fileReplacementBehaviour(), outputDir, fileName, content, featureFileWriter, manifest, fileExtractionResult, extractionContext);
+                extractionResult.add(fileExtractionResult);
+            }
+        } finally {
+            metrics.phaseTime(OperationMetrics.Phase.INFLATION, Math.max(0, zipReadNanos - transferProgress.transferNanos()));
+        }
+        // within a transaction, the manifest is saved on commit, along with the files it refers to
+        if (!extractionContext.fileTransaction().isDeferred()) {
+            extractionContext.save(manifest);
+        }
+        return extractionResult;
+    }
+
+    private FeatureFileWriter createFeatureFileWriter(ServiceParameters serviceParameters, FileTransaction fileTransaction, OperationMetrics metrics) {
+        if (serviceParameters.extractionThreads() > 1) {
+            return new PipelinedFeatureFileWriter(serviceParameters.extractionThreads(), serviceParameters.extractionBufferSize(), fileTransaction, metrics);
         }
-        int totalTestCount = testCount;
-        nullSafeProgressReporter.ifPresent(reporter -> reporter.reportSuccess("extracted successfully " + totalTestCount + " cucumber tests"));
+        return new DirectFeatureFileWriter(fileTransaction, metrics);
     }
 
     private void verifyContentType(HttpEntity httpEntity, ContentType expectedContentType) {
@@ -179,27 +980,76 @@ public class XrayCucumberService {
         }
     }
 
-    private void extractFileFromZip(ProgressReporter progressReporter, FileReplacementBehaviour fileReplacementBehaviour, Path outputDir, ZipInputStream zipInputStream, ZipEntry entry) throws IOException {
-        Path featureFileName = outputDir.resolve(entry.getName());
-        if (Files.exists(featureFileName)
-                && !replaceLocalCopy(progressReporter, fileReplacementBehaviour, featureFileName)) {
+    private void extractFileFromZip(FileReplacementBehaviour fileReplacementBehaviour, Path outputDir, String fileName, byte[] content, FeatureFileWriter featureFileWriter, ExtractionManifest manifest, ExtractionResult extractionResult, ExtractionContext extractionContext) throws IOException {
+        Path featureFileName = outputDir.resolve(fileName);
+        String hash = ExtractionManifest.hash(content);
+        if (!Files.exists(featureFileName)) {
+            featureFileWriter.write(featureFileName, content);
+            manifest.put(fileName, hash);
+            extractionResult.fileAdded();
             return;
         }
-        try (OutputStream outputStream = Files.newOutputStream(featureFileName)) {
-            int len;
-            byte[] buffer = new byte[1024];
-            while ((len = zipInputStream.read(buffer)) > 0) {
-                outputStream.write(buffer, 0, len);
+        String localHash = ExtractionManifest.hash(Files.readAllBytes(featureFileName));
+        if (localHash.equals(hash)) {
+            manifest.put(fileName, hash);
+            extractionResult.fileUnchanged();
+            return;
+        }
+        // a local copy that is still identical to the last downloaded version can be replaced without losing anything
+        boolean locallyModified = !manifest.get(fileName).filter(localHash::equals).isPresent();
+        if (locallyModified && fileReplacementBehaviour == FileReplacementBehaviour.ASK) {
+            // the user is asked once all exports are extracted, so that the download does not stall meanwhile
+            extractionContext.conflictStaging().stage(outputDir, fileName, content, hash, manifest);
+            return;
+        }
+        if (locallyModified && fileReplacementBehaviour == FileReplacementBehaviour.KEEP_EXISTING) {
+            extractionResult.fileSkipped();
+            return;
+        }
+        featureFileWriter.write(featureFileName, content);
+        manifest.put(fileName, hash);
+        extractionResult.fileChanged();
+    }
+
+    private byte[] readEntry(ZipInputStream zipInputStream, ZipEntry entry, ExtractionContext extractionContext) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(entry.getSize() > 0 ? (int) entry.getSize() : 8192);
+        int len;
+        byte[] buffer = new byte[8192];
+        while ((len = zipInputStream.read(buffer)) > 0) {
+            outputStream.write(buffer, 0, len);
+            extractionContext.checkCanceled();
+        }
+        return outputStream.toByteArray();
+    }
+
+    private void resolveConflicts(ProgressReporter progressReporter, ExtractionContext extractionContext, ExtractionResult extractionResult, OperationMetrics metrics) throws IOException {
+        List<FileConflict> conflicts = extractionContext.conflictStaging().conflicts();
+        if (conflicts.isEmpty()) {
+            return;
+        }
+        // without anybody to ask, local modifications are never overwritten
+        Set<FileConflict> acceptedConflicts = Collections.emptySet();
+        if (progressReporter != null) {
+            long start = System.nanoTime();
+            try {
+                acceptedConflicts = progressReporter.askToReplaceExistingFiles(conflicts);
+            } finally {
+                metrics.phaseTime(OperationMetrics.Phase.USER_INPUT, System.nanoTime() - start);
             }
         }
-        zipInputStream.closeEntry();
+        int replaced = extractionContext.conflictStaging().commit(acceptedConflicts);
+        extractionResult.conflictsResolved(replaced, conflicts.size() - replaced);
     }
 
-    private boolean replaceLocalCopy(ProgressReporter progressReporter, FileReplacementBehaviour fileReplacementBehaviour, Path featureFileName) {
-        if (fileReplacementBehaviour == FileReplacementBehaviour.ASK) {
-            return progressReporter.askToReplaceExistingFile(featureFileName).isReplaceExistingFile();
+    private void publishMetrics(OperationMetrics metrics) {
+        if (metricsListener != null) {
+            metricsListener.operationCompleted(metrics);
         }
-        return fileReplacementBehaviour == FileReplacementBehaviour.REPLACE;
+    }
+
+    @FunctionalInterface
+    private interface RequestSender {
+        HttpResponse send(HttpUriRequest request) throws AuthenticationException, URISyntaxException, IOException;
     }
 }
 
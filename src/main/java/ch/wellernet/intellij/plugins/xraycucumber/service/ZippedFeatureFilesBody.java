@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package ch.wellernet.intellij.plugins.xraycucumber.service;
+
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.mime.MIME;
+import org.apache.http.entity.mime.content.AbstractContentBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Multipart body zipping the feature files while the request is sent, so that neither a temporary file nor a copy in
+ * memory is required. As the length is not known in advance, the request is sent with chunked transfer encoding.
+ */
+class ZippedFeatureFilesBody extends AbstractContentBody {
+    static final ContentType APPLICATION_ZIP = ContentType.create("application/zip");
+
+    private final List<Path> featureFiles;
+
+    ZippedFeatureFilesBody(List<Path> featureFiles) {
+        super(APPLICATION_ZIP);
+        this.featureFiles = featureFiles;
+    }
+
+    @Override
+    public String getFilename() {
+        return "features.zip";
+    }
+
+    @Override
+    public void writeTo(OutputStream outputStream) throws IOException {
+        // not closed, as this would close the underlying request stream as well
+        ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream);
+        int index = 1;
+        for (Path featureFile : featureFiles) {
+            // same naming as Xray uses on export, which keeps entry names unique
+            zipOutputStream.putNextEntry(new ZipEntry(index++ + "_" + featureFile.getFileName()));
+            Files.copy(featureFile, zipOutputStream);
+            zipOutputStream.closeEntry();
+        }
+        zipOutputStream.finish();
+        zipOutputStream.flush();
+    }
+
+    @Override
+    public String getTransferEncoding() {
+        return MIME.ENC_BINARY;
+    }
+
+    @Override
+    public long getContentLength() {
+        return -1;
+    }
+}
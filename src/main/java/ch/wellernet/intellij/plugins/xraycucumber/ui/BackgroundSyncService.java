@@ -0,0 +1,252 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package ch.wellernet.intellij.plugins.xraycucumber.ui;
+
+import ch.wellernet.intellij.plugins.xraycucumber.model.FileConflict;
+import ch.wellernet.intellij.plugins.xraycucumber.model.FileReplacementBehaviour;
+import ch.wellernet.intellij.plugins.xraycucumber.model.ServiceParameters;
+import ch.wellernet.intellij.plugins.xraycucumber.service.FileChanges;
+import ch.wellernet.intellij.plugins.xraycucumber.service.ProgressReporter;
+import ch.wellernet.intellij.plugins.xraycucumber.service.XrayCucumberService;
+import com.intellij.ide.PowerSaveMode;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Downloads the tests of every xray-cucumber.json file of the project that defines a <code>syncInterval</code>
+ * periodically in the background. Exports are requested conditionally, so that polling an unchanged filter costs
+ * hardly more than a round trip to Jira. All due times are randomly spread, so that many IDEs started at the same
+ * time do not poll Jira in lockstep. While the IDE is in power save mode or indexing, the checks back off.
+ * <p>
+ * A background sync never replaces locally modified files, whatever the configured <code>fileReplacementBehaviour</code>,
+ * and is postponed while a file of its output directory is modified in an editor but not saved yet.
+ */
+public class BackgroundSyncService implements Disposable {
+    public static final String TITLE = "Syncing Cucumber Xray Tests from Jira";
+
+    static final long TICK_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    static final int MAX_BACKOFF_TICKS = 16;
+
+    private static final Logger LOGGER = Logger.getInstance(BackgroundSyncService.class);
+
+    private final Project project;
+    private final Map<String, SyncState> syncStates = new ConcurrentHashMap<>();
+    private final Set<String> runningSyncs = ConcurrentHashMap.newKeySet();
+    private volatile ScheduledFuture<?> nextTick;
+    private volatile boolean disposed;
+    private int skippedTicks;
+
+    public BackgroundSyncService(Project project) {
+        this.project = project;
+    }
+
+    public static BackgroundSyncService getInstance(Project project) {
+        return ServiceManager.getService(project, BackgroundSyncService.class);
+    }
+
+    void start() {
+        // the first check is spread over a whole tick, as many IDEs tend to be started at the same time
+        scheduleTick(ThreadLocalRandom.current().nextLong(TICK_MILLIS));
+    }
+
+    @Override
+    public void dispose() {
+        disposed = true;
+        Optional.ofNullable(nextTick).ifPresent(tick -> tick.cancel(false));
+    }
+
+    private void scheduleTick(long delayMillis) {
+        if (!disposed) {
+            nextTick = AppExecutorUtil.getAppScheduledExecutorService().schedule(this::tick, delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void tick() {
+        if (disposed || project.isDisposed()) {
+            return;
+        }
+        if (PowerSaveMode.isEnabled() || DumbService.isDumb(project)) {
+            skippedTicks = Math.min(MAX_BACKOFF_TICKS, Math.max(1, skippedTicks * 2));
+            scheduleTick(jittered(skippedTicks * TICK_MILLIS));
+            return;
+        }
+        skippedTicks = 0;
+        try {
+            for (VirtualFile serviceParametersFile : XrayCucumberIndexService.getInstance(project).findServiceParametersFiles()) {
+                syncIfDue(serviceParametersFile);
+            }
+        } catch (RuntimeException e) {
+            LOGGER.warn("background sync of cucumber tests failed", e);
+        } finally {
+            scheduleTick(jittered(TICK_MILLIS));
+        }
+    }
+
+    private void syncIfDue(VirtualFile serviceParametersFile) {
+        String path = serviceParametersFile.getPath();
+        Optional<ServiceParameters> serviceParameters;
+        try {
+            serviceParameters = ServiceParametersUtils.prepareServiceParametersWithoutAsking(project, serviceParametersFile);
+        } catch (IOException e) {
+            LOGGER.debug("skipping background sync of invalid " + path, e);
+            return;
+        }
+        if (!serviceParameters.isPresent() || serviceParameters.get().syncInterval() <= 0) {
+            syncStates.remove(path);
+            return;
+        }
+        long intervalMillis = TimeUnit.MINUTES.toMillis(serviceParameters.get().syncInterval());
+        long now = System.currentTimeMillis();
+        // a newly discovered file is synced within its first interval, but not right away when the project is opened
+        SyncState syncState = syncStates.computeIfAbsent(path, key -> new SyncState(now + ThreadLocalRandom.current().nextLong(intervalMillis)));
+        if (now < syncState.dueMillis || !runningSyncs.add(path)) {
+            return;
+        }
+        syncState.dueMillis = now + jittered(intervalMillis);
+        VirtualFile outputDir = serviceParametersFile.getParent();
+        ServiceParameters backgroundServiceParameters = serviceParameters.get().fileReplacementBehaviour() == FileReplacementBehaviour.REPLACE ?
+                serviceParameters.get().toBuilder().fileReplacementBehaviour(FileReplacementBehaviour.ASK).build() : serviceParameters.get();
+        ApplicationManager.getApplication().invokeLater(() -> {
+            if (hasUnsavedDocuments(outputDir)) {
+                LOGGER.info("postponing background sync of " + path + " until modified files are saved");
+                syncState.dueMillis = System.currentTimeMillis() + TICK_MILLIS;
+                runningSyncs.remove(path);
+                return;
+            }
+            ProgressManager.getInstance().run(new Task.Backgroundable(project, TITLE, true) {
+                @Override
+                public void run(@NotNull ProgressIndicator progressIndicator) {
+                    try {
+                        XrayCucumberService xrayCucumberService = new XrayCucumberService(HttpClientService.getInstance().httpClient(), HttpClientService.getInstance().parameters(),
+                                DownloadTestsFromJiraAction.EXPORT_CACHE, OperationMetricsService.getInstance());
+                        FileChanges fileChanges = xrayCucumberService.downloadXrayCucumberTests(backgroundServiceParameters, Paths.get(outputDir.getPath()),
+                                new BackgroundProgressReporter(progressIndicator, path, syncState, backgroundServiceParameters), () -> disposed || progressIndicator.isCanceled());
+                        VfsRefreshUtils.refresh(fileChanges);
+                    } finally {
+                        runningSyncs.remove(path);
+                    }
+                }
+            });
+        }, project.getDisposed());
+    }
+
+    /**
+     * @return whether a file within the given directory is modified in an editor, so that downloading would either
+     * overwrite the unsaved changes or be overwritten by them
+     */
+    private boolean hasUnsavedDocuments(VirtualFile outputDir) {
+        FileDocumentManager fileDocumentManager = FileDocumentManager.getInstance();
+        return Arrays.stream(fileDocumentManager.getUnsavedDocuments())
+                .map(fileDocumentManager::getFile)
+                .anyMatch(file -> file != null && fileDocumentManager.isFileModified(file) && VfsUtilCore.isAncestor(outputDir, file, true));
+    }
+
+    /**
+     * @return the given delay randomly varied by up to 10% in both directions
+     */
+    private long jittered(long delayMillis) {
+        return delayMillis + (long) (delayMillis * 0.2 * (ThreadLocalRandom.current().nextDouble() - 0.5));
+    }
+
+    private static class SyncState {
+        volatile long dueMillis;
+        volatile boolean failing;
+
+        SyncState(long dueMillis) {
+            this.dueMillis = dueMillis;
+        }
+    }
+
+    /**
+     * Keeps the user undisturbed: outcomes are logged, only the first of a series of failures is notified and locally
+     * modified files are never replaced without asking.
+     */
+    private class BackgroundProgressReporter implements ProgressReporter {
+        private final ProgressIndicator progressIndicator;
+        private final String path;
+        private final SyncState syncState;
+        private final ServiceParameters serviceParameters;
+
+        BackgroundProgressReporter(ProgressIndicator progressIndicator, String path, SyncState syncState, ServiceParameters serviceParameters) {
+            this.progressIndicator = progressIndicator;
+            this.path = path;
+            this.syncState = syncState;
+            this.serviceParameters = serviceParameters;
+        }
+
+        @Override
+        public void reportProgress(String message, double completionRatio) {
+            progressIndicator.setText(message);
+        }
+
+        @Override
+        public void reportSuccess(String message) {
+            LOGGER.info("background sync of " + path + ": " + message);
+            syncState.failing = false;
+        }
+
+        @Override
+        public void reportAuthenticationError(String message) {
+            // the stored credentials are kept, as nobody is around to enter new ones
+            ServiceParametersUtils.credentialsRefused(serviceParameters, false);
+            reportError(message, null);
+        }
+
+        @Override
+        public void reportError(String message, Exception exception) {
+            LOGGER.info("background sync of " + path + " failed: " + message);
+            if (!syncState.failing && !disposed && !progressIndicator.isCanceled()) {
+                NotificationUtils.notifyError("Background sync of " + path + " failed: " + message, project);
+            }
+            syncState.failing = true;
+        }
+
+        @Override
+        public Set<FileConflict> askToReplaceExistingFiles(List<FileConflict> conflicts) {
+            LOGGER.info("background sync of " + path + " kept " + conflicts.size() + " locally modified files");
+            return Collections.emptySet();
+        }
+    }
+}
@@ -19,44 +19,81 @@
 
 package ch.wellernet.intellij.plugins.xraycucumber.ui;
 
-import ch.wellernet.intellij.plugins.xraycucumber.model.FileReplacementBehaviour;
-import ch.wellernet.intellij.plugins.xraycucumber.model.FileReplacementDecision;
-import com.intellij.CommonBundle;
+import ch.wellernet.intellij.plugins.xraycucumber.model.FileConflict;
+import com.intellij.diff.DiffContentFactory;
+import com.intellij.diff.DiffDialogHints;
+import com.intellij.diff.DiffManager;
+import com.intellij.diff.requests.SimpleDiffRequest;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.ui.DialogWrapper;
+import com.intellij.openapi.ui.Messages;
+import com.intellij.ui.CheckBoxList;
 import org.jetbrains.annotations.Nullable;
 
 import javax.swing.*;
-import java.awt.event.KeyEvent;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 public class ConfirmFileReplacementDialog extends DialogWrapper {
+    private final Project project;
+    private final List<FileConflict> conflicts;
     private JPanel rootPanel;
     private JLabel messageLabel;
-    private JCheckBox useForAllCheckBox;
+    private CheckBoxList<FileConflict> conflictList;
+    private JButton showDiffButton;
 
-    public ConfirmFileReplacementDialog(@Nullable Project project, Path file) {
+    public ConfirmFileReplacementDialog(@Nullable Project project, List<FileConflict> conflicts) {
         super(project);
+        this.project = project;
+        this.conflicts = conflicts;
         init();
-        setTitle("Replace Local Copy");
-        messageLabel.setText("Are you sure to replace the local copy of '" + file + "' ?");
-        myOKAction.putValue(Action.NAME, CommonBundle.getYesButtonText());
-        myOKAction.putValue(Action.MNEMONIC_KEY, KeyEvent.VK_Y);
-        myCancelAction.putValue(Action.NAME, CommonBundle.getNoButtonText());
-        myCancelAction.putValue(Action.MNEMONIC_KEY, KeyEvent.VK_N);
+        setTitle("Replace Local Copies");
+        messageLabel.setText(conflicts.size() + " files have been modified locally and in Jira. Replace the selected local copies?");
+        conflicts.forEach(conflict -> conflictList.addItem(conflict, conflict.file().toString(), true));
+        showDiffButton.addActionListener(event -> showDiff());
+        myOKAction.putValue(Action.NAME, "Replace Selected");
+        myCancelAction.putValue(Action.NAME, "Keep All");
     }
 
-    FileReplacementDecision getFileReplacementDecision() {
-        boolean replaceExistingFile = getExitCode() == OK_EXIT_CODE;
-        FileReplacementBehaviour fileReplacementBehaviour;
-        if (useForAllCheckBox.isSelected()) {
-            fileReplacementBehaviour = replaceExistingFile ?
-                    FileReplacementBehaviour.REPLACE :
-                    FileReplacementBehaviour.KEEP_EXISTING;
-        } else {
-            fileReplacementBehaviour = FileReplacementBehaviour.ASK;
+    Set<FileConflict> getConflictsToReplace() {
+        if (getExitCode() != OK_EXIT_CODE) {
+            return Collections.emptySet();
         }
-        return new FileReplacementDecision(fileReplacementBehaviour, replaceExistingFile);
+        Set<FileConflict> conflictsToReplace = new HashSet<>();
+        for (int i = 0; i < conflicts.size(); i++) {
+            if (conflictList.isItemSelected(i)) {
+                conflictsToReplace.add(conflicts.get(i));
+            }
+        }
+        return conflictsToReplace;
+    }
+
+    private void showDiff() {
+        int index = conflictList.getSelectedIndex();
+        if (index < 0) {
+            return;
+        }
+        FileConflict conflict = conflicts.get(index);
+        try {
+            DiffContentFactory diffContentFactory = DiffContentFactory.getInstance();
+            SimpleDiffRequest diffRequest = new SimpleDiffRequest(conflict.file().getFileName().toString(),
+                    diffContentFactory.create(project, read(conflict.file())),
+                    diffContentFactory.create(project, read(conflict.stagedFile())),
+                    "Local Copy", "Jira");
+            DiffManager.getInstance().showDiff(project, diffRequest, DiffDialogHints.MODAL);
+        } catch (IOException e) {
+            Messages.showErrorDialog(project, e.getMessage(), "Show Diff");
+        }
+    }
+
+    private String read(Path file) throws IOException {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
     }
 
     @Nullable
@@ -20,17 +20,20 @@
 package ch.wellernet.intellij.plugins.xraycucumber.ui;
 
 import ch.wellernet.intellij.plugins.xraycucumber.model.ServiceParameters;
+import ch.wellernet.intellij.plugins.xraycucumber.service.ExportCache;
+import ch.wellernet.intellij.plugins.xraycucumber.service.FileChanges;
+import ch.wellernet.intellij.plugins.xraycucumber.service.FileExportCache;
 import ch.wellernet.intellij.plugins.xraycucumber.service.XrayCucumberService;
 import com.intellij.openapi.actionSystem.AnAction;
 import com.intellij.openapi.actionSystem.AnActionEvent;
 import com.intellij.openapi.actionSystem.CommonDataKeys;
+import com.intellij.openapi.application.PathManager;
 import com.intellij.openapi.fileEditor.FileDocumentManager;
 import com.intellij.openapi.progress.ProgressIndicator;
 import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.progress.Task;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.vfs.VirtualFile;
-import org.apache.http.impl.client.HttpClients;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.IOException;
@@ -40,9 +43,13 @@ public class DownloadTestsFromJiraAction extends AnAction {
 
     public static final String TITLE = "Downloading Cucumber Xray Tests from Jira";
 
+    static final ExportCache EXPORT_CACHE =
+            new FileExportCache(Paths.get(PathManager.getSystemPath(), "xray-cucumber", "export-cache.json"));
+
     @Override
     public void actionPerformed(AnActionEvent event) {
         Project project = event.getProject();
+        UiThreadTimer uiThreadTimer = new UiThreadTimer(OperationMetricsService.getInstance());
 
         FileDocumentManager.getInstance().saveAllDocuments();
         VirtualFile serviceParametersFile = event.getData(CommonDataKeys.VIRTUAL_FILE);
@@ -52,32 +59,33 @@ public class DownloadTestsFromJiraAction extends AnAction {
             return;
         }
 
-        ServiceParameters serviceParameters;
-        try {
-            serviceParameters = ServiceParametersUtils.prepareServiceParameters(project, serviceParametersFile);
-        } catch (IOException exception) {
-            NotificationUtils.notifyError(exception.getMessage(), project);
-            return;
-        }
-
-        if(serviceParameters == null) {
-            return;
-        }
-
-        VirtualFile outputDir = serviceParametersFile.getParent();
-
-        downloadXrayCucumberTests(project, outputDir, serviceParameters);
+        downloadXrayCucumberTests(project, serviceParametersFile, uiThreadTimer);
+        uiThreadTimer.stop();
     }
 
-    private void downloadXrayCucumberTests(Project project, VirtualFile outputDir, ServiceParameters serviceParameters) {
+    private void downloadXrayCucumberTests(Project project, VirtualFile serviceParametersFile, UiThreadTimer uiThreadTimer) {
         ProgressManager.getInstance().run(new Task.Backgroundable(project, TITLE) {
             public void run(@NotNull ProgressIndicator progressIndicator) {
-                XrayCucumberService xrayCucumberService = new XrayCucumberService(HttpClients.createDefault());
+                ServiceParameters serviceParameters;
+                try {
+                    serviceParameters = ServiceParametersUtils.prepareServiceParameters(project, serviceParametersFile);
+                } catch (IOException exception) {
+                    NotificationUtils.notifyError(exception.getMessage(), project);
+                    return;
+                }
+                if (serviceParameters == null) {
+                    return;
+                }
+
+                VirtualFile outputDir = serviceParametersFile.getParent();
+                XrayCucumberService xrayCucumberService = new XrayCucumberService(HttpClientService.getInstance().httpClient(), HttpClientService.getInstance().parameters(),
+                        EXPORT_CACHE, uiThreadTimer);
                 ProgressIndicatorAdapter progressReporter = new ProgressIndicatorAdapter(progressIndicator, project);
-                xrayCucumberService.downloadXrayCucumberTests(serviceParameters, Paths.get(outputDir.getPath()), progressReporter);
-                outputDir.refresh(true, true);
+                FileChanges fileChanges = xrayCucumberService.downloadXrayCucumberTests(serviceParameters, Paths.get(outputDir.getPath()),
+                        progressReporter, progressIndicator::isCanceled);
+                VfsRefreshUtils.refresh(fileChanges);
                 if (progressReporter.authenticationFailure() != null) {
-                    ServiceParametersUtils.deleteCredentials(serviceParameters);
+                    ServiceParametersUtils.credentialsRefused(serviceParameters, true);
                     NotificationUtils.notifyError(progressReporter.authenticationFailure() + "<br>Stored credentials have been removed.", project);
                 }
             }
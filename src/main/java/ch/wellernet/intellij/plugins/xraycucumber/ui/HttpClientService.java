@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package ch.wellernet.intellij.plugins.xraycucumber.ui;
+
+import ch.wellernet.intellij.plugins.xraycucumber.model.HttpClientParameters;
+import ch.wellernet.intellij.plugins.xraycucumber.service.PooledHttpClientFactory;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.diagnostic.Logger;
+import org.apache.http.client.HttpClient;
+import org.apache.http.impl.client.CloseableHttpClient;
+
+import java.io.IOException;
+
+/**
+ * Application wide HTTP client, so that all actions share the same connection pool and reuse kept alive connections
+ * to Jira. The pool is shut down when the application is closed or the plugin is unloaded.
+ */
+public class HttpClientService implements Disposable {
+    private static final Logger LOGGER = Logger.getInstance(HttpClientService.class);
+
+    private final HttpClientParameters parameters = HttpClientParameters.DEFAULT;
+    private final CloseableHttpClient httpClient = PooledHttpClientFactory.create(parameters);
+
+    public static HttpClientService getInstance() {
+        return ServiceManager.getService(HttpClientService.class);
+    }
+
+    public HttpClient httpClient() {
+        return httpClient;
+    }
+
+    public HttpClientParameters parameters() {
+        return parameters;
+    }
+
+    @Override
+    public void dispose() {
+        try {
+            httpClient.close();
+        } catch (IOException e) {
+            LOGGER.warn("failed to shut down HTTP connection pool", e);
+        }
+    }
+}
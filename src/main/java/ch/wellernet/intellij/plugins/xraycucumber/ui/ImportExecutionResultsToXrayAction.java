@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package ch.wellernet.intellij.plugins.xraycucumber.ui;
+
+import ch.wellernet.intellij.plugins.xraycucumber.model.ServiceParameters;
+import ch.wellernet.intellij.plugins.xraycucumber.service.XrayCucumberService;
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.CommonDataKeys;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+public class ImportExecutionResultsToXrayAction extends AnAction {
+
+    public static final String TITLE = "Importing Cucumber Results to Xray";
+
+    @Override
+    public void actionPerformed(AnActionEvent event) {
+        final Project project = event.getProject();
+        UiThreadTimer uiThreadTimer = new UiThreadTimer(OperationMetricsService.getInstance());
+
+        FileDocumentManager.getInstance().saveAllDocuments();
+        VirtualFile report = event.getData(CommonDataKeys.VIRTUAL_FILE);
+        if (report == null) {
+            NotificationUtils.notifyError("this action requires a valid cucumber JSON report", project);
+            return;
+        }
+
+        VirtualFile serviceParametersFile = XrayCucumberIndexService.getInstance(project).findServiceParametersFile(report);
+        if (serviceParametersFile == null) {
+            NotificationUtils.notifyError("this action requires a valid " + ServiceParametersUtils.XRAY_CUCUMBER_JSON
+                    + " file in the directory of the report or one of its parents", project);
+            return;
+        }
+
+        ProgressManager.getInstance().run(new Task.Backgroundable(project, TITLE) {
+            public void run(@NotNull ProgressIndicator progressIndicator) {
+                ServiceParameters serviceParameters;
+                try {
+                    serviceParameters = ServiceParametersUtils.prepareServiceParameters(project, serviceParametersFile);
+                } catch (IOException exception) {
+                    NotificationUtils.notifyError(exception.getMessage(), project);
+                    return;
+                }
+                if (serviceParameters == null) {
+                    return;
+                }
+
+                XrayCucumberService xrayCucumberService = new XrayCucumberService(HttpClientService.getInstance().httpClient(), HttpClientService.getInstance().parameters(),
+                        null, uiThreadTimer);
+                ProgressIndicatorAdapter progressReporter = new ProgressIndicatorAdapter(progressIndicator, project);
+                xrayCucumberService.importExecutionResults(serviceParameters, Paths.get(report.getPath()), progressReporter);
+                if (progressReporter.authenticationFailure() != null) {
+                    ServiceParametersUtils.credentialsRefused(serviceParameters, true);
+                    NotificationUtils.notifyError(progressReporter.authenticationFailure() + "<br>Stored credentials have been removed.", project);
+                }
+            }
+        });
+        uiThreadTimer.stop();
+    }
+
+    @Override
+    public void update(AnActionEvent event) {
+        Project project = event.getProject();
+        VirtualFile file = event.getData(CommonDataKeys.VIRTUAL_FILE);
+        // xray-cucumber.json and the manifests are JSON files of this plugin, not reports
+        boolean visible = project != null && file != null && !file.isDirectory() && file.getName().endsWith(".json") && !file.getName().startsWith("xray-cucumber")
+                && XrayCucumberIndexService.getInstance(project).findServiceParametersFile(file) != null;
+        event.getPresentation().setEnabledAndVisible(visible);
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package ch.wellernet.intellij.plugins.xraycucumber.ui;
+
+import ch.wellernet.intellij.plugins.xraycucumber.service.MetricsListener;
+import ch.wellernet.intellij.plugins.xraycucumber.service.OperationMetrics;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.util.Disposer;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Keeps the metrics of the last {@value #MAX_OPERATIONS} downloads and uploads, so that they can be inspected in
+ * the Xray Cucumber tool window.
+ */
+public class OperationMetricsService implements MetricsListener {
+    static final int MAX_OPERATIONS = 20;
+
+    private static final Logger LOGGER = Logger.getInstance(OperationMetricsService.class);
+
+    private final Deque<OperationMetrics> operations = new ArrayDeque<>();
+    private final List<Runnable> changeListeners = new CopyOnWriteArrayList<>();
+
+    public static OperationMetricsService getInstance() {
+        return ServiceManager.getService(OperationMetricsService.class);
+    }
+
+    @Override
+    public void operationCompleted(OperationMetrics metrics) {
+        LOGGER.debug(metrics.toString());
+        synchronized (operations) {
+            operations.addFirst(metrics);
+            while (operations.size() > MAX_OPERATIONS) {
+                operations.removeLast();
+            }
+        }
+        changeListeners.forEach(Runnable::run);
+    }
+
+    /**
+     * @return the metrics of the last operations, most recent first
+     */
+    public List<OperationMetrics> operations() {
+        synchronized (operations) {
+            return new ArrayList<>(operations);
+        }
+    }
+
+    public void addChangeListener(Runnable changeListener, Disposable parentDisposable) {
+        changeListeners.add(changeListener);
+        Disposer.register(parentDisposable, () -> changeListeners.remove(changeListener));
+    }
+}
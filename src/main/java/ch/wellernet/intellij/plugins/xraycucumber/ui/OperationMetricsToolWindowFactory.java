@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package ch.wellernet.intellij.plugins.xraycucumber.ui;
+
+import ch.wellernet.intellij.plugins.xraycucumber.service.OperationMetrics;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.project.DumbAware;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.wm.ToolWindow;
+import com.intellij.openapi.wm.ToolWindowFactory;
+import com.intellij.ui.ScrollPaneFactory;
+import com.intellij.ui.content.Content;
+import com.intellij.ui.content.ContentFactory;
+import com.intellij.ui.table.JBTable;
+import com.intellij.util.ui.ColumnInfo;
+import com.intellij.util.ui.ListTableModel;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Shows the last downloads and uploads with the time spent in each phase, to find out where a slow operation lost
+ * its time.
+ */
+public class OperationMetricsToolWindowFactory implements ToolWindowFactory, DumbAware {
+
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss").withZone(ZoneId.systemDefault());
+
+    @Override
+    public void createToolWindowContent(@NotNull Project project, @NotNull ToolWindow toolWindow) {
+        OperationMetricsService operationMetricsService = OperationMetricsService.getInstance();
+        ListTableModel<OperationMetrics> tableModel = new ListTableModel<>(columns());
+        tableModel.setItems(operationMetricsService.operations());
+        Content content = ContentFactory.SERVICE.getInstance()
+                .createContent(ScrollPaneFactory.createScrollPane(new JBTable(tableModel)), "", false);
+        toolWindow.getContentManager().addContent(content);
+        operationMetricsService.addChangeListener(() -> ApplicationManager.getApplication()
+                .invokeLater(() -> tableModel.setItems(operationMetricsService.operations())), content);
+    }
+
+    @SuppressWarnings("unchecked")
+    private ColumnInfo<OperationMetrics, Object>[] columns() {
+        List<ColumnInfo<OperationMetrics, Object>> columns = new ArrayList<>();
+        columns.add(column("Started", metrics -> TIME_FORMAT.format(metrics.startedAt())));
+        columns.add(column("Operation", OperationMetrics::operation));
+        columns.add(column("Outcome", metrics -> (metrics.failed() ? "failed: " : "") + metrics.outcome()));
+        columns.add(column("Total (ms)", OperationMetrics::elapsedMillis));
+        for (OperationMetrics.Phase phase : OperationMetrics.Phase.values()) {
+            columns.add(column(phase.label() + " (ms)", metrics -> metrics.phaseMillis(phase)));
+        }
+        columns.add(column("Received (KB)", metrics -> metrics.bytesReceived() / 1024));
+        columns.add(column("Sent (KB)", metrics -> metrics.bytesSent() / 1024));
+        columns.add(column("Written (KB)", metrics -> metrics.bytesWritten() / 1024));
+        columns.add(column("Entries", OperationMetrics::entries));
+        columns.add(column("Retries", OperationMetrics::retries));
+        return columns.toArray(new ColumnInfo[0]);
+    }
+
+    private ColumnInfo<OperationMetrics, Object> column(String name, Function<OperationMetrics, Object> valueFunction) {
+        return new ColumnInfo<OperationMetrics, Object>(name) {
+            @Nullable
+            @Override
+            public Object valueOf(OperationMetrics metrics) {
+                return valueFunction.apply(metrics);
+            }
+        };
+    }
+}
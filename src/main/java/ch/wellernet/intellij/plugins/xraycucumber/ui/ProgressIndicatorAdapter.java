@@ -19,7 +19,7 @@
 
 package ch.wellernet.intellij.plugins.xraycucumber.ui;
 
-import ch.wellernet.intellij.plugins.xraycucumber.model.FileReplacementDecision;
+import ch.wellernet.intellij.plugins.xraycucumber.model.FileConflict;
 import ch.wellernet.intellij.plugins.xraycucumber.service.ProgressReporter;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.progress.ProgressIndicator;
@@ -28,7 +28,9 @@ import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.Accessors;
 
-import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.atomic.AtomicReference;
 
 @RequiredArgsConstructor
@@ -44,7 +46,10 @@ public class ProgressIndicatorAdapter implements ProgressReporter {
     @Override
     public void reportProgress(String message, double completionRatio) {
         progressIndicator.setText(message);
-        progressIndicator.setFraction(completionRatio);
+        progressIndicator.setIndeterminate(completionRatio == INDETERMINATE);
+        if (completionRatio != INDETERMINATE) {
+            progressIndicator.setFraction(completionRatio);
+        }
     }
 
     @Override
@@ -59,17 +64,23 @@ public class ProgressIndicatorAdapter implements ProgressReporter {
 
     @Override
     public void reportError(String message, Exception exception) {
+        // the user canceled on purpose, so there is no need for a sticky error
+        if (exception instanceof CancellationException) {
+            NotificationUtils.notifySuccess(message, project);
+            return;
+        }
         NotificationUtils.notifyError(message, project);
     }
 
     @Override
-    public FileReplacementDecision askToReplaceExistingFile(Path file) {
-        AtomicReference<FileReplacementDecision> fileReplacementDecision = new AtomicReference<>();
+    public Set<FileConflict> askToReplaceExistingFiles(List<FileConflict> conflicts) {
+        AtomicReference<Set<FileConflict>> conflictsToReplace = new AtomicReference<>();
+        progressIndicator.setText("waiting for decision about " + conflicts.size() + " locally modified files");
         ApplicationManager.getApplication().invokeAndWait(() -> {
-            ConfirmFileReplacementDialog confirmFileReplacementDialog = new ConfirmFileReplacementDialog(project, file);
+            ConfirmFileReplacementDialog confirmFileReplacementDialog = new ConfirmFileReplacementDialog(project, conflicts);
             confirmFileReplacementDialog.show();
-            fileReplacementDecision.set(confirmFileReplacementDialog.getFileReplacementDecision());
+            conflictsToReplace.set(confirmFileReplacementDialog.getConflictsToReplace());
         });
-        return fileReplacementDecision.get();
+        return conflictsToReplace.get();
     }
 }
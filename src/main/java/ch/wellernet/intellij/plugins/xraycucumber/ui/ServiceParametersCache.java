@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package ch.wellernet.intellij.plugins.xraycucumber.ui;
+
+import ch.wellernet.intellij.plugins.xraycucumber.model.ServiceParameters;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.VFileEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileMoveEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFilePropertyChangeEvent;
+import lombok.Value;
+import lombok.experimental.Accessors;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the parsed xray-cucumber.json files of a project, so that they are only parsed again after they have been
+ * changed. Entries are dropped as soon as the virtual file system reports a change of the file, and are additionally
+ * checked against the modification stamp of the file, so that a parse racing with a change never wins.
+ */
+public class ServiceParametersCache implements Disposable {
+    private final Map<String, CachedServiceParameters> cache = new ConcurrentHashMap<>();
+
+    public ServiceParametersCache(Project project) {
+        project.getMessageBus().connect(this).subscribe(VirtualFileManager.VFS_CHANGES, new BulkFileListener() {
+            @Override
+            public void after(@NotNull List<? extends VFileEvent> events) {
+                events.forEach(ServiceParametersCache.this::invalidate);
+            }
+        });
+    }
+
+    public static ServiceParametersCache getInstance(Project project) {
+        return ServiceManager.getService(project, ServiceParametersCache.class);
+    }
+
+    /**
+     * @return the parameters of the given xray-cucumber.json file, without credentials from the password store
+     */
+    ServiceParameters load(VirtualFile serviceParametersFile) throws IOException {
+        long modificationStamp = serviceParametersFile.getModificationStamp();
+        CachedServiceParameters cached = cache.get(serviceParametersFile.getPath());
+        if (cached != null && cached.modificationStamp() == modificationStamp) {
+            return cached.serviceParameters();
+        }
+        ServiceParameters serviceParameters = ServiceParametersUtils.load(serviceParametersFile);
+        cache.put(serviceParametersFile.getPath(), new CachedServiceParameters(modificationStamp, serviceParameters));
+        return serviceParameters;
+    }
+
+    @Override
+    public void dispose() {
+        cache.clear();
+    }
+
+    private void invalidate(VFileEvent event) {
+        invalidate(event.getPath());
+        if (event instanceof VFileMoveEvent) {
+            invalidate(((VFileMoveEvent) event).getOldPath());
+        } else if (event instanceof VFilePropertyChangeEvent) {
+            invalidate(((VFilePropertyChangeEvent) event).getOldPath());
+        }
+    }
+
+    /**
+     * Drops the given file, respectively all files below the given directory.
+     */
+    private void invalidate(String path) {
+        cache.keySet().removeIf(cachedPath -> cachedPath.equals(path) || cachedPath.startsWith(path + "/"));
+    }
+
+    @Value
+    @Accessors(fluent = true)
+    private static class CachedServiceParameters {
+        long modificationStamp;
+        ServiceParameters serviceParameters;
+    }
+}
@@ -20,45 +20,104 @@
 package ch.wellernet.intellij.plugins.xraycucumber.ui;
 
 import ch.wellernet.intellij.plugins.xraycucumber.model.ServiceParameters;
-import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import ch.wellernet.intellij.plugins.xraycucumber.service.ServiceParametersParser;
 import com.intellij.credentialStore.CredentialAttributes;
 import com.intellij.credentialStore.CredentialAttributesKt;
 import com.intellij.credentialStore.Credentials;
 import com.intellij.ide.passwordSafe.PasswordSafe;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.application.ReadAction;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.vfs.VirtualFile;
+import lombok.Value;
+import lombok.experimental.Accessors;
 import lombok.experimental.UtilityClass;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 @UtilityClass
 public class ServiceParametersUtils {
     final String XRAY_CUCUMBER_JSON = "xray-cucumber.json";
 
+    /**
+     * Credentials looked up in the password store are reused for this time, so that slow password stores are not
+     * queried on every action, while changes made outside of this plugin are still picked up eventually. Credentials
+     * refused by Jira are looked up again right away, see {@link #credentialsRefused(ServiceParameters, boolean)}.
+     */
+    private final long CREDENTIALS_TIME_TO_LIVE_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    private final Map<String, CachedCredentials> CREDENTIALS = new ConcurrentHashMap<>();
+
+    /**
+     * Must not be called on the UI thread, as both parsing the file and querying the password store may be slow. Only
+     * if there are no credentials, the user is asked for them on the UI thread.
+     *
+     * @return the parameters completed with the credentials, or <code>null</code> if the user canceled
+     */
+    @Nullable
     ServiceParameters prepareServiceParameters(Project project, VirtualFile serviceParametersFile) throws IOException {
-        ServiceParameters serviceParameters = load(serviceParametersFile);
+        ServiceParameters serviceParameters = ServiceParametersCache.getInstance(project).load(serviceParametersFile);
         serviceParameters = ServiceParametersUtils.retrieveCredentialsFromStoreIfUndefined(serviceParameters);
-        if (serviceParameters.username() == null || serviceParameters.password() == null) {
+        if (!serviceParameters.hasCredentials()) {
             serviceParameters = requestJiraCredentialsFormUser(project, serviceParameters);
         }
         return serviceParameters;
     }
 
-    private ServiceParameters load(VirtualFile serviceParametersFile) throws IOException {
-        try (InputStream inputStream = serviceParametersFile.getInputStream()) {
-            ObjectMapper objectMapper = new ObjectMapper()
-                    .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
-                    .configure(DeserializationFeature.READ_UNKNOWN_ENUM_VALUES_USING_DEFAULT_VALUE, true);
-            return objectMapper.readValue(inputStream, ServiceParameters.class);
+    /**
+     * @return the parameters completed with the credentials from the password store, or nothing if there are no
+     * credentials, as operations running in the background must not ask the user
+     */
+    Optional<ServiceParameters> prepareServiceParametersWithoutAsking(Project project, VirtualFile serviceParametersFile) throws IOException {
+        ServiceParameters serviceParameters = ServiceParametersUtils.retrieveCredentialsFromStoreIfUndefined(
+                ServiceParametersCache.getInstance(project).load(serviceParametersFile));
+        if (!serviceParameters.hasCredentials()) {
+            return Optional.empty();
+        }
+        return Optional.of(serviceParameters);
+    }
+
+    /**
+     * @return the xray-cucumber.json file located in the given directory (respectively in directory of given file) or
+     * in the nearest parent directory
+     */
+    @Nullable
+    VirtualFile findServiceParametersFile(VirtualFile fileOrDirectory) {
+        VirtualFile directory = fileOrDirectory.isDirectory() ? fileOrDirectory : fileOrDirectory.getParent();
+        while (directory != null) {
+            VirtualFile serviceParametersFile = directory.findChild(XRAY_CUCUMBER_JSON);
+            if (serviceParametersFile != null) {
+                return serviceParametersFile;
+            }
+            directory = directory.getParent();
         }
+        return null;
+    }
+
+    ServiceParameters load(VirtualFile serviceParametersFile) throws IOException {
+        return ReadAction.compute(() -> {
+            try (InputStream inputStream = serviceParametersFile.getInputStream()) {
+                return ServiceParametersParser.parse(inputStream);
+            }
+        });
     }
 
     private ServiceParameters retrieveCredentialsFromStoreIfUndefined(ServiceParameters serviceParameters) {
-        return Optional.ofNullable(PasswordSafe.getInstance().get(createCredentialAttributes(serviceParameters.url())))
+        if (serviceParameters.hasCredentials()) {
+            return serviceParameters;
+        }
+        return retrieveCredentialsFromStore(createCredentialAttributes(serviceParameters.url()))
                 .map(c -> serviceParameters.toBuilder()
                         .username(serviceParameters.username() == null ? c.getUserName() : serviceParameters.username())
                         .password(serviceParameters.password() == null ? c.getPasswordAsString() : serviceParameters.password())
@@ -66,27 +125,69 @@ public class ServiceParametersUtils {
                 .orElse(serviceParameters);
     }
 
+    private Optional<Credentials> retrieveCredentialsFromStore(CredentialAttributes credentialAttributes) {
+        CachedCredentials cached = CREDENTIALS.get(credentialAttributes.getServiceName());
+        if (cached == null || cached.expiresAt() < System.currentTimeMillis()) {
+            cached = new CachedCredentials(Optional.ofNullable(PasswordSafe.getInstance().get(credentialAttributes)),
+                    System.currentTimeMillis() + CREDENTIALS_TIME_TO_LIVE_MILLIS);
+            CREDENTIALS.put(credentialAttributes.getServiceName(), cached);
+        }
+        return cached.credentials();
+    }
+
+    @Nullable
     private ServiceParameters requestJiraCredentialsFormUser(Project project, ServiceParameters serviceParameters) {
-        JiraCredentialsDialog jiraCredentialsDialog = new JiraCredentialsDialog(project, serviceParameters);
-        if (jiraCredentialsDialog.showAndGet()) {
-            serviceParameters = jiraCredentialsDialog.getUpdatedServiceParameters();
-            if (jiraCredentialsDialog.storeCredentials()) {
-                ServiceParametersUtils.storeCredentials(serviceParameters);
-            } else {
-                ServiceParametersUtils.deleteCredentials(serviceParameters);
+        AtomicReference<ServiceParameters> updatedServiceParameters = new AtomicReference<>();
+        AtomicBoolean storeCredentials = new AtomicBoolean();
+        ApplicationManager.getApplication().invokeAndWait(() -> {
+            JiraCredentialsDialog jiraCredentialsDialog = new JiraCredentialsDialog(project, serviceParameters);
+            if (jiraCredentialsDialog.showAndGet()) {
+                updatedServiceParameters.set(jiraCredentialsDialog.getUpdatedServiceParameters());
+                storeCredentials.set(jiraCredentialsDialog.storeCredentials());
             }
-            return serviceParameters;
+        }, ModalityState.defaultModalityState());
+        if (updatedServiceParameters.get() == null) {
+            return null;
         }
-        return null;
+        if (storeCredentials.get()) {
+            ServiceParametersUtils.storeCredentials(updatedServiceParameters.get());
+        } else {
+            ServiceParametersUtils.deleteCredentials(updatedServiceParameters.get());
+        }
+        return updatedServiceParameters.get();
     }
 
     void storeCredentials(ServiceParameters serviceParameters) {
         Credentials credentials = new Credentials(serviceParameters.username(), serviceParameters.password());
-        PasswordSafe.getInstance().set(createCredentialAttributes(serviceParameters.url()), credentials);
+        CredentialAttributes credentialAttributes = createCredentialAttributes(serviceParameters.url());
+        PasswordSafe.getInstance().set(credentialAttributes, credentials);
+        CREDENTIALS.remove(credentialAttributes.getServiceName());
     }
 
     void deleteCredentials(ServiceParameters serviceParameters) {
-        PasswordSafe.getInstance().set(createCredentialAttributes(serviceParameters.url()), null);
+        CredentialAttributes credentialAttributes = createCredentialAttributes(serviceParameters.url());
+        PasswordSafe.getInstance().set(credentialAttributes, null);
+        CREDENTIALS.remove(credentialAttributes.getServiceName());
+    }
+
+    /**
+     * Forgets the cached credentials of the Jira instance after it refused them, as they may have been changed in the
+     * password store meanwhile.
+     *
+     * @param deleteStored whether to delete the credentials from the password store as well, which is only done if
+     *                     they are still the refused ones
+     */
+    void credentialsRefused(ServiceParameters serviceParameters, boolean deleteStored) {
+        CredentialAttributes credentialAttributes = createCredentialAttributes(serviceParameters.url());
+        CREDENTIALS.remove(credentialAttributes.getServiceName());
+        if (!deleteStored) {
+            return;
+        }
+        Credentials storedCredentials = PasswordSafe.getInstance().get(credentialAttributes);
+        if (storedCredentials != null && Objects.equals(storedCredentials.getUserName(), serviceParameters.username())
+                && Objects.equals(storedCredentials.getPasswordAsString(), serviceParameters.password())) {
+            PasswordSafe.getInstance().set(credentialAttributes, null);
+        }
     }
 
     boolean storeByDefault() {
@@ -96,4 +197,11 @@ public class ServiceParametersUtils {
     private CredentialAttributes createCredentialAttributes(URL jiraUrl) {
         return new CredentialAttributes(CredentialAttributesKt.generateServiceName("Jira", jiraUrl.toExternalForm()));
     }
+
+    @Value
+    @Accessors(fluent = true)
+    private static class CachedCredentials {
+        Optional<Credentials> credentials;
+        long expiresAt;
+    }
 }
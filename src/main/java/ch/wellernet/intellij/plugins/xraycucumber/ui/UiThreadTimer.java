@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package ch.wellernet.intellij.plugins.xraycucumber.ui;
+
+import ch.wellernet.intellij.plugins.xraycucumber.service.MetricsListener;
+import ch.wellernet.intellij.plugins.xraycucumber.service.OperationMetrics;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Measures how long an action blocks the UI thread before it hands over to a background task, and adds this time to
+ * the metrics of the first operation completed by that task. As the task may complete before the action returns, the
+ * time is added by whichever of both happens last.
+ */
+@RequiredArgsConstructor
+class UiThreadTimer implements MetricsListener {
+    private static final long RUNNING = -1;
+
+    private final MetricsListener delegate;
+    private final long startNanos = System.nanoTime();
+    private long uiThreadNanos = RUNNING;
+    private OperationMetrics firstCompleted;
+
+    /**
+     * To be called when the action returns control to the UI thread.
+     */
+    synchronized void stop() {
+        if (uiThreadNanos != RUNNING) {
+            return;
+        }
+        uiThreadNanos = System.nanoTime() - startNanos;
+        if (firstCompleted != null) {
+            firstCompleted.uiThreadTime(uiThreadNanos);
+        }
+    }
+
+    @Override
+    public void operationCompleted(OperationMetrics metrics) {
+        synchronized (this) {
+            if (firstCompleted == null) {
+                firstCompleted = metrics;
+                if (uiThreadNanos != RUNNING) {
+                    metrics.uiThreadTime(uiThreadNanos);
+                }
+            }
+        }
+        delegate.operationCompleted(metrics);
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package ch.wellernet.intellij.plugins.xraycucumber.ui;
+
+import ch.wellernet.intellij.plugins.xraycucumber.model.ServiceParameters;
+import ch.wellernet.intellij.plugins.xraycucumber.service.FileChanges;
+import ch.wellernet.intellij.plugins.xraycucumber.service.ProgressReporter;
+import ch.wellernet.intellij.plugins.xraycucumber.service.XrayCucumberService;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Uploads only those of the selected feature files (respectively feature files within selected directories) whose
+ * content changed since they were last downloaded or uploaded.
+ */
+public class UploadChangedTestsToJiraAction extends UploadTestsToJiraAction {
+
+    public static final String TITLE = "Uploading Changed Cucumber Tests to Jira";
+
+    @Override
+    String title() {
+        return TITLE;
+    }
+
+    @Override
+    FileChanges upload(XrayCucumberService xrayCucumberService, ServiceParameters serviceParameters, List<Path> featureFiles, ProgressReporter progressReporter) {
+        return xrayCucumberService.uploadChangedXrayCucumberTests(serviceParameters, featureFiles, progressReporter);
+    }
+}
@@ -20,6 +20,7 @@
 package ch.wellernet.intellij.plugins.xraycucumber.ui;
 
 import ch.wellernet.intellij.plugins.xraycucumber.model.ServiceParameters;
+import ch.wellernet.intellij.plugins.xraycucumber.service.FileChanges;
 import ch.wellernet.intellij.plugins.xraycucumber.service.XrayCucumberService;
 import com.intellij.openapi.actionSystem.AnAction;
 import com.intellij.openapi.actionSystem.AnActionEvent;
@@ -30,7 +31,6 @@ import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.progress.Task;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.vfs.VirtualFile;
-import org.apache.http.impl.client.HttpClients;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.IOException;
@@ -43,6 +43,7 @@ public class UploadTestToJiraAction extends AnAction {
     @Override
     public void actionPerformed(AnActionEvent event) {
         final Project project = event.getProject();
+        UiThreadTimer uiThreadTimer = new UiThreadTimer(OperationMetricsService.getInstance());
 
         FileDocumentManager.getInstance().saveAllDocuments();
         VirtualFile featureFile = event.getData(CommonDataKeys.VIRTUAL_FILE);
@@ -51,32 +52,38 @@ public class UploadTestToJiraAction extends AnAction {
             return;
         }
 
-        VirtualFile serviceParametersFile = featureFile.findFileByRelativePath("../" + ServiceParametersUtils.XRAY_CUCUMBER_JSON);
+        VirtualFile serviceParametersFile = XrayCucumberIndexService.getInstance(project).findServiceParametersFile(featureFile);
         if (serviceParametersFile == null) {
             NotificationUtils.notifyError("this action requires a valid " + ServiceParametersUtils.XRAY_CUCUMBER_JSON
-                    + " file located in same directory as feature file", project);
-            return;
-        }
-
-        ServiceParameters serviceParameters;
-        try {
-            serviceParameters = ServiceParametersUtils.prepareServiceParameters(project, serviceParametersFile);
-        } catch (IOException exception) {
-            NotificationUtils.notifyError(exception.getMessage(), project);
-            return;
-        }
-
-        if (serviceParameters == null) {
+                    + " file downloading into the directory of the feature file or one of its parents", project);
             return;
         }
 
         ProgressManager.getInstance().run(new Task.Backgroundable(project, TITLE) {
             public void run(@NotNull ProgressIndicator progressIndicator) {
-                XrayCucumberService xrayCucumberService = new XrayCucumberService(HttpClients.createDefault());
+                ServiceParameters serviceParameters;
+                try {
+                    serviceParameters = ServiceParametersUtils.prepareServiceParameters(project, serviceParametersFile);
+                } catch (IOException exception) {
+                    NotificationUtils.notifyError(exception.getMessage(), project);
+                    return;
+                }
+                if (serviceParameters == null) {
+                    return;
+                }
+
+                XrayCucumberService xrayCucumberService = new XrayCucumberService(HttpClientService.getInstance().httpClient(), HttpClientService.getInstance().parameters(),
+                        null, uiThreadTimer);
                 ProgressIndicatorAdapter progressReporter = new ProgressIndicatorAdapter(progressIndicator, project);
-                xrayCucumberService.uploadXrayCucumberTest(serviceParameters, Paths.get(featureFile.getPath()), progressReporter);
+                FileChanges fileChanges = xrayCucumberService.uploadXrayCucumberTest(serviceParameters, Paths.get(featureFile.getPath()), progressReporter);
+                VfsRefreshUtils.refresh(fileChanges);
+                if (progressReporter.authenticationFailure() != null) {
+                    ServiceParametersUtils.credentialsRefused(serviceParameters, true);
+                    NotificationUtils.notifyError(progressReporter.authenticationFailure() + "<br>Stored credentials have been removed.", project);
+                }
             }
         });
+        uiThreadTimer.stop();
     }
 
     @Override
@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package ch.wellernet.intellij.plugins.xraycucumber.ui;
+
+import ch.wellernet.intellij.plugins.xraycucumber.model.ServiceParameters;
+import ch.wellernet.intellij.plugins.xraycucumber.service.FileChanges;
+import ch.wellernet.intellij.plugins.xraycucumber.service.ProgressReporter;
+import ch.wellernet.intellij.plugins.xraycucumber.service.XrayCucumberService;
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.CommonDataKeys;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Uploads several selected feature files or all feature files within selected directories at once. Files are grouped
+ * by the xray-cucumber.json file they belong to.
+ */
+public class UploadTestsToJiraAction extends AnAction {
+
+    public static final String TITLE = "Uploading Cucumber Tests to Jira";
+
+    @Override
+    public void actionPerformed(AnActionEvent event) {
+        final Project project = event.getProject();
+        UiThreadTimer uiThreadTimer = new UiThreadTimer(OperationMetricsService.getInstance());
+
+        FileDocumentManager.getInstance().saveAllDocuments();
+        VirtualFile[] selectedFiles = event.getData(CommonDataKeys.VIRTUAL_FILE_ARRAY);
+        if (selectedFiles == null || selectedFiles.length == 0) {
+            NotificationUtils.notifyError("this action requires feature files or directories containing feature files", project);
+            return;
+        }
+
+        XrayCucumberIndexService indexService = XrayCucumberIndexService.getInstance(project);
+        Map<VirtualFile, List<Path>> featureFilesByServiceParametersFile = new LinkedHashMap<>();
+        for (VirtualFile selectedFile : selectedFiles) {
+            VirtualFile serviceParametersFile = indexService.findServiceParametersFile(selectedFile);
+            if (serviceParametersFile == null) {
+                NotificationUtils.notifyError("this action requires a valid " + ServiceParametersUtils.XRAY_CUCUMBER_JSON
+                        + " file downloading into the directory or a parent directory of " + selectedFile.getName(), project);
+                return;
+            }
+            featureFilesByServiceParametersFile
+                    .computeIfAbsent(serviceParametersFile, file -> new ArrayList<>())
+                    .add(Paths.get(selectedFile.getPath()));
+        }
+
+        ProgressManager.getInstance().run(new Task.Backgroundable(project, title()) {
+            public void run(@NotNull ProgressIndicator progressIndicator) {
+                // keyed by file, as parameters are compared by URL, which resolves the host name
+                Map<VirtualFile, ServiceParameters> serviceParametersByFile = new LinkedHashMap<>();
+                for (VirtualFile serviceParametersFile : featureFilesByServiceParametersFile.keySet()) {
+                    ServiceParameters serviceParameters;
+                    try {
+                        serviceParameters = ServiceParametersUtils.prepareServiceParameters(project, serviceParametersFile);
+                    } catch (IOException exception) {
+                        NotificationUtils.notifyError(exception.getMessage(), project);
+                        return;
+                    }
+                    if (serviceParameters == null) {
+                        return;
+                    }
+                    serviceParametersByFile.put(serviceParametersFile, serviceParameters);
+                }
+
+                XrayCucumberService xrayCucumberService = new XrayCucumberService(HttpClientService.getInstance().httpClient(), HttpClientService.getInstance().parameters(),
+                        null, uiThreadTimer);
+                featureFilesByServiceParametersFile.forEach((serviceParametersFile, featureFiles) -> {
+                    ServiceParameters serviceParameters = serviceParametersByFile.get(serviceParametersFile);
+                    ProgressIndicatorAdapter progressReporter = new ProgressIndicatorAdapter(progressIndicator, project);
+                    FileChanges fileChanges = upload(xrayCucumberService, serviceParameters, featureFiles, progressReporter);
+                    VfsRefreshUtils.refresh(fileChanges);
+                    if (progressReporter.authenticationFailure() != null) {
+                        ServiceParametersUtils.credentialsRefused(serviceParameters, true);
+                        NotificationUtils.notifyError(progressReporter.authenticationFailure() + "<br>Stored credentials have been removed.", project);
+                    }
+                });
+            }
+        });
+        uiThreadTimer.stop();
+    }
+
+    String title() {
+        return TITLE;
+    }
+
+    FileChanges upload(XrayCucumberService xrayCucumberService, ServiceParameters serviceParameters, List<Path> featureFiles, ProgressReporter progressReporter) {
+        return xrayCucumberService.uploadXrayCucumberTests(serviceParameters, featureFiles, progressReporter);
+    }
+
+    @Override
+    public void update(AnActionEvent event) {
+        VirtualFile[] files = event.getData(CommonDataKeys.VIRTUAL_FILE_ARRAY);
+        boolean visible = files != null && (files.length > 1 || files.length == 1 && files[0].isDirectory());
+        if (visible) {
+            for (VirtualFile file : files) {
+                visible &= file.isDirectory() || file.getName().endsWith(".feature");
+            }
+        }
+        event.getPresentation().setEnabledAndVisible(visible);
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package ch.wellernet.intellij.plugins.xraycucumber.ui;
+
+import ch.wellernet.intellij.plugins.xraycucumber.service.FileChanges;
+import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.vfs.VirtualFile;
+import lombok.experimental.UtilityClass;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@UtilityClass
+class VfsRefreshUtils {
+    /**
+     * Makes the virtual file system aware of the given changes by refreshing only the changed files, rather than the
+     * whole output directory, so that the refresh and the indexing following it scale with the number of changed
+     * files. Created files are unknown to the virtual file system, so the directories containing them are refreshed
+     * instead, which are few compared to the files. Must not be called on the UI thread, as these directories are
+     * looked up synchronously.
+     */
+    void refresh(FileChanges fileChanges) {
+        if (fileChanges.isEmpty()) {
+            return;
+        }
+        LocalFileSystem localFileSystem = LocalFileSystem.getInstance();
+        Set<File> createdFileDirectories = fileChanges.created().stream()
+                .map(file -> file.getParent().toFile())
+                .collect(Collectors.toSet());
+        localFileSystem.refreshIoFiles(createdFileDirectories, true, false, null);
+        List<VirtualFile> knownFiles = new ArrayList<>();
+        for (Path file : fileChanges.modified()) {
+            Optional.ofNullable(localFileSystem.findFileByIoFile(file.toFile())).ifPresent(knownFiles::add);
+        }
+        for (Path file : fileChanges.deleted()) {
+            Optional.ofNullable(localFileSystem.findFileByIoFile(file.toFile())).ifPresent(knownFiles::add);
+        }
+        localFileSystem.refreshFiles(knownFiles, true, false, null);
+    }
+}
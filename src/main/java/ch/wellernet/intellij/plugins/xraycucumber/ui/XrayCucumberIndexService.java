@@ -0,0 +1,231 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package ch.wellernet.intellij.plugins.xraycucumber.ui;
+
+import ch.wellernet.intellij.plugins.xraycucumber.service.XrayCucumberIndex;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectFileIndex;
+import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.VirtualFileVisitor;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.VFileCopyEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileDeleteEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileMoveEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFilePropertyChangeEvent;
+import com.intellij.psi.search.FilenameIndex;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.concurrency.SequentialTaskExecutor;
+import org.jetbrains.annotations.NotNull;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the {@link XrayCucumberIndex} of a project up to date. It is built once the project is indexed by IntelliJ,
+ * using the file name index, and then updated for every change of a config or feature file reported by the virtual
+ * file system. Updates are applied one after the other on a pooled thread, so that the EDT is not blocked.
+ */
+public class XrayCucumberIndexService implements Disposable {
+    private static final Logger LOGGER = Logger.getInstance(XrayCucumberIndexService.class);
+
+    private static final String FEATURE_FILE_EXTENSION = "feature";
+
+    private final Project project;
+    private final XrayCucumberIndex index = new XrayCucumberIndex();
+    private final ExecutorService updater = SequentialTaskExecutor.createSequentialApplicationPoolExecutor("Xray Cucumber Index");
+    private volatile boolean ready;
+    private volatile boolean disposed;
+
+    public XrayCucumberIndexService(Project project) {
+        this.project = project;
+        project.getMessageBus().connect(this).subscribe(VirtualFileManager.VFS_CHANGES, new BulkFileListener() {
+            @Override
+            public void after(@NotNull List<? extends VFileEvent> events) {
+                update(events);
+            }
+        });
+        updater.execute(this::build);
+    }
+
+    public static XrayCucumberIndexService getInstance(Project project) {
+        return ServiceManager.getService(project, XrayCucumberIndexService.class);
+    }
+
+    /**
+     * @return the xray-cucumber.json file owning the given feature file or directory, which is looked up by walking
+     * up the parent directories while the index is not ready yet
+     */
+    @Nullable
+    VirtualFile findServiceParametersFile(VirtualFile fileOrDirectory) {
+        if (!ready) {
+            return ServiceParametersUtils.findServiceParametersFile(fileOrDirectory);
+        }
+        Path path = Paths.get(fileOrDirectory.getPath());
+        return (fileOrDirectory.isDirectory() ? index.findConfigOfDirectory(path) : index.findConfig(path))
+                .map(this::findFile)
+                .orElse(null);
+    }
+
+    /**
+     * @return all xray-cucumber.json files of the project, none while the index is not ready yet
+     */
+    List<VirtualFile> findServiceParametersFiles() {
+        if (!ready) {
+            return new ArrayList<>();
+        }
+        return index.configs().stream().map(this::findFile).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    @Override
+    public void dispose() {
+        disposed = true;
+        updater.shutdownNow();
+    }
+
+    private void build() {
+        Collection<VirtualFile> files = DumbService.getInstance(project).runReadActionInSmartMode(() -> {
+            if (project.isDisposed()) {
+                return new ArrayList<VirtualFile>();
+            }
+            GlobalSearchScope projectScope = GlobalSearchScope.projectScope(project);
+            List<VirtualFile> indexedFiles = new ArrayList<>(FilenameIndex.getVirtualFilesByName(project, ServiceParametersUtils.XRAY_CUCUMBER_JSON, projectScope));
+            indexedFiles.addAll(FilenameIndex.getAllFilesByExt(project, FEATURE_FILE_EXTENSION, projectScope));
+            return indexedFiles;
+        });
+        files.forEach(this::add);
+        ready = true;
+    }
+
+    private void update(List<? extends VFileEvent> events) {
+        List<String> removedPaths = new ArrayList<>();
+        List<VirtualFile> addedFiles = new ArrayList<>();
+        for (VFileEvent event : events) {
+            VirtualFile file = event instanceof VFileCopyEvent ?
+                    ((VFileCopyEvent) event).getNewParent().findChild(((VFileCopyEvent) event).getNewChildName()) :
+                    event.getFile();
+            if (file == null) {
+                continue;
+            }
+            if (event instanceof VFileMoveEvent) {
+                addRelevant(((VFileMoveEvent) event).getOldPath(), file, removedPaths, addedFiles);
+            } else if (event instanceof VFilePropertyChangeEvent) {
+                if (((VFilePropertyChangeEvent) event).isRename()) {
+                    addRelevant(((VFilePropertyChangeEvent) event).getOldPath(), file, removedPaths, addedFiles);
+                }
+            } else if (event instanceof VFileDeleteEvent) {
+                if (file.isDirectory() || isRelevant(file.getName())) {
+                    removedPaths.add(event.getPath());
+                }
+            } else {
+                // creation, copy or change of content
+                addRelevant(null, file, removedPaths, addedFiles);
+            }
+        }
+        if (disposed || removedPaths.isEmpty() && addedFiles.isEmpty()) {
+            return;
+        }
+        updater.execute(() -> {
+            removedPaths.stream().map(Paths::get).forEach(index::removeAll);
+            addedFiles.stream().filter(Objects::nonNull).forEach(this::addRecursively);
+        });
+    }
+
+    /**
+     * Collects the given removed path and added file if they may affect the index, i.e. all directories (as they may
+     * contain configs or feature files), configs and feature files.
+     */
+    private void addRelevant(@Nullable String removedPath, @Nullable VirtualFile addedFile, List<String> removedPaths, List<VirtualFile> addedFiles) {
+        boolean directory = addedFile != null && addedFile.isDirectory();
+        if (removedPath != null && (directory || isRelevant(Paths.get(removedPath).getFileName().toString()))) {
+            removedPaths.add(removedPath);
+        }
+        if (addedFile != null && (directory || isRelevant(addedFile.getName()))) {
+            addedFiles.add(addedFile);
+        }
+    }
+
+    private boolean isRelevant(String fileName) {
+        return fileName.equals(ServiceParametersUtils.XRAY_CUCUMBER_JSON) || fileName.endsWith("." + FEATURE_FILE_EXTENSION);
+    }
+
+    private void addRecursively(VirtualFile file) {
+        if (!file.isDirectory()) {
+            add(file);
+            return;
+        }
+        VfsUtilCore.visitChildrenRecursively(file, new VirtualFileVisitor<Void>() {
+            @Override
+            public boolean visitFile(@NotNull VirtualFile child) {
+                if (!child.isDirectory()) {
+                    add(child);
+                }
+                return !disposed;
+            }
+        });
+    }
+
+    private void add(VirtualFile file) {
+        boolean isConfig = file.getName().equals(ServiceParametersUtils.XRAY_CUCUMBER_JSON);
+        boolean isFeatureFile = FEATURE_FILE_EXTENSION.equals(file.getExtension());
+        if (!isConfig && !isFeatureFile) {
+            return;
+        }
+        Path path = Paths.get(file.getPath());
+        boolean inContent = ReadAction.compute(() -> file.isValid() && !project.isDisposed() && ProjectFileIndex.getInstance(project).isInContent(file));
+        if (!inContent) {
+            index.removeConfig(path);
+            index.removeFeatureFile(path);
+            return;
+        }
+        try {
+            if (isConfig) {
+                index.putConfig(path, ServiceParametersUtils.load(file));
+            } else {
+                index.putFeatureFile(path, VfsUtilCore.loadText(file));
+            }
+        } catch (IOException e) {
+            LOGGER.debug("failed to index " + path, e);
+            index.removeConfig(path);
+            index.removeFeatureFile(path);
+        }
+    }
+
+    @Nullable
+    private VirtualFile findFile(Path path) {
+        return LocalFileSystem.getInstance().findFileByPath(path.toString());
+    }
+}
@@ -22,7 +22,12 @@ package ch.wellernet.intellij.plugins.xraycucumber;
 import org.apache.commons.codec.binary.Base64;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 public final class TestData {
     public static final String MYCOOL_FEATURE_ZIP = "UEsDBBQAAAAIAGtPR1IHh/NBiwAAAMMAAAAOAAAAbXljb29sLmZlYXR1cmU9jb0KwkAQhGsDeYd5AG3EylYQLAQhAetDJ+bwchvvR8nbu9FwW+3Ot3xzpEk5cI/zhIOIwxJgg8YMo2MJOgloGZP1D1xyGCWyroDmRm+ClWIoiVKda0+PE0x8/gypJ7JLdjCJeOXZJx7SwdmO6z/29s0Q9TL+Duo+pV5b62rVqmz+URI/DLARu+0XUEsBAj8AFAAAAAgAa09HUgeH80GLAAAAwwAAAA4AJAAAAAAAAAAgAAAAAAAAAG15Y29vbC5mZWF0dXJlCgAgAAAAAAABABgA3E8Thi/91gHdKBOGL/3WATJf/YUv/dYBUEsFBgAAAAABAAEAYAAAALcAAAAAAA==";
@@ -31,4 +36,47 @@ public final class TestData {
         byte[] data = Base64.decodeBase64(base64EncodedData);
         return new ByteArrayInputStream(data);
     }
+
+    public static InputStream generatedTestDownloadZip(int featureCount) throws IOException {
+        return generatedTestDownloadZip(featureCount, 1);
+    }
+
+    public static InputStream generatedTestDownloadZip(int featureCount, int revision) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream)) {
+            for (int i = 0; i < featureCount; i++) {
+                zipOutputStream.putNextEntry(new ZipEntry(generatedFeatureName(i)));
+                zipOutputStream.write(generatedFeatureContent(i, revision).getBytes(StandardCharsets.UTF_8));
+                zipOutputStream.closeEntry();
+            }
+        }
+        return new ByteArrayInputStream(outputStream.toByteArray());
+    }
+
+    public static String generatedFeatureName(int index) {
+        return index + "_TEST-" + index + ".feature";
+    }
+
+    public static String generatedFeatureContent(int index) {
+        return generatedFeatureContent(index, 1);
+    }
+
+    public static String generatedFeatureContent(int index, int revision) {
+        return "@TEST-" + index + "\nFeature: generated feature " + index + " (revision " + revision + ")\n\n"
+                + "  Scenario: generated scenario " + index + "\n    Given step " + index + "\n";
+    }
+
+    public static InputStream importResponse(String... issueKeys) {
+        StringBuilder response = new StringBuilder("[");
+        for (int i = 0; i < issueKeys.length; i++) {
+            response.append(i > 0 ? "," : "")
+                    .append("{\"id\":\"").append(10000 + i).append("\",\"key\":\"").append(issueKeys[i])
+                    .append("\",\"self\":\"https://issues.example.com/rest/api/2/issue/").append(10000 + i).append("\"}");
+        }
+        return json(response.append("]").toString());
+    }
+
+    public static InputStream json(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
 }
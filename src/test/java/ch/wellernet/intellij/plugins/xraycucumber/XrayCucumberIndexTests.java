@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package ch.wellernet.intellij.plugins.xraycucumber;
+
+import ch.wellernet.intellij.plugins.xraycucumber.model.FilterParameters;
+import ch.wellernet.intellij.plugins.xraycucumber.model.ServiceParameters;
+import ch.wellernet.intellij.plugins.xraycucumber.service.XrayCucumberIndex;
+import com.google.common.jimfs.Configuration;
+import com.google.common.jimfs.Jimfs;
+import org.junit.jupiter.api.Test;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.file.FileSystem;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class XrayCucumberIndexTests {
+    private final FileSystem fileSystem = Jimfs.newFileSystem(Configuration.unix());
+
+    private final URL url = new URL("https://issues.example.com");
+
+    private final Path rootConfig = fileSystem.getPath("/project/xray-cucumber.json");
+
+    private final Path nestedConfig = fileSystem.getPath("/project/features/other/xray-cucumber.json");
+
+    private final XrayCucumberIndex index = new XrayCucumberIndex();
+
+    XrayCucumberIndexTests() throws MalformedURLException {
+    }
+
+    @Test
+    void findConfig_shallReturnConfigOwningNearestOutputDirectory() {
+        index.putConfig(rootConfig, serviceParameters(new FilterParameters(1L, "features/smoke"), new FilterParameters(2L, "features/other/../regression")));
+        index.putConfig(nestedConfig, serviceParameters());
+
+        assertThat(index.findConfig(fileSystem.getPath("/project/features/smoke/login/mynew.feature"))).contains(rootConfig);
+        assertThat(index.findConfig(fileSystem.getPath("/project/features/regression/mynew.feature"))).contains(rootConfig);
+        assertThat(index.findConfig(fileSystem.getPath("/project/features/other/mynew.feature"))).contains(nestedConfig);
+        assertThat(index.findConfigOfDirectory(fileSystem.getPath("/project/features/other"))).contains(nestedConfig);
+        assertThat(index.findConfig(fileSystem.getPath("/elsewhere/mynew.feature"))).isEmpty();
+        assertThat(index.outputDirs(rootConfig)).containsExactly(
+                fileSystem.getPath("/project"), fileSystem.getPath("/project/features/smoke"), fileSystem.getPath("/project/features/regression"));
+    }
+
+    @Test
+    void findConfig_sameOutputDirectory_shallPreferConfigInThatDirectory() {
+        index.putConfig(rootConfig, serviceParameters(new FilterParameters(1L, "features/other")));
+        index.putConfig(nestedConfig, serviceParameters());
+
+        assertThat(index.findConfig(fileSystem.getPath("/project/features/other/mynew.feature"))).contains(nestedConfig);
+
+        index.removeConfig(nestedConfig);
+
+        assertThat(index.findConfig(fileSystem.getPath("/project/features/other/mynew.feature"))).contains(rootConfig);
+        assertThat(index.configs()).containsExactly(rootConfig);
+    }
+
+    @Test
+    void putFeatureFile_shallIndexIssueKeysOfTags() {
+        Path featureFile = fileSystem.getPath("/project/features/mynew.feature");
+        Path otherFeatureFile = fileSystem.getPath("/project/features/other.feature");
+
+        index.putFeatureFile(featureFile, "@TEST-1 @smoke\nFeature: login\n\n  @TEST-2 @TEST_X-33\n  Scenario: success\n    # see @TEST-99x\n");
+        index.putFeatureFile(otherFeatureFile, "@TEST-2\nFeature: logout\n");
+
+        assertThat(index.issueKeys(featureFile)).containsExactly("TEST-1", "TEST-2", "TEST_X-33");
+        assertThat(index.featureFiles("TEST-2")).containsExactly(featureFile, otherFeatureFile);
+
+        index.putFeatureFile(featureFile, "Feature: login\n");
+
+        assertThat(index.issueKeys(featureFile)).isEmpty();
+        assertThat(index.featureFiles("TEST-1")).isEmpty();
+        assertThat(index.featureFiles("TEST-2")).containsExactly(otherFeatureFile);
+    }
+
+    @Test
+    void removeAll_shallRemoveConfigsAndFeatureFilesBelowDirectory() {
+        Path featureFile = fileSystem.getPath("/project/features/other/mynew.feature");
+        index.putConfig(rootConfig, serviceParameters());
+        index.putConfig(nestedConfig, serviceParameters());
+        index.putFeatureFile(featureFile, "@TEST-1\nFeature: login\n");
+
+        index.removeAll(fileSystem.getPath("/project/features"));
+
+        assertThat(index.configs()).containsExactly(rootConfig);
+        assertThat(index.featureFiles("TEST-1")).isEmpty();
+        assertThat(index.findConfig(featureFile)).isEqualTo(Optional.of(rootConfig));
+    }
+
+    private ServiceParameters serviceParameters(FilterParameters... filters) {
+        return ServiceParameters.builder()
+                .url(url)
+                .projectKey("TEST")
+                .filters(Arrays.asList(filters))
+                .build();
+    }
+}
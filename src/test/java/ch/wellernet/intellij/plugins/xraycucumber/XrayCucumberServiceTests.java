@@ -19,29 +19,79 @@
 
 package ch.wellernet.intellij.plugins.xraycucumber;
 
+import ch.wellernet.intellij.plugins.xraycucumber.model.AuthenticationMethod;
+import ch.wellernet.intellij.plugins.xraycucumber.model.FileConflict;
 import ch.wellernet.intellij.plugins.xraycucumber.model.FileReplacementBehaviour;
+import ch.wellernet.intellij.plugins.xraycucumber.model.FilterParameters;
+import ch.wellernet.intellij.plugins.xraycucumber.model.HttpClientParameters;
 import ch.wellernet.intellij.plugins.xraycucumber.model.ServiceParameters;
+import ch.wellernet.intellij.plugins.xraycucumber.model.XrayEdition;
+import ch.wellernet.intellij.plugins.xraycucumber.service.CachedExport;
+import ch.wellernet.intellij.plugins.xraycucumber.service.CancellationToken;
+import ch.wellernet.intellij.plugins.xraycucumber.service.ExportCache;
+import ch.wellernet.intellij.plugins.xraycucumber.service.FileChanges;
+import ch.wellernet.intellij.plugins.xraycucumber.service.FileExportCache;
+import ch.wellernet.intellij.plugins.xraycucumber.service.MetricsListener;
+import ch.wellernet.intellij.plugins.xraycucumber.service.OperationMetrics;
 import ch.wellernet.intellij.plugins.xraycucumber.service.ProgressReporter;
 import ch.wellernet.intellij.plugins.xraycucumber.service.XrayCucumberService;
 import com.google.common.jimfs.Configuration;
 import com.google.common.jimfs.Jimfs;
 import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpHeaders;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
 import org.apache.http.StatusLine;
 import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.client.utils.URIBuilder;
+import org.apache.http.impl.execchain.RequestAbortedException;
 import org.apache.http.entity.ContentType;
 import org.apache.http.message.BasicHeader;
+import org.apache.http.protocol.HttpContext;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
 import java.net.MalformedURLException;
+import java.net.SocketException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.FileSystem;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
@@ -66,6 +116,8 @@ class XrayCucumberServiceTests {
 
     private final Path featureFile = fileSystem.getPath("target/cucumber-tests/mynew.feature");
 
+    private final ExportCache exportCache = new FileExportCache(fileSystem.getPath("cache/export-cache.json"));
+
     private final XrayCucumberService xrayCucumberService = new XrayCucumberService(httpClient);
 
     XrayCucumberServiceTests() throws MalformedURLException {
@@ -81,7 +133,7 @@ class XrayCucumberServiceTests {
         // assert
         assertThat(outputDir.resolve("mycool.feature")).exists();
         assertThat(outputDir.resolve("mycool.feature")).isNotEmptyFile();
-        verify(progressReporter).reportProgress(any(), eq(0.));
+        verify(progressReporter).reportProgress(any(), eq(ProgressReporter.INDETERMINATE));
         verify(progressReporter).reportSuccess(any());
         verifyNoMoreInteractions(progressReporter);
     }
@@ -100,7 +152,7 @@ class XrayCucumberServiceTests {
 
         // assert
         assertThat(outputDir.resolve("mycool.feature")).isEmptyFile();
-        verify(progressReporter).reportProgress(any(), eq(0.));
+        verify(progressReporter).reportProgress(any(), eq(ProgressReporter.INDETERMINATE));
         verify(progressReporter).reportSuccess(any());
         verifyNoMoreInteractions(progressReporter);
     }
@@ -119,7 +171,7 @@ class XrayCucumberServiceTests {
 
         // assert
         assertThat(outputDir.resolve("mycool.feature")).isNotEmptyFile();
-        verify(progressReporter).reportProgress(any(), eq(0.));
+        verify(progressReporter).reportProgress(any(), eq(ProgressReporter.INDETERMINATE));
         verify(progressReporter).reportSuccess(any());
         verifyNoMoreInteractions(progressReporter);
     }
@@ -174,28 +226,1591 @@ class XrayCucumberServiceTests {
     }
 
     @Test
-    void uploadXrayCucumberTests_successful() throws IOException {
-        setupHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_JSON);
+    void downloadXrayCucumberTests_captchaRequired_shallReportAuthenticationError() throws IOException {
+        HttpResponse httpResponse = setupHttpResponse(HttpStatus.SC_FORBIDDEN, ContentType.TEXT_PLAIN);
+        when(httpResponse.getFirstHeader("X-Authentication-Denied-Reason")).thenReturn(new BasicHeader("X-Authentication-Denied-Reason", "CAPTCHA_CHALLENGE"));
+
+        // act
+        xrayCucumberService.downloadXrayCucumberTests(serviceParameters, outputDir, progressReporter);
+
+        // assert
+        verify(progressReporter).reportAuthenticationError("Jira refused authentication (HTTP 403, CAPTCHA_CHALLENGE)");
+        verifyNoMoreInteractions(progressReporter);
+    }
+
+    @Test
+    void downloadXrayCucumberTests_pipelined_successful() throws IOException {
+        ServiceParameters pipelinedServiceParameters = serviceParameters.toBuilder()
+                .extractionThreads(4)
+                .extractionBufferSize(256)
+                .build();
+        setupHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_OCTET_STREAM, TestData.generatedTestDownloadZip(50));
+
+        // act
+        xrayCucumberService.downloadXrayCucumberTests(pipelinedServiceParameters, outputDir, progressReporter);
+
+        // assert
+        for (int i = 0; i < 50; i++) {
+            assertThat(outputDir.resolve(TestData.generatedFeatureName(i)))
+                    .hasContent(TestData.generatedFeatureContent(i));
+        }
+        verify(progressReporter, atLeastOnce()).reportProgress(any(), anyDouble());
+        verify(progressReporter).reportSuccess(any());
+        verifyNoMoreInteractions(progressReporter);
+    }
+
+    @Test
+    void downloadXrayCucumberTests_withContentLength_reportsByteProgress() throws IOException {
+        byte[] zip = readFully(TestData.generatedTestDownloadZip(500));
+        HttpResponse httpResponse = setupHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_OCTET_STREAM, new ByteArrayInputStream(zip));
+        when(httpResponse.getEntity().getContentLength()).thenReturn((long) zip.length);
+
+        // act
+        xrayCucumberService.downloadXrayCucumberTests(serviceParameters, outputDir, progressReporter);
+
+        // assert
+        ArgumentCaptor<Double> completionRatio = ArgumentCaptor.forClass(Double.class);
+        verify(progressReporter, atMost(100)).reportProgress(contains(" MB"), completionRatio.capture());
+        assertThat(completionRatio.getAllValues()).allSatisfy(ratio -> assertThat(ratio).isBetween(0., 1.));
+        verify(progressReporter).reportSuccess(contains("500 added"));
+        verifyNoMoreInteractions(progressReporter);
+    }
+
+    @Test
+    void downloadXrayCucumberTests_pipelined_featureAlreadyExists_shallNotOverride() throws IOException {
+        ServiceParameters pipelinedServiceParameters = serviceParameters.toBuilder()
+                .fileReplacementBehaviour(FileReplacementBehaviour.KEEP_EXISTING)
+                .extractionThreads(4)
+                .build();
+        setupHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_OCTET_STREAM, TestData.generatedTestDownloadZip(10));
         Files.createDirectories(outputDir);
-        Files.createFile(featureFile);
+        Files.createFile(outputDir.resolve(TestData.generatedFeatureName(3)));
 
         // act
-        xrayCucumberService.uploadXrayCucumberTest(serviceParameters, featureFile, progressReporter);
+        xrayCucumberService.downloadXrayCucumberTests(pipelinedServiceParameters, outputDir, progressReporter);
 
         // assert
+        assertThat(outputDir.resolve(TestData.generatedFeatureName(3))).isEmptyFile();
+        assertThat(outputDir.resolve(TestData.generatedFeatureName(4))).hasContent(TestData.generatedFeatureContent(4));
         verify(progressReporter).reportSuccess(any());
+    }
+
+    @Test
+    void downloadXrayCucumberTests_pipelined_writeFailure() throws IOException {
+        ServiceParameters pipelinedServiceParameters = serviceParameters.toBuilder()
+                .fileReplacementBehaviour(FileReplacementBehaviour.REPLACE)
+                .extractionThreads(2)
+                .build();
+        setupHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_OCTET_STREAM, TestData.generatedTestDownloadZip(10));
+        Files.createDirectories(outputDir.resolve(TestData.generatedFeatureName(5)));
+
+        // act
+        xrayCucumberService.downloadXrayCucumberTests(pipelinedServiceParameters, outputDir, progressReporter);
+
+        // assert
+        verify(progressReporter).reportError(any(), any());
+        verify(progressReporter, never()).reportSuccess(any());
+    }
+
+    @Test
+    void downloadXrayCucumberTests_unchangedFeatures_shallNotBeRewritten() throws IOException {
+        setupHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_OCTET_STREAM, TestData.generatedTestDownloadZip(3));
+        xrayCucumberService.downloadXrayCucumberTests(serviceParameters, outputDir, null);
+        FileTime lastModified = FileTime.fromMillis(0);
+        Files.setLastModifiedTime(outputDir.resolve(TestData.generatedFeatureName(1)), lastModified);
+        setupHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_OCTET_STREAM, TestData.generatedTestDownloadZip(3));
+
+        // act
+        xrayCucumberService.downloadXrayCucumberTests(serviceParameters, outputDir, progressReporter);
+
+        // assert
+        assertThat(Files.getLastModifiedTime(outputDir.resolve(TestData.generatedFeatureName(1)))).isEqualTo(lastModified);
+        verify(progressReporter, atLeastOnce()).reportProgress(any(), anyDouble());
+        verify(progressReporter).reportSuccess(contains("0 added, 0 changed, 3 unchanged, 0 skipped"));
         verifyNoMoreInteractions(progressReporter);
     }
 
-    private void setupHttpResponse(int httpStatus, ContentType contentType) throws IOException {
-        HttpResponse httpResponse = mock(HttpResponse.class);
-        StatusLine statusLine = mock(StatusLine.class);
-        HttpEntity httpEntity = mock(HttpEntity.class);
-        when(httpClient.execute(any())).thenReturn(httpResponse);
+    @Test
+    void downloadXrayCucumberTests_featureChangedInJiraOnly_shallReplaceWithoutAsking() throws IOException {
+        setupHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_OCTET_STREAM, TestData.generatedTestDownloadZip(3, 1));
+        xrayCucumberService.downloadXrayCucumberTests(serviceParameters, outputDir, null);
+        setupHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_OCTET_STREAM, TestData.generatedTestDownloadZip(4, 2));
+
+        // act
+        xrayCucumberService.downloadXrayCucumberTests(serviceParameters, outputDir, progressReporter);
+
+        // assert
+        assertThat(outputDir.resolve(TestData.generatedFeatureName(2))).hasContent(TestData.generatedFeatureContent(2, 2));
+        verify(progressReporter, atLeastOnce()).reportProgress(any(), anyDouble());
+        verify(progressReporter).reportSuccess(contains("1 added, 3 changed, 0 unchanged, 0 skipped"));
+        verifyNoMoreInteractions(progressReporter);
+    }
+
+    @Test
+    void downloadXrayCucumberTests_featureChangedLocallyAndInJira_shallAskBeforeReplacing() throws IOException {
+        setupHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_OCTET_STREAM, TestData.generatedTestDownloadZip(2, 1));
+        xrayCucumberService.downloadXrayCucumberTests(serviceParameters, outputDir, null);
+        Files.write(outputDir.resolve(TestData.generatedFeatureName(0)), "locally modified".getBytes(StandardCharsets.UTF_8));
+        when(progressReporter.askToReplaceExistingFiles(any())).thenReturn(Collections.emptySet());
+        setupHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_OCTET_STREAM, TestData.generatedTestDownloadZip(2, 2));
+
+        // act
+        xrayCucumberService.downloadXrayCucumberTests(serviceParameters, outputDir, progressReporter);
+
+        // assert
+        assertThat(outputDir.resolve(TestData.generatedFeatureName(0))).hasContent("locally modified");
+        assertThat(outputDir.resolve(TestData.generatedFeatureName(1))).hasContent(TestData.generatedFeatureContent(1, 2));
+        ArgumentCaptor<List<FileConflict>> conflicts = ArgumentCaptor.forClass(List.class);
+        verify(progressReporter).askToReplaceExistingFiles(conflicts.capture());
+        assertThat(conflicts.getValue()).extracting(FileConflict::file).containsExactly(outputDir.resolve(TestData.generatedFeatureName(0)));
+        verify(progressReporter).reportSuccess(contains("0 added, 1 changed, 0 unchanged, 1 skipped"));
+        assertThat(Files.list(outputDir)).noneMatch(file -> file.getFileName().toString().startsWith(".xray-cucumber-staging-"));
+    }
+
+    @Test
+    void downloadXrayCucumberTests_severalConflicts_shallAskOnceAndReplaceAccepted() throws IOException {
+        setupHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_OCTET_STREAM, TestData.generatedTestDownloadZip(3, 1));
+        xrayCucumberService.downloadXrayCucumberTests(serviceParameters, outputDir, null);
+        for (int i = 0; i < 3; i++) {
+            Files.write(outputDir.resolve(TestData.generatedFeatureName(i)), "locally modified".getBytes(StandardCharsets.UTF_8));
+        }
+        when(progressReporter.askToReplaceExistingFiles(any())).thenAnswer(invocation -> {
+            List<FileConflict> conflicts = invocation.getArgument(0);
+            // download must be completed before the user is asked
+            assertThat(conflicts).hasSize(3);
+            assertThat(conflicts.get(1).stagedFile()).hasContent(TestData.generatedFeatureContent(1, 2));
+            return new HashSet<>(conflicts.subList(0, 2));
+        });
+        setupHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_OCTET_STREAM, TestData.generatedTestDownloadZip(3, 2));
+
+        // act
+        xrayCucumberService.downloadXrayCucumberTests(serviceParameters, outputDir, progressReporter);
+
+        // assert
+        assertThat(outputDir.resolve(TestData.generatedFeatureName(0))).hasContent(TestData.generatedFeatureContent(0, 2));
+        assertThat(outputDir.resolve(TestData.generatedFeatureName(1))).hasContent(TestData.generatedFeatureContent(1, 2));
+        assertThat(outputDir.resolve(TestData.generatedFeatureName(2))).hasContent("locally modified");
+        verify(progressReporter).askToReplaceExistingFiles(any());
+        verify(progressReporter).reportSuccess(contains("0 added, 2 changed, 0 unchanged, 1 skipped"));
+        assertThat(Files.list(outputDir)).noneMatch(file -> file.getFileName().toString().startsWith(".xray-cucumber-staging-"));
+
+        // replaced files are recorded in manifest, so that they are not considered as locally modified anymore
+        setupHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_OCTET_STREAM, TestData.generatedTestDownloadZip(3, 3));
+        reset(progressReporter);
+        when(progressReporter.askToReplaceExistingFiles(any())).thenReturn(Collections.emptySet());
+        xrayCucumberService.downloadXrayCucumberTests(serviceParameters, outputDir, progressReporter);
+        verify(progressReporter).reportSuccess(contains("0 added, 2 changed, 0 unchanged, 1 skipped"));
+    }
+
+    @Test
+    void downloadXrayCucumberTests_shallReportMetrics() throws IOException {
+        MetricsListener metricsListener = mock(MetricsListener.class);
+        XrayCucumberService measuredXrayCucumberService = new XrayCucumberService(httpClient, null, metricsListener);
+        setupHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_OCTET_STREAM, TestData.generatedTestDownloadZip(3));
+
+        // act
+        measuredXrayCucumberService.downloadXrayCucumberTests(serviceParameters, outputDir, progressReporter);
+
+        // assert
+        ArgumentCaptor<OperationMetrics> metrics = ArgumentCaptor.forClass(OperationMetrics.class);
+        verify(metricsListener).operationCompleted(metrics.capture());
+        assertThat(metrics.getValue().isCompleted()).isTrue();
+        assertThat(metrics.getValue().failed()).isFalse();
+        assertThat(metrics.getValue().entries()).isEqualTo(3);
+        assertThat(metrics.getValue().bytesReceived()).isPositive();
+        assertThat(metrics.getValue().bytesWritten()).isEqualTo(Files.size(outputDir.resolve(TestData.generatedFeatureName(0)))
+                + Files.size(outputDir.resolve(TestData.generatedFeatureName(1)))
+                + Files.size(outputDir.resolve(TestData.generatedFeatureName(2))));
+        assertThat(metrics.getValue().outcome()).startsWith("extracted successfully");
+    }
+
+    @Test
+    void uploadXrayCucumberTest_failed_shallReportMetrics() throws IOException {
+        MetricsListener metricsListener = mock(MetricsListener.class);
+        XrayCucumberService measuredXrayCucumberService = new XrayCucumberService(httpClient, null, metricsListener);
+        setupHttpResponse(HttpStatus.SC_INTERNAL_SERVER_ERROR, ContentType.TEXT_PLAIN, TestData.json("import failed"));
+        Files.createDirectories(outputDir);
+        Files.write(featureFile, TestData.generatedFeatureContent(1).getBytes(StandardCharsets.UTF_8));
+
+        // act
+        measuredXrayCucumberService.uploadXrayCucumberTest(serviceParameters, featureFile, progressReporter);
+
+        // assert
+        ArgumentCaptor<OperationMetrics> metrics = ArgumentCaptor.forClass(OperationMetrics.class);
+        verify(metricsListener).operationCompleted(metrics.capture());
+        assertThat(metrics.getValue().failed()).isTrue();
+        assertThat(metrics.getValue().outcome()).isEqualTo("import failed (HTTP 500)");
+        assertThat(metrics.getValue().entries()).isZero();
+    }
+
+    @Test
+    void downloadXrayCucumberTests_notModified_shallNotTouchOutputDir() throws IOException {
+        XrayCucumberService cachingXrayCucumberService = new XrayCucumberService(httpClient, exportCache);
+        HttpResponse firstResponse = setupHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_OCTET_STREAM, TestData.generatedTestDownloadZip(2));
+        when(firstResponse.getFirstHeader(HttpHeaders.ETAG)).thenReturn(new BasicHeader(HttpHeaders.ETAG, "\"v1\""));
+        cachingXrayCucumberService.downloadXrayCucumberTests(serviceParameters, outputDir, null);
+        FileTime lastModifiedTime = Files.getLastModifiedTime(outputDir.resolve(TestData.generatedFeatureName(1)));
+        setupHttpResponse(HttpStatus.SC_NOT_MODIFIED, ContentType.APPLICATION_OCTET_STREAM, TestData.generatedTestDownloadZip(2));
+
+        // act
+        cachingXrayCucumberService.downloadXrayCucumberTests(serviceParameters, outputDir, progressReporter);
+
+        // assert
+        ArgumentCaptor<HttpUriRequest> request = ArgumentCaptor.forClass(HttpUriRequest.class);
+        verify(httpClient, times(2)).execute(request.capture());
+        assertThat(request.getAllValues().get(0).getFirstHeader(HttpHeaders.IF_NONE_MATCH)).isNull();
+        assertThat(request.getAllValues().get(1).getFirstHeader(HttpHeaders.IF_NONE_MATCH).getValue()).isEqualTo("\"v1\"");
+        assertThat(Files.getLastModifiedTime(outputDir.resolve(TestData.generatedFeatureName(1)))).isEqualTo(lastModifiedTime);
+        verify(progressReporter).reportSuccess(contains("nothing changed"));
+        verifyNoMoreInteractions(progressReporter);
+    }
+
+    @Test
+    void downloadXrayCucumberTests_extractedFileDeleted_shallRequestUnconditionally() throws IOException {
+        XrayCucumberService cachingXrayCucumberService = new XrayCucumberService(httpClient, exportCache);
+        HttpResponse firstResponse = setupHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_OCTET_STREAM, TestData.generatedTestDownloadZip(2));
+        when(firstResponse.getFirstHeader(HttpHeaders.ETAG)).thenReturn(new BasicHeader(HttpHeaders.ETAG, "\"v1\""));
+        cachingXrayCucumberService.downloadXrayCucumberTests(serviceParameters, outputDir, null);
+        Files.delete(outputDir.resolve(TestData.generatedFeatureName(1)));
+        setupHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_OCTET_STREAM, TestData.generatedTestDownloadZip(2));
+
+        // act
+        cachingXrayCucumberService.downloadXrayCucumberTests(serviceParameters, outputDir, progressReporter);
+
+        // assert
+        ArgumentCaptor<HttpUriRequest> request = ArgumentCaptor.forClass(HttpUriRequest.class);
+        verify(httpClient, times(2)).execute(request.capture());
+        assertThat(request.getAllValues().get(1).getFirstHeader(HttpHeaders.IF_NONE_MATCH)).isNull();
+        assertThat(outputDir.resolve(TestData.generatedFeatureName(1))).isNotEmptyFile();
+        verify(progressReporter).reportSuccess(startsWith("extracted successfully"));
+    }
+
+    @Test
+    void downloadXrayCucumberTests_otherFilterFailed_shallNotCacheExport() throws IOException {
+        XrayCucumberService cachingXrayCucumberService = new XrayCucumberService(httpClient, exportCache);
+        ServiceParameters multiFilterServiceParameters = serviceParameters.toBuilder()
+                .filterId(null)
+                .filters(Arrays.asList(new FilterParameters(1L, "smoke"), new FilterParameters(2L, "regression")))
+                .parallelDownloads(1)
+                .build();
+        Map<Long, HttpResponse> httpResponses = new HashMap<>();
+        HttpResponse firstResponse = createHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_OCTET_STREAM, TestData.generatedTestDownloadZip(2));
+        when(firstResponse.getFirstHeader(HttpHeaders.ETAG)).thenReturn(new BasicHeader(HttpHeaders.ETAG, "\"v1\""));
+        httpResponses.put(1L, firstResponse);
+        httpResponses.put(2L, createHttpResponse(HttpStatus.SC_INTERNAL_SERVER_ERROR, ContentType.TEXT_PLAIN, TestData.json("export failed")));
+        setupHttpResponsesPerFilter(httpResponses);
+        cachingXrayCucumberService.downloadXrayCucumberTests(multiFilterServiceParameters, outputDir, progressReporter);
+        httpResponses.put(1L, createHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_OCTET_STREAM, TestData.generatedTestDownloadZip(2)));
+        httpResponses.put(2L, createHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_OCTET_STREAM, TestData.generatedTestDownloadZip(2)));
+
+        // act
+        cachingXrayCucumberService.downloadXrayCucumberTests(multiFilterServiceParameters, outputDir, progressReporter);
+
+        // assert
+        ArgumentCaptor<HttpUriRequest> request = ArgumentCaptor.forClass(HttpUriRequest.class);
+        verify(httpClient, times(4)).execute(request.capture());
+        assertThat(request.getAllValues().get(2).getURI().getQuery()).contains("filter=1");
+        assertThat(request.getAllValues().get(2).getFirstHeader(HttpHeaders.IF_NONE_MATCH)).isNull();
+        verify(progressReporter).reportSuccess(startsWith("extracted successfully"));
+    }
+
+    @Test
+    void downloadXrayCucumberTests_withoutManifest_shallRequestUnconditionally() throws IOException {
+        XrayCucumberService cachingXrayCucumberService = new XrayCucumberService(httpClient, exportCache);
+        HttpResponse firstResponse = setupHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_OCTET_STREAM, TestData.generatedTestDownloadZip(2));
+        when(firstResponse.getFirstHeader(HttpHeaders.LAST_MODIFIED)).thenReturn(new BasicHeader(HttpHeaders.LAST_MODIFIED, "Tue, 02 Feb 2021 10:00:00 GMT"));
+        cachingXrayCucumberService.downloadXrayCucumberTests(serviceParameters, outputDir, null);
+        assertThat(exportCache.get(exportCacheKey(outputDir))).hasValue(new CachedExport(null, "Tue, 02 Feb 2021 10:00:00 GMT"));
+        Files.delete(outputDir.resolve("xray-cucumber-manifest.json"));
+        setupHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_OCTET_STREAM, TestData.generatedTestDownloadZip(2));
+
+        // act
+        cachingXrayCucumberService.downloadXrayCucumberTests(serviceParameters, outputDir, progressReporter);
+
+        // assert
+        ArgumentCaptor<HttpUriRequest> request = ArgumentCaptor.forClass(HttpUriRequest.class);
+        verify(httpClient, times(2)).execute(request.capture());
+        assertThat(request.getAllValues().get(1).getFirstHeader(HttpHeaders.IF_MODIFIED_SINCE)).isNull();
+        assertThat(outputDir.resolve(TestData.generatedFeatureName(1))).exists();
+        assertThat(exportCache.get(exportCacheKey(outputDir))).isEmpty();
+    }
+
+    @Test
+    void downloadXrayCucumberTests_sameFilterToOtherOutputDir_shallNotShareValidators() throws IOException {
+        XrayCucumberService cachingXrayCucumberService = new XrayCucumberService(httpClient, exportCache);
+        Path otherOutputDir = fileSystem.getPath("target/other-cucumber-tests");
+        HttpResponse firstResponse = setupHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_OCTET_STREAM, TestData.generatedTestDownloadZip(2));
+        when(firstResponse.getFirstHeader(HttpHeaders.ETAG)).thenReturn(new BasicHeader(HttpHeaders.ETAG, "\"v1\""));
+        cachingXrayCucumberService.downloadXrayCucumberTests(serviceParameters, outputDir, null);
+        HttpResponse otherResponse = setupHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_OCTET_STREAM, TestData.generatedTestDownloadZip(3));
+        when(otherResponse.getFirstHeader(HttpHeaders.ETAG)).thenReturn(new BasicHeader(HttpHeaders.ETAG, "\"v2\""));
+        cachingXrayCucumberService.downloadXrayCucumberTests(serviceParameters, otherOutputDir, null);
+        setupHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_OCTET_STREAM, TestData.generatedTestDownloadZip(3));
+
+        // act
+        cachingXrayCucumberService.downloadXrayCucumberTests(serviceParameters, outputDir, progressReporter);
+
+        // assert
+        ArgumentCaptor<HttpUriRequest> request = ArgumentCaptor.forClass(HttpUriRequest.class);
+        verify(httpClient, times(3)).execute(request.capture());
+        assertThat(request.getAllValues().get(1).getFirstHeader(HttpHeaders.IF_NONE_MATCH)).isNull();
+        assertThat(request.getAllValues().get(2).getFirstHeader(HttpHeaders.IF_NONE_MATCH).getValue()).isEqualTo("\"v1\"");
+        assertThat(outputDir.resolve(TestData.generatedFeatureName(2))).isNotEmptyFile();
+        assertThat(exportCache.get(exportCacheKey(otherOutputDir))).hasValue(new CachedExport("\"v2\"", null));
+        verify(progressReporter).reportSuccess(startsWith("extracted successfully"));
+    }
+
+    @Test
+    void downloadXrayCucumberTests_configuredTimeouts() throws IOException {
+        ServiceParameters serviceParametersWithTimeouts = serviceParameters.toBuilder()
+                .connectTimeout(1_000)
+                .socketTimeout(2_000)
+                .build();
+        setupHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_OCTET_STREAM);
+
+        // act
+        xrayCucumberService.downloadXrayCucumberTests(serviceParametersWithTimeouts, outputDir, progressReporter);
+
+        // assert
+        ArgumentCaptor<HttpRequestBase> request = ArgumentCaptor.forClass(HttpRequestBase.class);
+        verify(httpClient).execute(request.capture());
+        assertThat(request.getValue().getConfig().getConnectTimeout()).isEqualTo(1_000);
+        assertThat(request.getValue().getConfig().getSocketTimeout()).isEqualTo(2_000);
+        assertThat(request.getValue().getConfig().getConnectionRequestTimeout()).isEqualTo(HttpClientParameters.DEFAULT.connectTimeoutMillis());
+        verify(progressReporter).reportSuccess(any());
+    }
+
+    @Test
+    void downloadXrayCucumberTests_configuredConnectTimeoutOnly_shallKeepTimeoutsOfHttpClient() throws IOException {
+        HttpClientParameters httpClientParameters = HttpClientParameters.builder()
+                .connectTimeoutMillis(3_000)
+                .socketTimeoutMillis(4_000)
+                .build();
+        XrayCucumberService configuredXrayCucumberService = new XrayCucumberService(httpClient, httpClientParameters, null, null);
+        ServiceParameters serviceParametersWithTimeout = serviceParameters.toBuilder()
+                .connectTimeout(1_000)
+                .build();
+        setupHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_OCTET_STREAM);
+
+        // act
+        configuredXrayCucumberService.downloadXrayCucumberTests(serviceParametersWithTimeout, outputDir, progressReporter);
+
+        // assert
+        ArgumentCaptor<HttpRequestBase> request = ArgumentCaptor.forClass(HttpRequestBase.class);
+        verify(httpClient).execute(request.capture());
+        assertThat(request.getValue().getConfig().getConnectTimeout()).isEqualTo(1_000);
+        assertThat(request.getValue().getConfig().getConnectionRequestTimeout()).isEqualTo(3_000);
+        assertThat(request.getValue().getConfig().getSocketTimeout()).isEqualTo(4_000);
+        verify(progressReporter).reportSuccess(any());
+    }
+
+    @Test
+    void downloadXrayCucumberTests_sessionAuthentication_shallLogInOnce() throws IOException {
+        ServiceParameters sessionServiceParameters = serviceParameters.toBuilder()
+                .url(new URL("https://session.example.com"))
+                .authentication(AuthenticationMethod.SESSION)
+                .build();
+        when(httpClient.execute(any(HttpUriRequest.class), any(HttpContext.class))).thenAnswer(invocation ->
+                createHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_OCTET_STREAM, TestData.sampleTestDownloadZip(TestData.MYCOOL_FEATURE_ZIP)));
+
+        // act
+        xrayCucumberService.downloadXrayCucumberTests(sessionServiceParameters, outputDir, progressReporter);
+        xrayCucumberService.downloadXrayCucumberTests(sessionServiceParameters, outputDir, progressReporter);
+
+        // assert
+        ArgumentCaptor<HttpUriRequest> request = ArgumentCaptor.forClass(HttpUriRequest.class);
+        ArgumentCaptor<HttpClientContext> context = ArgumentCaptor.forClass(HttpClientContext.class);
+        verify(httpClient, times(3)).execute(request.capture(), context.capture());
+        verify(httpClient, never()).execute(any(HttpUriRequest.class));
+        assertThat(request.getAllValues().get(0).getURI()).hasToString("https://session.example.com/rest/auth/1/session");
+        assertThat(request.getAllValues().subList(1, 3)).allSatisfy(download -> {
+            assertThat(download.getURI().getPath()).isEqualTo(XrayCucumberService.REST_ENDPOINT_EXPORT_TEST);
+            assertThat(download.getFirstHeader(HttpHeaders.AUTHORIZATION)).isNull();
+        });
+        assertThat(context.getAllValues()).extracting(HttpClientContext::getCookieStore).containsOnly(context.getValue().getCookieStore());
+        verify(progressReporter, times(2)).reportSuccess(any());
+    }
+
+    @Test
+    void downloadXrayCucumberTests_sessionExpired_shallLogInAgain() throws IOException {
+        ServiceParameters sessionServiceParameters = serviceParameters.toBuilder()
+                .url(new URL("https://expired-session.example.com"))
+                .authentication(AuthenticationMethod.SESSION)
+                .build();
+        HttpResponse loginResponse = createHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_JSON, TestData.json("{}"));
+        HttpResponse unauthorizedResponse = createHttpResponse(HttpStatus.SC_UNAUTHORIZED, ContentType.TEXT_PLAIN, TestData.json("session expired"));
+        HttpResponse successfulResponse = createHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_OCTET_STREAM, TestData.sampleTestDownloadZip(TestData.MYCOOL_FEATURE_ZIP));
+        when(httpClient.execute(any(HttpUriRequest.class), any(HttpContext.class))).thenReturn(loginResponse, unauthorizedResponse, loginResponse, successfulResponse);
+
+        // act
+        xrayCucumberService.downloadXrayCucumberTests(sessionServiceParameters, outputDir, progressReporter);
+
+        // assert
+        ArgumentCaptor<HttpUriRequest> request = ArgumentCaptor.forClass(HttpUriRequest.class);
+        verify(httpClient, times(4)).execute(request.capture(), any(HttpContext.class));
+        assertThat(request.getAllValues()).extracting(r -> r.getURI().getPath()).containsExactly("/rest/auth/1/session",
+                XrayCucumberService.REST_ENDPOINT_EXPORT_TEST, "/rest/auth/1/session", XrayCucumberService.REST_ENDPOINT_EXPORT_TEST);
+        assertThat(outputDir.resolve("mycool.feature")).isNotEmptyFile();
+        verify(progressReporter).reportSuccess(any());
+    }
+
+    @Test
+    void downloadXrayCucumberTests_sessionExpired_shallRepeatWithConfiguredTimeouts() throws IOException {
+        ServiceParameters sessionServiceParameters = serviceParameters.toBuilder()
+                .url(new URL("https://expired-session-timeouts.example.com"))
+                .authentication(AuthenticationMethod.SESSION)
+                .socketTimeout(2_000)
+                .build();
+        HttpResponse loginResponse = createHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_JSON, TestData.json("{}"));
+        HttpResponse unauthorizedResponse = createHttpResponse(HttpStatus.SC_UNAUTHORIZED, ContentType.TEXT_PLAIN, TestData.json("session expired"));
+        HttpResponse successfulResponse = createHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_OCTET_STREAM, TestData.sampleTestDownloadZip(TestData.MYCOOL_FEATURE_ZIP));
+        when(httpClient.execute(any(HttpUriRequest.class), any(HttpContext.class))).thenReturn(loginResponse, unauthorizedResponse, loginResponse, successfulResponse);
+
+        // act
+        xrayCucumberService.downloadXrayCucumberTests(sessionServiceParameters, outputDir, progressReporter);
+
+        // assert
+        ArgumentCaptor<HttpRequestBase> request = ArgumentCaptor.forClass(HttpRequestBase.class);
+        verify(httpClient, times(4)).execute(request.capture(), any(HttpContext.class));
+        assertThat(request.getAllValues()).allSatisfy(r -> assertThat(r.getConfig().getSocketTimeout()).isEqualTo(2_000));
+        verify(progressReporter).reportSuccess(any());
+    }
+
+    @Test
+    void downloadXrayCucumberTests_loginTemporarilyFailed_shallRetryWithConfiguredTimeouts() throws IOException {
+        ServiceParameters sessionServiceParameters = serviceParameters.toBuilder()
+                .url(new URL("https://flaky-session.example.com"))
+                .authentication(AuthenticationMethod.SESSION)
+                .connectTimeout(1_000)
+                .socketTimeout(2_000)
+                .retryBackoff(1)
+                .build();
+        HttpResponse loginResponse = createHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_JSON, TestData.json("{}"));
+        HttpResponse successfulResponse = createHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_OCTET_STREAM, TestData.sampleTestDownloadZip(TestData.MYCOOL_FEATURE_ZIP));
+        when(httpClient.execute(any(HttpUriRequest.class), any(HttpContext.class)))
+                .thenThrow(new ConnectException("Connection refused"))
+                .thenReturn(loginResponse, successfulResponse);
+
+        // act
+        xrayCucumberService.downloadXrayCucumberTests(sessionServiceParameters, outputDir, progressReporter);
+
+        // assert
+        ArgumentCaptor<HttpRequestBase> request = ArgumentCaptor.forClass(HttpRequestBase.class);
+        verify(httpClient, times(3)).execute(request.capture(), any(HttpContext.class));
+        assertThat(request.getAllValues()).extracting(r -> r.getURI().getPath()).containsExactly("/rest/auth/1/session",
+                "/rest/auth/1/session", XrayCucumberService.REST_ENDPOINT_EXPORT_TEST);
+        assertThat(request.getAllValues()).allSatisfy(r -> assertThat(r.getConfig().getSocketTimeout()).isEqualTo(2_000));
+        verify(progressReporter).reportProgress(startsWith("connection to Jira failed (Connection refused), retrying in "), eq(ProgressReporter.INDETERMINATE));
+        verify(progressReporter).reportSuccess(any());
+    }
+
+    @Test
+    void downloadXrayCucumberTests_canceledWhileWaitingForLogin_shallAbort() throws Exception {
+        ServiceParameters sessionServiceParameters = serviceParameters.toBuilder()
+                .url(new URL("https://slow-session.example.com"))
+                .authentication(AuthenticationMethod.SESSION)
+                .build();
+        CountDownLatch loginStarted = new CountDownLatch(1);
+        CountDownLatch loginReleased = new CountDownLatch(1);
+        when(httpClient.execute(any(HttpUriRequest.class), any(HttpContext.class))).thenAnswer(invocation -> {
+            HttpUriRequest request = invocation.getArgument(0);
+            if (request.getURI().getPath().equals("/rest/auth/1/session")) {
+                loginStarted.countDown();
+                loginReleased.await();
+                return createHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_JSON, TestData.json("{}"));
+            }
+            return createHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_OCTET_STREAM, TestData.sampleTestDownloadZip(TestData.MYCOOL_FEATURE_ZIP));
+        });
+        Thread loggingIn = new Thread(() -> xrayCucumberService.downloadXrayCucumberTests(sessionServiceParameters, outputDir, progressReporter));
+        loggingIn.start();
+        assertThat(loginStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        ProgressReporter waitingProgressReporter = mock(ProgressReporter.class);
+        long cancelAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(300);
+
+        // act
+        try {
+            assertTimeoutPreemptively(Duration.ofSeconds(5), () ->
+                    xrayCucumberService.downloadXrayCucumberTests(sessionServiceParameters, outputDir, waitingProgressReporter, () -> System.nanoTime() >= cancelAt));
+            assertThat(loggingIn.isAlive()).isTrue();
+        } finally {
+            loginReleased.countDown();
+            loggingIn.join(5_000);
+        }
+
+        // assert
+        verify(waitingProgressReporter).reportError(eq("download canceled"), any());
+        verify(waitingProgressReporter, never()).reportSuccess(any());
+        verify(progressReporter).reportSuccess(any());
+        ArgumentCaptor<HttpUriRequest> request = ArgumentCaptor.forClass(HttpUriRequest.class);
+        verify(httpClient, times(2)).execute(request.capture(), any(HttpContext.class));
+        assertThat(request.getAllValues()).extracting(r -> r.getURI().getPath()).containsExactly("/rest/auth/1/session",
+                XrayCucumberService.REST_ENDPOINT_EXPORT_TEST);
+    }
+
+    @Test
+    void downloadXrayCucumberTests_personalAccessToken_shallSendBearerToken() throws IOException {
+        ServiceParameters tokenServiceParameters = serviceParameters.toBuilder()
+                .username(null)
+                .password("secret-token")
+                .authentication(AuthenticationMethod.TOKEN)
+                .build();
+        setupHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_OCTET_STREAM);
+
+        // act
+        xrayCucumberService.downloadXrayCucumberTests(tokenServiceParameters, outputDir, progressReporter);
+
+        // assert
+        ArgumentCaptor<HttpUriRequest> request = ArgumentCaptor.forClass(HttpUriRequest.class);
+        verify(httpClient).execute(request.capture());
+        assertThat(request.getValue().getFirstHeader(HttpHeaders.AUTHORIZATION).getValue()).isEqualTo("Bearer secret-token");
+        verify(progressReporter).reportSuccess(any());
+    }
+
+    @Test
+    void xrayCloud_shallShareTokenBetweenOperations() throws IOException {
+        ServiceParameters cloudServiceParameters = serviceParameters.toBuilder()
+                .url(new URL("https://xray.cloud.example.com"))
+                .edition(XrayEdition.CLOUD)
+                .build();
+        String token = jwt(System.currentTimeMillis() / 1000 + 3600);
+        setupXrayCloudResponses(token);
+        Files.createDirectories(outputDir);
+        Files.createFile(featureFile);
+
+        // act
+        xrayCucumberService.downloadXrayCucumberTests(cloudServiceParameters, outputDir, progressReporter);
+        xrayCucumberService.uploadXrayCucumberTest(cloudServiceParameters, featureFile, progressReporter);
+
+        // assert
+        ArgumentCaptor<HttpUriRequest> request = ArgumentCaptor.forClass(HttpUriRequest.class);
+        verify(httpClient, times(3)).execute(request.capture());
+        assertThat(request.getAllValues()).extracting(r -> r.getURI().getPath()).containsExactly(XrayCucumberService.CLOUD_ENDPOINT_AUTHENTICATE,
+                XrayCucumberService.CLOUD_ENDPOINT_EXPORT_TEST, XrayCucumberService.CLOUD_ENDPOINT_IMPORT_FEATURE);
+        assertThat(request.getAllValues().subList(1, 3)).allSatisfy(r ->
+                assertThat(r.getFirstHeader(HttpHeaders.AUTHORIZATION).getValue()).isEqualTo("Bearer " + token));
+        verify(progressReporter, times(2)).reportSuccess(any());
+    }
+
+    @Test
+    void xrayCloud_authenticationTemporarilyUnavailable_shallRetry() throws IOException {
+        ServiceParameters cloudServiceParameters = serviceParameters.toBuilder()
+                .url(new URL("https://unavailable.xray.cloud.example.com"))
+                .edition(XrayEdition.CLOUD)
+                .retryBackoff(1)
+                .build();
+        HttpResponse unavailableResponse = createHttpResponse(HttpStatus.SC_SERVICE_UNAVAILABLE, ContentType.TEXT_PLAIN, TestData.json("maintenance"));
+        HttpResponse tokenResponse = createHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_JSON, TestData.json("\"" + jwt(System.currentTimeMillis() / 1000 + 3600) + "\""));
+        HttpResponse successfulResponse = createHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_OCTET_STREAM, TestData.sampleTestDownloadZip(TestData.MYCOOL_FEATURE_ZIP));
+        when(httpClient.execute(any())).thenReturn(unavailableResponse, tokenResponse, successfulResponse);
+
+        // act
+        xrayCucumberService.downloadXrayCucumberTests(cloudServiceParameters, outputDir, progressReporter);
+
+        // assert
+        ArgumentCaptor<HttpUriRequest> request = ArgumentCaptor.forClass(HttpUriRequest.class);
+        verify(httpClient, times(3)).execute(request.capture());
+        assertThat(request.getAllValues()).extracting(r -> r.getURI().getPath()).containsExactly(XrayCucumberService.CLOUD_ENDPOINT_AUTHENTICATE,
+                XrayCucumberService.CLOUD_ENDPOINT_AUTHENTICATE, XrayCucumberService.CLOUD_ENDPOINT_EXPORT_TEST);
+        verify(progressReporter).reportProgress(startsWith("Jira is not available (HTTP 503), retrying in "), eq(ProgressReporter.INDETERMINATE));
+        verify(progressReporter).reportSuccess(any());
+    }
+
+    @Test
+    void xrayCloud_tokenAboutToExpire_shallAuthenticateAgain() throws IOException {
+        ServiceParameters cloudServiceParameters = serviceParameters.toBuilder()
+                .url(new URL("https://expiring.xray.cloud.example.com"))
+                .edition(XrayEdition.CLOUD)
+                .build();
+        setupXrayCloudResponses(jwt(System.currentTimeMillis() / 1000 + 30));
+
+        // act
+        xrayCucumberService.downloadXrayCucumberTests(cloudServiceParameters, outputDir, progressReporter);
+        xrayCucumberService.downloadXrayCucumberTests(cloudServiceParameters, outputDir, progressReporter);
+
+        // assert
+        ArgumentCaptor<HttpUriRequest> request = ArgumentCaptor.forClass(HttpUriRequest.class);
+        verify(httpClient, times(4)).execute(request.capture());
+        assertThat(request.getAllValues()).extracting(r -> r.getURI().getPath()).containsExactly(XrayCucumberService.CLOUD_ENDPOINT_AUTHENTICATE,
+                XrayCucumberService.CLOUD_ENDPOINT_EXPORT_TEST, XrayCucumberService.CLOUD_ENDPOINT_AUTHENTICATE, XrayCucumberService.CLOUD_ENDPOINT_EXPORT_TEST);
+        verify(progressReporter, times(2)).reportSuccess(any());
+    }
+
+    @Test
+    void xrayCloud_tokenRejected_shallRepeatWithConfiguredTimeouts() throws IOException {
+        ServiceParameters cloudServiceParameters = serviceParameters.toBuilder()
+                .url(new URL("https://rejecting.xray.cloud.example.com"))
+                .edition(XrayEdition.CLOUD)
+                .socketTimeout(2_000)
+                .build();
+        String token = "\"" + jwt(System.currentTimeMillis() / 1000 + 3600) + "\"";
+        HttpResponse tokenResponse = createHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_JSON, TestData.json(token));
+        HttpResponse unauthorizedResponse = createHttpResponse(HttpStatus.SC_UNAUTHORIZED, ContentType.TEXT_PLAIN, TestData.json("token revoked"));
+        HttpResponse renewedTokenResponse = createHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_JSON, TestData.json(token));
+        HttpResponse successfulResponse = createHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_OCTET_STREAM, TestData.sampleTestDownloadZip(TestData.MYCOOL_FEATURE_ZIP));
+        when(httpClient.execute(any())).thenReturn(tokenResponse, unauthorizedResponse, renewedTokenResponse, successfulResponse);
+
+        // act
+        xrayCucumberService.downloadXrayCucumberTests(cloudServiceParameters, outputDir, progressReporter);
+
+        // assert
+        ArgumentCaptor<HttpRequestBase> request = ArgumentCaptor.forClass(HttpRequestBase.class);
+        verify(httpClient, times(4)).execute(request.capture());
+        assertThat(request.getAllValues()).extracting(r -> r.getURI().getPath()).containsExactly(XrayCucumberService.CLOUD_ENDPOINT_AUTHENTICATE,
+                XrayCucumberService.CLOUD_ENDPOINT_EXPORT_TEST, XrayCucumberService.CLOUD_ENDPOINT_AUTHENTICATE, XrayCucumberService.CLOUD_ENDPOINT_EXPORT_TEST);
+        assertThat(request.getAllValues()).allSatisfy(r -> assertThat(r.getConfig().getSocketTimeout()).isEqualTo(2_000));
+        verify(progressReporter).reportSuccess(any());
+    }
+
+    @Test
+    void xrayCloud_canceledWhileWaitingForToken_shallAbort() throws Exception {
+        ServiceParameters cloudServiceParameters = serviceParameters.toBuilder()
+                .url(new URL("https://slow.xray.cloud.example.com"))
+                .edition(XrayEdition.CLOUD)
+                .build();
+        String token = jwt(System.currentTimeMillis() / 1000 + 3600);
+        CountDownLatch authenticationStarted = new CountDownLatch(1);
+        CountDownLatch authenticationReleased = new CountDownLatch(1);
+        when(httpClient.execute(any())).thenAnswer(invocation -> {
+            HttpUriRequest request = invocation.getArgument(0);
+            if (request.getURI().getPath().equals(XrayCucumberService.CLOUD_ENDPOINT_AUTHENTICATE)) {
+                authenticationStarted.countDown();
+                authenticationReleased.await();
+                return createHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_JSON, TestData.json("\"" + token + "\""));
+            }
+            return createHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_OCTET_STREAM, TestData.sampleTestDownloadZip(TestData.MYCOOL_FEATURE_ZIP));
+        });
+        Thread authenticating = new Thread(() -> xrayCucumberService.downloadXrayCucumberTests(cloudServiceParameters, outputDir, progressReporter));
+        authenticating.start();
+        assertThat(authenticationStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        ProgressReporter waitingProgressReporter = mock(ProgressReporter.class);
+        long cancelAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(300);
+
+        // act
+        try {
+            assertTimeoutPreemptively(Duration.ofSeconds(5), () ->
+                    xrayCucumberService.downloadXrayCucumberTests(cloudServiceParameters, outputDir, waitingProgressReporter, () -> System.nanoTime() >= cancelAt));
+            assertThat(authenticating.isAlive()).isTrue();
+        } finally {
+            authenticationReleased.countDown();
+            authenticating.join(5_000);
+        }
+
+        // assert
+        verify(waitingProgressReporter).reportError(eq("download canceled"), any());
+        verify(waitingProgressReporter, never()).reportSuccess(any());
+        verify(progressReporter).reportSuccess(any());
+        ArgumentCaptor<HttpUriRequest> request = ArgumentCaptor.forClass(HttpUriRequest.class);
+        verify(httpClient, times(2)).execute(request.capture());
+        assertThat(request.getAllValues()).extracting(r -> r.getURI().getPath()).containsExactly(XrayCucumberService.CLOUD_ENDPOINT_AUTHENTICATE,
+                XrayCucumberService.CLOUD_ENDPOINT_EXPORT_TEST);
+    }
+
+    @Test
+    void importExecutionResults_compressed_shallStreamReport() throws IOException {
+        ServiceParameters compressingServiceParameters = serviceParameters.toBuilder()
+                .compressExecutionResults(true)
+                .build();
+        Path report = writeCucumberReport(3);
+        List<String> contentEncodings = new ArrayList<>();
+        List<String> bodies = new ArrayList<>();
+        setupExecutionImportResponses(contentEncodings, bodies, HttpStatus.SC_OK);
+
+        // act
+        xrayCucumberService.importExecutionResults(compressingServiceParameters, report, progressReporter);
+
+        // assert
+        ArgumentCaptor<HttpUriRequest> request = ArgumentCaptor.forClass(HttpUriRequest.class);
+        verify(httpClient).execute(request.capture());
+        assertThat(request.getValue().getURI().getPath()).isEqualTo(XrayCucumberService.REST_ENDPOINT_IMPORT_EXECUTION);
+        assertThat(contentEncodings).containsExactly("gzip");
+        assertThat(bodies).containsExactly(new String(Files.readAllBytes(report), StandardCharsets.UTF_8));
+        verify(progressReporter).reportSuccess(endsWith("(TEST-1)"));
+    }
+
+    @Test
+    void importExecutionResults_compressionRejected_shallRepeatUncompressed() throws IOException {
+        ServiceParameters compressingServiceParameters = serviceParameters.toBuilder()
+                .url(new URL("https://uncompressed.example.com"))
+                .compressExecutionResults(true)
+                .build();
+        Path report = writeCucumberReport(3);
+        List<String> contentEncodings = new ArrayList<>();
+        List<String> bodies = new ArrayList<>();
+        setupExecutionImportResponses(contentEncodings, bodies, HttpStatus.SC_UNSUPPORTED_MEDIA_TYPE, HttpStatus.SC_OK);
+
+        // act
+        xrayCucumberService.importExecutionResults(compressingServiceParameters, report, progressReporter);
+        xrayCucumberService.importExecutionResults(compressingServiceParameters, report, progressReporter);
+
+        // assert
+        assertThat(contentEncodings).containsExactly("gzip", null, null);
+        assertThat(bodies).allMatch(body -> body.equals(bodies.get(0)));
+        verify(progressReporter, times(2)).reportSuccess(any());
+    }
+
+    @Test
+    void importExecutionResults_exceedingChunkSize_shallSplitIntoSeveralExecutions() throws IOException {
+        Path report = writeCucumberReport(3);
+        long featureSize = (Files.size(report) - 4) / 3;
+        ServiceParameters chunkingServiceParameters = serviceParameters.toBuilder()
+                .executionChunkSize(2 * featureSize + 3)
+                .build();
+        List<String> contentEncodings = new ArrayList<>();
+        List<String> bodies = new ArrayList<>();
+        setupExecutionImportResponses(contentEncodings, bodies, HttpStatus.SC_OK);
+
+        // act
+        xrayCucumberService.importExecutionResults(chunkingServiceParameters, report, progressReporter);
+
+        // assert
+        assertThat(bodies).hasSize(2);
+        assertThat(bodies.get(0)).startsWith("[{\"name\":\"feature 1\"").contains("feature 2").doesNotContain("feature 3");
+        assertThat(bodies.get(1)).startsWith("[{\"name\":\"feature 3\"").endsWith("]");
+        assertThat(contentEncodings).containsOnlyNulls();
+        try (Stream<Path> files = Files.list(outputDir)) {
+            assertThat(files).containsExactly(report);
+        }
+        verify(progressReporter).reportProgress("importing results of cucumber.json (part 2 of 2)", 0.5);
+        verify(progressReporter).reportSuccess(endsWith("(TEST-1, TEST-2)"));
+    }
+
+    @Test
+    void downloadXrayCucumberTests_temporarilyUnavailable_shallRetry() throws IOException {
+        MetricsListener metricsListener = mock(MetricsListener.class);
+        XrayCucumberService measuredXrayCucumberService = new XrayCucumberService(httpClient, null, metricsListener);
+        HttpResponse unavailableResponse = createHttpResponse(HttpStatus.SC_SERVICE_UNAVAILABLE, ContentType.TEXT_PLAIN, TestData.json("maintenance"));
+        when(unavailableResponse.getFirstHeader("Retry-After")).thenReturn(new BasicHeader("Retry-After", "0"));
+        HttpResponse successfulResponse = createHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_OCTET_STREAM, TestData.sampleTestDownloadZip(TestData.MYCOOL_FEATURE_ZIP));
+        when(httpClient.execute(any())).thenThrow(new ConnectException("Connection refused")).thenReturn(unavailableResponse, successfulResponse);
+        ServiceParameters retryingServiceParameters = serviceParameters.toBuilder().retryBackoff(1).build();
+
+        // act
+        measuredXrayCucumberService.downloadXrayCucumberTests(retryingServiceParameters, outputDir, progressReporter);
+
+        // assert
+        verify(httpClient, times(3)).execute(any());
+        assertThat(outputDir.resolve("mycool.feature")).isNotEmptyFile();
+        verify(progressReporter).reportProgress(startsWith("connection to Jira failed (Connection refused), retrying in "), eq(ProgressReporter.INDETERMINATE));
+        verify(progressReporter).reportProgress(startsWith("Jira is not available (HTTP 503), retrying in "), eq(ProgressReporter.INDETERMINATE));
+        verify(progressReporter).reportSuccess(any());
+        ArgumentCaptor<OperationMetrics> metrics = ArgumentCaptor.forClass(OperationMetrics.class);
+        verify(metricsListener).operationCompleted(metrics.capture());
+        assertThat(metrics.getValue().retries()).isEqualTo(2);
+    }
+
+    @Test
+    void downloadXrayCucumberTests_temporarilyUnavailable_retriesExhausted() throws IOException {
+        setupHttpResponse(HttpStatus.SC_GATEWAY_TIMEOUT, ContentType.TEXT_PLAIN, TestData.json("gateway timeout"));
+        ServiceParameters retryingServiceParameters = serviceParameters.toBuilder().maxRetries(2).retryBackoff(1).build();
+
+        // act
+        xrayCucumberService.downloadXrayCucumberTests(retryingServiceParameters, outputDir, progressReporter);
+
+        // assert
+        verify(httpClient, times(3)).execute(any());
+        verify(progressReporter).reportError(eq("gateway timeout (HTTP 504)"), any());
+    }
+
+    @Test
+    void uploadXrayCucumberTest_gatewayTimeout_shallNotRetry() throws IOException {
+        setupHttpResponse(HttpStatus.SC_GATEWAY_TIMEOUT, ContentType.TEXT_PLAIN, TestData.json("gateway timeout"));
+        Files.createDirectories(outputDir);
+        Files.createFile(featureFile);
+
+        // act
+        xrayCucumberService.uploadXrayCucumberTest(serviceParameters.toBuilder().retryBackoff(1).build(), featureFile, progressReporter);
+
+        // assert
+        verify(httpClient).execute(any());
+        verify(progressReporter).reportError(eq("gateway timeout (HTTP 504)"), any());
+        verifyNoMoreInteractions(progressReporter);
+    }
+
+    @Test
+    void downloadXrayCucumberTests_connectionReset_shallResumeWithRangeRequest() throws IOException {
+        byte[] exportZip = readFully(TestData.generatedTestDownloadZip(3));
+        int resetAt = exportZip.length / 2;
+        // the connection is reset after half of the export
+        InputStream interruptedContent = new InputStream() {
+            private int position;
+
+            @Override
+            public int read() throws IOException {
+                if (position < resetAt) {
+                    return exportZip[position++] & 0xFF;
+                }
+                throw new SocketException("Connection reset");
+            }
+        };
+        HttpResponse interruptedResponse = createHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_OCTET_STREAM, interruptedContent);
+        when(interruptedResponse.getFirstHeader(HttpHeaders.ACCEPT_RANGES)).thenReturn(new BasicHeader(HttpHeaders.ACCEPT_RANGES, "bytes"));
+        when(interruptedResponse.getFirstHeader(HttpHeaders.ETAG)).thenReturn(new BasicHeader(HttpHeaders.ETAG, "\"v1\""));
+        HttpResponse remainingResponse = createHttpResponse(HttpStatus.SC_PARTIAL_CONTENT, ContentType.APPLICATION_OCTET_STREAM,
+                new ByteArrayInputStream(exportZip, resetAt, exportZip.length - resetAt));
+        when(remainingResponse.getFirstHeader(HttpHeaders.CONTENT_RANGE)).thenReturn(
+                new BasicHeader(HttpHeaders.CONTENT_RANGE, "bytes " + resetAt + "-" + (exportZip.length - 1) + "/" + exportZip.length));
+        when(httpClient.execute(any())).thenReturn(interruptedResponse, remainingResponse);
+
+        // act
+        xrayCucumberService.downloadXrayCucumberTests(serviceParameters.toBuilder().retryBackoff(1).build(), outputDir, progressReporter);
+
+        // assert
+        ArgumentCaptor<HttpUriRequest> request = ArgumentCaptor.forClass(HttpUriRequest.class);
+        verify(httpClient, times(2)).execute(request.capture());
+        assertThat(request.getAllValues().get(1).getFirstHeader(HttpHeaders.RANGE).getValue()).isEqualTo("bytes=" + resetAt + "-");
+        assertThat(request.getAllValues().get(1).getFirstHeader(HttpHeaders.IF_RANGE).getValue()).isEqualTo("\"v1\"");
+        for (int i = 0; i < 3; i++) {
+            assertThat(outputDir.resolve(TestData.generatedFeatureName(i))).hasContent(TestData.generatedFeatureContent(i));
+        }
+        verify(progressReporter).reportSuccess(contains("3 added"));
+    }
+
+    @Test
+    void downloadXrayCucumberTests_multipleFilters_successful() throws IOException {
+        ServiceParameters multiFilterServiceParameters = serviceParameters.toBuilder()
+                .filterId(null)
+                .filters(Arrays.asList(new FilterParameters(1L, "smoke"), new FilterParameters(2L, "regression")))
+                .parallelDownloads(2)
+                .build();
+        Map<Long, HttpResponse> httpResponses = new HashMap<>();
+        httpResponses.put(1L, createHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_OCTET_STREAM, TestData.generatedTestDownloadZip(3)));
+        httpResponses.put(2L, createHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_OCTET_STREAM, TestData.generatedTestDownloadZip(5)));
+        setupHttpResponsesPerFilter(httpResponses);
+
+        // act
+        xrayCucumberService.downloadXrayCucumberTests(multiFilterServiceParameters, outputDir, progressReporter);
+
+        // assert
+        for (int i = 0; i < 5; i++) {
+            String featureName = TestData.generatedFeatureName(i);
+            assertThat(Files.exists(outputDir.resolve("smoke").resolve(featureName))
+                    ^ Files.exists(outputDir.resolve("regression").resolve(featureName)))
+                    .as("%s shall be extracted exactly once", featureName)
+                    .isTrue();
+        }
+        assertThat(outputDir.resolve("regression").resolve(TestData.generatedFeatureName(4))).exists();
+        verify(progressReporter).reportSuccess(contains("5 added, 0 changed, 0 unchanged, 0 skipped, 3 duplicates ignored"));
+        verify(progressReporter, never()).reportError(any(), any());
+    }
+
+    @Test
+    void downloadXrayCucumberTests_overlappingFilters_laterFilterFirst_shallExtractTestsOfFirstFilter() throws IOException {
+        ServiceParameters multiFilterServiceParameters = serviceParameters.toBuilder()
+                .filterId(null)
+                .filters(Arrays.asList(new FilterParameters(1L, "smoke"), new FilterParameters(2L, "regression")))
+                .parallelDownloads(2)
+                .transactionalSync(true)
+                .build();
+        CountDownLatch regressionExtracted = new CountDownLatch(1);
+        HttpResponse smokeResponse = createHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_OCTET_STREAM, TestData.generatedTestDownloadZip(3));
+        HttpResponse regressionResponse = createHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_OCTET_STREAM,
+                new FilterInputStream(TestData.generatedTestDownloadZip(5)) {
+                    @Override
+                    public void close() throws IOException {
+                        super.close();
+                        regressionExtracted.countDown();
+                    }
+                });
+        when(httpClient.execute(any())).thenAnswer(invocation -> {
+            HttpUriRequest request = invocation.getArgument(0);
+            if (request.getURI().getQuery().contains("filter=2")) {
+                return regressionResponse;
+            }
+            // the first filter claims its tests only after the second one extracted them
+            assertThat(regressionExtracted.await(5, TimeUnit.SECONDS)).isTrue();
+            return smokeResponse;
+        });
+
+        // act
+        FileChanges fileChanges = xrayCucumberService.downloadXrayCucumberTests(multiFilterServiceParameters, outputDir, progressReporter);
+
+        // assert
+        for (int i = 0; i < 3; i++) {
+            assertThat(outputDir.resolve("smoke").resolve(TestData.generatedFeatureName(i))).exists();
+            assertThat(outputDir.resolve("regression").resolve(TestData.generatedFeatureName(i))).doesNotExist();
+        }
+        assertThat(outputDir.resolve("regression").resolve(TestData.generatedFeatureName(3))).exists();
+        assertThat(outputDir.resolve("regression").resolve(TestData.generatedFeatureName(4))).exists();
+        assertThat(new String(Files.readAllBytes(outputDir.resolve("regression").resolve("xray-cucumber-manifest.json")), StandardCharsets.UTF_8))
+                .doesNotContain(TestData.generatedFeatureName(0));
+        assertThat(fileChanges.created()).hasSize(7);
+        verify(progressReporter).reportSuccess(contains("5 added, 0 changed, 0 unchanged, 0 skipped, 3 duplicates ignored"));
+    }
+
+    @Test
+    void downloadXrayCucumberTests_overlappingFilters_shallRemoveCopiesOfOtherFilter() throws IOException {
+        ServiceParameters regressionServiceParameters = serviceParameters.toBuilder()
+                .filterId(null)
+                .filters(Collections.singletonList(new FilterParameters(2L, "regression")))
+                .build();
+        ServiceParameters multiFilterServiceParameters = regressionServiceParameters.toBuilder()
+                .filters(Arrays.asList(new FilterParameters(1L, "smoke"), new FilterParameters(2L, "regression")))
+                .parallelDownloads(1)
+                .build();
+        Map<Long, HttpResponse> httpResponses = new HashMap<>();
+        httpResponses.put(2L, createHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_OCTET_STREAM, TestData.generatedTestDownloadZip(5)));
+        setupHttpResponsesPerFilter(httpResponses);
+        xrayCucumberService.downloadXrayCucumberTests(regressionServiceParameters, outputDir, progressReporter);
+        Path modifiedCopy = outputDir.resolve("regression").resolve(TestData.generatedFeatureName(1));
+        Files.write(modifiedCopy, "modified locally".getBytes(StandardCharsets.UTF_8));
+        httpResponses.put(1L, createHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_OCTET_STREAM, TestData.generatedTestDownloadZip(2)));
+        httpResponses.put(2L, createHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_OCTET_STREAM, TestData.generatedTestDownloadZip(5)));
+
+        // act
+        FileChanges fileChanges = xrayCucumberService.downloadXrayCucumberTests(multiFilterServiceParameters, outputDir, progressReporter);
+
+        // assert
+        Path movedCopy = outputDir.resolve("regression").resolve(TestData.generatedFeatureName(0));
+        assertThat(movedCopy).doesNotExist();
+        assertThat(modifiedCopy).hasContent("modified locally");
+        assertThat(outputDir.resolve("smoke").resolve(TestData.generatedFeatureName(0))).exists();
+        assertThat(outputDir.resolve("smoke").resolve(TestData.generatedFeatureName(1))).exists();
+        assertThat(new String(Files.readAllBytes(outputDir.resolve("regression").resolve("xray-cucumber-manifest.json")), StandardCharsets.UTF_8))
+                .doesNotContain(TestData.generatedFeatureName(0))
+                .doesNotContain(TestData.generatedFeatureName(1))
+                .contains(TestData.generatedFeatureName(2));
+        assertThat(fileChanges.deleted()).containsExactly(movedCopy);
+    }
+
+    @Test
+    void downloadXrayCucumberTests_overlappingFilters_firstExportNotModified_shallDownloadItAgain() throws IOException {
+        XrayCucumberService cachingXrayCucumberService = new XrayCucumberService(httpClient, exportCache);
+        ServiceParameters multiFilterServiceParameters = serviceParameters.toBuilder()
+                .filterId(null)
+                .filters(Arrays.asList(new FilterParameters(1L, "smoke"), new FilterParameters(2L, "regression")))
+                .parallelDownloads(1)
+                .build();
+        Map<Long, HttpResponse> httpResponses = new HashMap<>();
+        HttpResponse smokeResponse = createHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_OCTET_STREAM, TestData.generatedTestDownloadZip(2));
+        when(smokeResponse.getFirstHeader(HttpHeaders.ETAG)).thenReturn(new BasicHeader(HttpHeaders.ETAG, "\"v1\""));
+        httpResponses.put(1L, smokeResponse);
+        httpResponses.put(2L, createHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_OCTET_STREAM, TestData.generatedTestDownloadZip(1)));
+        setupHttpResponsesPerFilter(httpResponses);
+        cachingXrayCucumberService.downloadXrayCucumberTests(multiFilterServiceParameters, outputDir, progressReporter);
+        HttpResponse notModifiedResponse = createHttpResponse(HttpStatus.SC_NOT_MODIFIED, ContentType.APPLICATION_OCTET_STREAM, TestData.generatedTestDownloadZip(2));
+        HttpResponse unchangedSmokeResponse = createHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_OCTET_STREAM, TestData.generatedTestDownloadZip(2));
+        HttpResponse regressionResponse = createHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_OCTET_STREAM, TestData.generatedTestDownloadZip(3));
+        doAnswer(invocation -> {
+            HttpUriRequest request = invocation.getArgument(0);
+            if (request.getURI().getQuery().contains("filter=2")) {
+                return regressionResponse;
+            }
+            return request.getFirstHeader(HttpHeaders.IF_NONE_MATCH) != null ? notModifiedResponse : unchangedSmokeResponse;
+        }).when(httpClient).execute(any(HttpUriRequest.class));
+
+        // act
+        cachingXrayCucumberService.downloadXrayCucumberTests(multiFilterServiceParameters, outputDir, progressReporter);
+
+        // assert
+        assertThat(outputDir.resolve("regression").resolve(TestData.generatedFeatureName(0))).doesNotExist();
+        assertThat(outputDir.resolve("regression").resolve(TestData.generatedFeatureName(1))).doesNotExist();
+        assertThat(outputDir.resolve("regression").resolve(TestData.generatedFeatureName(2))).exists();
+        verify(progressReporter).reportSuccess(contains("1 added, 0 changed, 2 unchanged, 0 skipped, 2 duplicates ignored"));
+    }
+
+    @Test
+    void downloadXrayCucumberTests_multipleFilters_maxConcurrentRequests_shallQueue() throws IOException {
+        ServiceParameters governedServiceParameters = serviceParameters.toBuilder()
+                .url(new URL("https://governed.example.com"))
+                .filterId(null)
+                .filters(Arrays.asList(new FilterParameters(1L, "smoke"), new FilterParameters(2L, "regression"), new FilterParameters(3L, "nightly")))
+                .parallelDownloads(3)
+                .maxConcurrentRequests(1)
+                .build();
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        when(httpClient.execute(any())).thenAnswer(invocation -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            Thread.sleep(250);
+            inFlight.decrementAndGet();
+            return createHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_OCTET_STREAM, TestData.generatedTestDownloadZip(1));
+        });
+
+        // act
+        xrayCucumberService.downloadXrayCucumberTests(governedServiceParameters, outputDir, progressReporter);
+
+        // assert
+        verify(httpClient, times(3)).execute(any());
+        assertThat(maxInFlight.get()).isEqualTo(1);
+        verify(progressReporter, atLeastOnce()).reportProgress(contains("waiting for one of 1 requests in flight to https://governed.example.com"), anyDouble());
+        verify(progressReporter).reportSuccess(any());
+    }
+
+    @Test
+    void downloadXrayCucumberTests_moreFiltersThanPooledConnections_shallQueue() throws IOException {
+        int maxConnectionsPerRoute = HttpClientParameters.DEFAULT.maxConnectionsPerRoute();
+        List<FilterParameters> filters = new ArrayList<>();
+        for (long filterId = 1; filterId <= maxConnectionsPerRoute + 2; filterId++) {
+            filters.add(new FilterParameters(filterId, "filter-" + filterId));
+        }
+        ServiceParameters governedServiceParameters = serviceParameters.toBuilder()
+                .url(new URL("https://pooled.example.com"))
+                .filterId(null)
+                .filters(filters)
+                .parallelDownloads(filters.size())
+                .maxConcurrentRequests(filters.size())
+                .build();
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        when(httpClient.execute(any())).thenAnswer(invocation -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            Thread.sleep(250);
+            inFlight.decrementAndGet();
+            return createHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_OCTET_STREAM, TestData.generatedTestDownloadZip(1));
+        });
+
+        // act
+        xrayCucumberService.downloadXrayCucumberTests(governedServiceParameters, outputDir, progressReporter);
+
+        // assert
+        verify(httpClient, times(filters.size())).execute(any());
+        assertThat(maxInFlight.get()).isLessThanOrEqualTo(maxConnectionsPerRoute);
+        verify(progressReporter, atLeastOnce()).reportProgress(contains("waiting for one of " + maxConnectionsPerRoute + " requests in flight"), anyDouble());
+        verify(progressReporter).reportSuccess(any());
+    }
+
+    @Test
+    void downloadXrayCucumberTests_moreFiltersThanConfiguredPooledConnections_shallQueue() throws IOException {
+        HttpClientParameters httpClientParameters = HttpClientParameters.builder().maxConnectionsPerRoute(2).build();
+        XrayCucumberService pooledXrayCucumberService = new XrayCucumberService(httpClient, httpClientParameters, null, null);
+        List<FilterParameters> filters = new ArrayList<>();
+        for (long filterId = 1; filterId <= 4; filterId++) {
+            filters.add(new FilterParameters(filterId, "filter-" + filterId));
+        }
+        ServiceParameters governedServiceParameters = serviceParameters.toBuilder()
+                .url(new URL("https://small-pool.example.com"))
+                .filterId(null)
+                .filters(filters)
+                .parallelDownloads(filters.size())
+                .maxConcurrentRequests(filters.size())
+                .build();
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        when(httpClient.execute(any())).thenAnswer(invocation -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            Thread.sleep(250);
+            inFlight.decrementAndGet();
+            return createHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_OCTET_STREAM, TestData.generatedTestDownloadZip(1));
+        });
+
+        // act
+        pooledXrayCucumberService.downloadXrayCucumberTests(governedServiceParameters, outputDir, progressReporter);
+
+        // assert
+        verify(httpClient, times(filters.size())).execute(any());
+        assertThat(maxInFlight.get()).isLessThanOrEqualTo(2);
+        verify(progressReporter, atLeastOnce()).reportProgress(contains("waiting for one of 2 requests in flight to https://small-pool.example.com"), anyDouble());
+        verify(progressReporter).reportSuccess(any());
+    }
+
+    @Test
+    void uploadXrayCucumberTests_maxRequestsPerSecond_shallThrottle() throws IOException {
+        when(httpClient.execute(any())).thenAnswer(invocation -> createHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_JSON, TestData.importResponse("TEST-1")));
+        Files.createDirectories(outputDir);
+        List<Path> featureFiles = Arrays.asList(outputDir.resolve("first.feature"), outputDir.resolve("second.feature"),
+                outputDir.resolve("third.feature"), outputDir.resolve("fourth.feature"));
+        for (Path file : featureFiles) {
+            Files.createFile(file);
+        }
+        ServiceParameters throttledServiceParameters = serviceParameters.toBuilder()
+                .url(new URL("https://throttled.example.com"))
+                .parallelUploads(1)
+                .maxRequestsPerSecond(2)
+                .build();
+
+        // act
+        long start = System.nanoTime();
+        xrayCucumberService.uploadXrayCucumberTests(throttledServiceParameters, featureFiles, progressReporter);
+
+        // assert
+        // a burst of two requests passes immediately, the others have to wait half a second each
+        assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(900_000_000L);
+        verify(httpClient, times(4)).execute(any());
+        verify(progressReporter, atLeastOnce()).reportProgress(startsWith("throttled to 2 requests per second to https://throttled.example.com"), anyDouble());
+        verify(progressReporter).reportSuccess(startsWith("uploaded successfully 4 of 4 feature files"));
+    }
+
+    @Test
+    void downloadXrayCucumberTests_multipleFilters_oneFailing() throws IOException {
+        ServiceParameters multiFilterServiceParameters = serviceParameters.toBuilder()
+                .filters(Collections.singletonList(new FilterParameters(2L, "regression")))
+                .build();
+        Map<Long, HttpResponse> httpResponses = new HashMap<>();
+        httpResponses.put(42L, createHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_OCTET_STREAM, TestData.generatedTestDownloadZip(3)));
+        httpResponses.put(2L, createHttpResponse(HttpStatus.SC_INTERNAL_SERVER_ERROR, ContentType.TEXT_PLAIN, TestData.generatedTestDownloadZip(1)));
+        setupHttpResponsesPerFilter(httpResponses);
+
+        // act
+        xrayCucumberService.downloadXrayCucumberTests(multiFilterServiceParameters, outputDir, progressReporter);
+
+        // assert
+        assertThat(outputDir.resolve(TestData.generatedFeatureName(2))).exists();
+        verify(progressReporter).reportError(any(), any());
+        verify(progressReporter, never()).reportSuccess(any());
+    }
+
+    @Test
+    void downloadXrayCucumberTests_transactional_oneFilterFailing_shallNotChangeAnything() throws IOException {
+        ServiceParameters transactionalServiceParameters = serviceParameters.toBuilder()
+                .filters(Collections.singletonList(new FilterParameters(2L, "regression")))
+                .transactionalSync(true)
+                .parallelDownloads(1)
+                .build();
+        Map<Long, HttpResponse> httpResponses = new HashMap<>();
+        httpResponses.put(42L, createHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_OCTET_STREAM, TestData.generatedTestDownloadZip(3)));
+        httpResponses.put(2L, createHttpResponse(HttpStatus.SC_INTERNAL_SERVER_ERROR, ContentType.TEXT_PLAIN, TestData.generatedTestDownloadZip(1)));
+        setupHttpResponsesPerFilter(httpResponses);
+
+        // act
+        xrayCucumberService.downloadXrayCucumberTests(transactionalServiceParameters, outputDir, progressReporter);
+
+        // assert
+        assertThat(Files.list(outputDir)).isEmpty();
+        verify(progressReporter).reportError(any(), any());
+        verify(progressReporter, never()).reportSuccess(any());
+    }
+
+    @Test
+    void downloadXrayCucumberTests_transactional_successful() throws IOException {
+        ServiceParameters transactionalServiceParameters = serviceParameters.toBuilder().transactionalSync(true).build();
+        setupHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_OCTET_STREAM, TestData.generatedTestDownloadZip(3));
+
+        // act
+        xrayCucumberService.downloadXrayCucumberTests(transactionalServiceParameters, outputDir, progressReporter);
+
+        // assert
+        assertThat(Files.list(outputDir)).extracting(file -> file.getFileName().toString()).containsExactlyInAnyOrder(
+                TestData.generatedFeatureName(0), TestData.generatedFeatureName(1), TestData.generatedFeatureName(2),
+                "xray-cucumber-manifest.json");
+        assertThat(outputDir.resolve(TestData.generatedFeatureName(2))).hasContent(TestData.generatedFeatureContent(2));
+        verify(progressReporter).reportSuccess(contains("3 added"));
+    }
+
+    @Test
+    void downloadXrayCucumberTests_canceled_shallKeepCompletedFilesOnly() throws IOException {
+        setupHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_OCTET_STREAM, TestData.generatedTestDownloadZip(5));
+        CancellationToken cancellationToken = () -> Files.exists(outputDir.resolve(TestData.generatedFeatureName(1)));
+
+        // act
+        xrayCucumberService.downloadXrayCucumberTests(serviceParameters, outputDir, progressReporter, cancellationToken);
+
+        // assert
+        assertThat(Files.list(outputDir)).extracting(file -> file.getFileName().toString())
+                .containsExactlyInAnyOrder(TestData.generatedFeatureName(0), TestData.generatedFeatureName(1));
+        assertThat(outputDir.resolve(TestData.generatedFeatureName(1))).hasContent(TestData.generatedFeatureContent(1));
+        ArgumentCaptor<HttpRequestBase> request = ArgumentCaptor.forClass(HttpRequestBase.class);
+        verify(httpClient).execute(request.capture());
+        assertThat(request.getValue().isAborted()).isTrue();
+        verify(progressReporter).reportError(eq("download canceled"), any());
+        verify(progressReporter, never()).reportSuccess(any());
+    }
+
+    @Test
+    void downloadXrayCucumberTests_canceledBeforeRequest() {
+        // act
+        xrayCucumberService.downloadXrayCucumberTests(serviceParameters, outputDir, progressReporter, () -> true);
+
+        // assert
+        verifyNoInteractions(httpClient);
+        verify(progressReporter).reportError(eq("download canceled"), any());
+        verifyNoMoreInteractions(progressReporter);
+    }
+
+    @Test
+    void downloadXrayCucumberTests_canceledWhileWaitingForJira_shallAbortRequest() throws IOException {
+        AtomicBoolean canceled = new AtomicBoolean();
+        when(httpClient.execute(any())).thenAnswer(invocation -> {
+            canceled.set(true);
+            awaitAborted(invocation.getArgument(0));
+            throw new RequestAbortedException("Request aborted");
+        });
+
+        // act
+        xrayCucumberService.downloadXrayCucumberTests(serviceParameters, outputDir, progressReporter, canceled::get);
+
+        // assert
+        ArgumentCaptor<HttpRequestBase> request = ArgumentCaptor.forClass(HttpRequestBase.class);
+        verify(httpClient).execute(request.capture());
+        assertThat(request.getValue().isAborted()).isTrue();
+        verify(progressReporter).reportError(eq("download canceled"), any());
+        verifyNoMoreInteractions(progressReporter);
+    }
+
+    @Test
+    void downloadXrayCucumberTests_canceledDuringTransfer_shallAbortRequest() throws IOException {
+        AtomicBoolean canceled = new AtomicBoolean();
+        byte[] exportZip = readFully(TestData.generatedTestDownloadZip(3));
+        when(httpClient.execute(any())).thenAnswer(invocation -> {
+            HttpRequestBase request = invocation.getArgument(0);
+            // the connection stalls after the first entry until the request is aborted
+            InputStream stallingContent = new InputStream() {
+                private int position;
+
+                @Override
+                public int read() throws IOException {
+                    if (position < exportZip.length / 2) {
+                        return exportZip[position++] & 0xFF;
+                    }
+                    canceled.set(true);
+                    awaitAborted(request);
+                    throw new SocketException("Socket closed");
+                }
+            };
+            return createHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_OCTET_STREAM, stallingContent);
+        });
+
+        // act
+        xrayCucumberService.downloadXrayCucumberTests(serviceParameters, outputDir, progressReporter, canceled::get);
+
+        // assert
+        ArgumentCaptor<HttpRequestBase> request = ArgumentCaptor.forClass(HttpRequestBase.class);
+        verify(httpClient).execute(request.capture());
+        assertThat(request.getValue().isAborted()).isTrue();
+        assertThat(outputDir.resolve(TestData.generatedFeatureName(2))).doesNotExist();
+        verify(progressReporter).reportError(eq("download canceled"), any());
+        verify(progressReporter, never()).reportSuccess(any());
+    }
+
+    @Test
+    void downloadXrayCucumberTests_transactional_canceled_shallNotChangeAnything() throws IOException {
+        ServiceParameters transactionalServiceParameters = serviceParameters.toBuilder().transactionalSync(true).build();
+        setupHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_OCTET_STREAM, TestData.generatedTestDownloadZip(5));
+        AtomicInteger polls = new AtomicInteger();
+        CancellationToken cancellationToken = () -> polls.incrementAndGet() > 4;
+
+        // act
+        xrayCucumberService.downloadXrayCucumberTests(transactionalServiceParameters, outputDir, progressReporter, cancellationToken);
+
+        // assert
+        assertThat(Files.list(outputDir)).isEmpty();
+        verify(progressReporter).reportError(eq("download canceled"), any());
+    }
+
+    @Test
+    void downloadXrayCucumberTests_shallReturnChangedFilesOnly() throws IOException {
+        HttpResponse firstResponse = createHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_OCTET_STREAM, TestData.generatedTestDownloadZip(2));
+        HttpResponse secondResponse = createHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_OCTET_STREAM, TestData.generatedTestDownloadZip(3));
+        HttpResponse thirdResponse = createHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_OCTET_STREAM, TestData.generatedTestDownloadZip(3));
+        when(httpClient.execute(any())).thenReturn(firstResponse, secondResponse, thirdResponse);
+        Path manifestFile = outputDir.resolve("xray-cucumber-manifest.json");
+
+        // act
+        FileChanges firstChanges = xrayCucumberService.downloadXrayCucumberTests(serviceParameters, outputDir, progressReporter);
+        FileChanges secondChanges = xrayCucumberService.downloadXrayCucumberTests(serviceParameters, outputDir, progressReporter);
+        FileChanges thirdChanges = xrayCucumberService.downloadXrayCucumberTests(serviceParameters, outputDir, progressReporter);
+
+        // assert
+        assertThat(firstChanges.created()).containsExactlyInAnyOrder(
+                outputDir.resolve(TestData.generatedFeatureName(0)), outputDir.resolve(TestData.generatedFeatureName(1)), manifestFile);
+        assertThat(firstChanges.modified()).isEmpty();
+        assertThat(secondChanges.created()).containsExactly(outputDir.resolve(TestData.generatedFeatureName(2)));
+        assertThat(secondChanges.modified()).containsExactly(manifestFile);
+        assertThat(thirdChanges.isEmpty()).isTrue();
+        assertThat(firstChanges.deleted()).isEmpty();
+    }
+
+    @Test
+    void downloadXrayCucumberTests_filterDirectoryOutsideOutputDir() {
+        ServiceParameters multiFilterServiceParameters = serviceParameters.toBuilder()
+                .filterId(null)
+                .filters(Collections.singletonList(new FilterParameters(2L, "../elsewhere")))
+                .build();
+
+        // act
+        xrayCucumberService.downloadXrayCucumberTests(multiFilterServiceParameters, outputDir, progressReporter);
+
+        // assert
+        verify(progressReporter).reportError(any(), any());
+        verifyNoMoreInteractions(progressReporter);
+    }
+
+    @Test
+    void uploadXrayCucumberTests_successful() throws IOException {
+        setupHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_JSON, TestData.importResponse("TEST-1"));
+        Files.createDirectories(outputDir);
+        Files.createFile(featureFile);
+
+        // act
+        xrayCucumberService.uploadXrayCucumberTest(serviceParameters, featureFile, progressReporter);
+
+        // assert
+        verify(progressReporter).reportSuccess(any());
+        verifyNoMoreInteractions(progressReporter);
+    }
+
+    @Test
+    void uploadXrayCucumberTest_temporarilyUnavailable_shallSendFeatureFileAgain() throws IOException {
+        HttpResponse unavailableResponse = createHttpResponse(HttpStatus.SC_SERVICE_UNAVAILABLE, ContentType.TEXT_PLAIN, TestData.json("maintenance"));
+        HttpResponse successfulResponse = createHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_JSON, TestData.importResponse("TEST-1"));
+        List<String> sentBodies = new ArrayList<>();
+        when(httpClient.execute(any())).thenAnswer(invocation -> {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            ((HttpEntityEnclosingRequest) invocation.getArgument(0)).getEntity().writeTo(body);
+            sentBodies.add(body.toString(StandardCharsets.UTF_8.name()));
+            return sentBodies.size() == 1 ? unavailableResponse : successfulResponse;
+        });
+        Files.createDirectories(outputDir);
+        Files.write(featureFile, "Feature: mynew".getBytes(StandardCharsets.UTF_8));
+        ServiceParameters retryingServiceParameters = serviceParameters.toBuilder().retryBackoff(1).build();
+
+        // act
+        xrayCucumberService.uploadXrayCucumberTest(retryingServiceParameters, featureFile, progressReporter);
+
+        // assert
+        verify(httpClient, times(2)).execute(any());
+        assertThat(sentBodies).hasSize(2).allSatisfy(body -> assertThat(body)
+                .contains("filename=\"mynew.feature\"")
+                .contains("Feature: mynew"));
+        verify(progressReporter).reportSuccess(any());
+    }
+
+    @Test
+    void uploadXrayCucumberTests_directory_successful() throws IOException {
+        HttpResponse firstResponse = createHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_JSON, TestData.importResponse("TEST-1"));
+        HttpResponse secondResponse = createHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_JSON, TestData.importResponse("TEST-2"));
+        when(httpClient.execute(any())).thenReturn(firstResponse, secondResponse);
+        Files.createDirectories(outputDir.resolve("smoke"));
+        Files.createFile(outputDir.resolve("first.feature"));
+        Files.createFile(outputDir.resolve("smoke/second.feature"));
+        Files.createFile(outputDir.resolve("xray-cucumber.json"));
+
+        // act
+        xrayCucumberService.uploadXrayCucumberTests(serviceParameters, Collections.singletonList(outputDir), progressReporter);
+
+        // assert
+        verify(httpClient, times(2)).execute(any());
+        verify(progressReporter, times(2)).reportProgress(startsWith("uploading "), anyDouble());
+        verify(progressReporter).reportSuccess(startsWith("uploaded successfully 2 of 2 feature files (TEST-"));
+        verifyNoMoreInteractions(progressReporter);
+    }
+
+    @Test
+    void uploadXrayCucumberTests_someFailing() throws IOException {
+        HttpResponse firstResponse = createHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_JSON, TestData.importResponse("TEST-1"));
+        HttpResponse failedResponse = createHttpResponse(HttpStatus.SC_BAD_REQUEST, ContentType.APPLICATION_JSON, TestData.json("{\"error\":\"invalid feature\"}"));
+        HttpResponse thirdResponse = createHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_JSON, TestData.importResponse("TEST-3"));
+        when(httpClient.execute(any())).thenReturn(firstResponse, failedResponse, thirdResponse);
+        Files.createDirectories(outputDir);
+        List<Path> featureFiles = Arrays.asList(outputDir.resolve("first.feature"), outputDir.resolve("second.feature"), outputDir.resolve("third.feature"));
+        for (Path file : featureFiles) {
+            Files.createFile(file);
+        }
+        ServiceParameters sequentialServiceParameters = serviceParameters.toBuilder().parallelUploads(1).build();
+
+        // act
+        xrayCucumberService.uploadXrayCucumberTests(sequentialServiceParameters, featureFiles, progressReporter);
+
+        // assert
+        verify(progressReporter, times(3)).reportProgress(any(), anyDouble());
+        verify(progressReporter).reportError(eq("uploaded successfully 2 of 3 feature files (TEST-1, TEST-3)"
+                + "<br>failed: second.feature (invalid feature (HTTP 400))"), any());
+        verifyNoMoreInteractions(progressReporter);
+    }
+
+    @Test
+    void uploadXrayCucumberTests_bulkUpload_successful() throws IOException {
+        setupHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_JSON, TestData.json("{"
+                + "\"updatedOrCreatedTests\":[{\"id\":\"10001\",\"key\":\"TEST-1\"},{\"id\":\"10002\",\"key\":\"TEST-2\"}],"
+                + "\"updatedOrCreatedPreconditions\":[{\"id\":\"10003\",\"key\":\"TEST-3\"}]}"));
+        Files.createDirectories(outputDir.resolve("smoke"));
+        Files.write(outputDir.resolve("first.feature"), TestData.generatedFeatureContent(1).getBytes(StandardCharsets.UTF_8));
+        Files.write(outputDir.resolve("smoke/first.feature"), TestData.generatedFeatureContent(2).getBytes(StandardCharsets.UTF_8));
+        ServiceParameters bulkServiceParameters = serviceParameters.toBuilder().bulkUpload(true).build();
+
+        // act
+        xrayCucumberService.uploadXrayCucumberTests(bulkServiceParameters, Collections.singletonList(outputDir), progressReporter);
+
+        // assert
+        ArgumentCaptor<HttpPost> request = ArgumentCaptor.forClass(HttpPost.class);
+        verify(httpClient).execute(request.capture());
+        assertThat(request.getValue().getEntity().isChunked()).isTrue();
+        Map<String, String> zippedFeatures = unzipMultipartBody(request.getValue().getEntity());
+        assertThat(zippedFeatures).containsOnly(
+                entry("1_first.feature", TestData.generatedFeatureContent(1)),
+                entry("2_first.feature", TestData.generatedFeatureContent(2)));
+        verify(progressReporter).reportProgress(any(), anyDouble());
+        verify(progressReporter).reportSuccess("uploaded successfully 2 of 2 feature files (TEST-1, TEST-2, TEST-3)");
+        verifyNoMoreInteractions(progressReporter);
+    }
+
+    @Test
+    void uploadXrayCucumberTests_authenticationFailed() throws IOException {
+        setupHttpResponse(HttpStatus.SC_UNAUTHORIZED, ContentType.TEXT_PLAIN);
+        Files.createDirectories(outputDir);
+        List<Path> featureFiles = Arrays.asList(outputDir.resolve("first.feature"), outputDir.resolve("second.feature"));
+        for (Path file : featureFiles) {
+            Files.createFile(file);
+        }
+        ServiceParameters sequentialServiceParameters = serviceParameters.toBuilder().parallelUploads(1).build();
+
+        // act
+        xrayCucumberService.uploadXrayCucumberTests(sequentialServiceParameters, featureFiles, progressReporter);
+
+        // assert
+        verify(httpClient).execute(any());
+        verify(progressReporter).reportProgress(any(), anyDouble());
+        verify(progressReporter).reportAuthenticationError(any());
+        verifyNoMoreInteractions(progressReporter);
+    }
+
+    @Test
+    void uploadChangedXrayCucumberTests_shallOnlyUploadFilesChangedSinceLastSync() throws IOException {
+        HttpResponse downloadResponse = createHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_OCTET_STREAM, TestData.generatedTestDownloadZip(3));
+        HttpResponse uploadResponse = createHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_JSON, TestData.importResponse("TEST-2"));
+        when(httpClient.execute(any())).thenReturn(downloadResponse, uploadResponse);
+        xrayCucumberService.downloadXrayCucumberTests(serviceParameters, outputDir, null);
+        Path modifiedFeatureFile = outputDir.resolve(TestData.generatedFeatureName(2));
+        Files.write(modifiedFeatureFile, "Feature: modified".getBytes(StandardCharsets.UTF_8));
+
+        // act
+        FileChanges firstFileChanges = xrayCucumberService.uploadChangedXrayCucumberTests(serviceParameters, Collections.singletonList(outputDir), progressReporter);
+        FileChanges secondFileChanges = xrayCucumberService.uploadChangedXrayCucumberTests(serviceParameters, Collections.singletonList(outputDir), progressReporter);
+
+        // assert
+        assertThat(firstFileChanges.modified()).containsExactly(outputDir.toAbsolutePath().resolve("xray-cucumber-manifest.json"));
+        assertThat(firstFileChanges.created()).isEmpty();
+        assertThat(secondFileChanges.isEmpty()).isTrue();
+        ArgumentCaptor<HttpUriRequest> request = ArgumentCaptor.forClass(HttpUriRequest.class);
+        verify(httpClient, times(2)).execute(request.capture());
+        assertThat(request.getAllValues().get(1)).isInstanceOf(HttpPost.class);
+        verify(progressReporter).reportProgress(eq("uploading " + TestData.generatedFeatureName(2)), anyDouble());
+        verify(progressReporter).reportSuccess("uploaded successfully 1 of 1 feature files, 2 unchanged (TEST-2)");
+        verify(progressReporter).reportSuccess("all 3 feature files are unchanged since last synchronization, nothing uploaded");
+        verifyNoMoreInteractions(progressReporter);
+    }
+
+    private void awaitAborted(HttpRequestBase request) throws InterruptedIOException {
+        try {
+            for (int i = 0; i < 500 && !request.isAborted(); i++) {
+                Thread.sleep(10);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+        assertThat(request.isAborted()).isTrue();
+    }
+
+    private byte[] readFully(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        int len;
+        byte[] buffer = new byte[1024];
+        while ((len = inputStream.read(buffer)) > 0) {
+            outputStream.write(buffer, 0, len);
+        }
+        return outputStream.toByteArray();
+    }
+
+    private Map<String, String> unzipMultipartBody(HttpEntity entity) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        entity.writeTo(body);
+        byte[] bytes = body.toByteArray();
+        int zipStart = 0;
+        while (!(bytes[zipStart] == 'P' && bytes[zipStart + 1] == 'K' && bytes[zipStart + 2] == 3 && bytes[zipStart + 3] == 4)) {
+            zipStart++;
+        }
+        Map<String, String> entries = new HashMap<>();
+        try (ZipInputStream zipInputStream = new ZipInputStream(new ByteArrayInputStream(bytes, zipStart, bytes.length - zipStart))) {
+            ZipEntry zipEntry;
+            while ((zipEntry = zipInputStream.getNextEntry()) != null) {
+                ByteArrayOutputStream content = new ByteArrayOutputStream();
+                int len;
+                byte[] buffer = new byte[1024];
+                while ((len = zipInputStream.read(buffer)) > 0) {
+                    content.write(buffer, 0, len);
+                }
+                entries.put(zipEntry.getName(), new String(content.toByteArray(), StandardCharsets.UTF_8));
+            }
+        }
+        return entries;
+    }
+
+    private HttpResponse setupHttpResponse(int httpStatus, ContentType contentType) throws IOException {
+        return setupHttpResponse(httpStatus, contentType, TestData.sampleTestDownloadZip(TestData.MYCOOL_FEATURE_ZIP));
+    }
+
+    private HttpResponse setupHttpResponse(int httpStatus, ContentType contentType, InputStream content) throws IOException {
+        HttpResponse httpResponse = createHttpResponse(httpStatus, contentType, content);
+        when(httpClient.execute(any())).thenReturn(httpResponse);
+        return httpResponse;
+    }
+
+    private Path writeCucumberReport(int features) throws IOException {
+        StringBuilder report = new StringBuilder("[");
+        for (int i = 1; i <= features; i++) {
+            report.append(i == 1 ? "" : ",")
+                    .append("{\"name\":\"feature ").append(i).append("\",\"elements\":[{\"name\":\"scenario\",\"steps\":[{\"result\":{\"status\":\"passed\"}}]}]}");
+        }
+        Files.createDirectories(outputDir);
+        return Files.write(outputDir.resolve("cucumber.json"), report.append("]").toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Records the content encoding and the (uncompressed) body of each execution import, answered with the given
+     * status codes in turn, where the last one is repeated.
+     */
+    private void setupExecutionImportResponses(List<String> contentEncodings, List<String> bodies, int... statusCodes) throws IOException {
+        AtomicInteger requests = new AtomicInteger();
+        AtomicInteger testExecutions = new AtomicInteger();
+        when(httpClient.execute(any())).thenAnswer(invocation -> {
+            HttpEntity entity = ((HttpEntityEnclosingRequest) invocation.getArgument(0)).getEntity();
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            entity.writeTo(body);
+            boolean compressed = entity.getContentEncoding() != null;
+            contentEncodings.add(compressed ? entity.getContentEncoding().getValue() : null);
+            InputStream content = compressed ? new GZIPInputStream(new ByteArrayInputStream(body.toByteArray())) : new ByteArrayInputStream(body.toByteArray());
+            bodies.add(new String(readFully(content), StandardCharsets.UTF_8));
+            int statusCode = statusCodes[Math.min(requests.getAndIncrement(), statusCodes.length - 1)];
+            return statusCode == HttpStatus.SC_OK ?
+                    createHttpResponse(statusCode, ContentType.APPLICATION_JSON, TestData.json("{\"testExecIssue\":{\"id\":\"1\",\"key\":\"TEST-" + testExecutions.incrementAndGet() + "\"}}")) :
+                    createHttpResponse(statusCode, ContentType.TEXT_PLAIN, TestData.json("unsupported content encoding"));
+        });
+    }
+
+    private void setupXrayCloudResponses(String token) throws IOException {
+        when(httpClient.execute(any())).thenAnswer(invocation -> {
+            HttpUriRequest request = invocation.getArgument(0);
+            switch (request.getURI().getPath()) {
+                case XrayCucumberService.CLOUD_ENDPOINT_AUTHENTICATE:
+                    return createHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_JSON, TestData.json("\"" + token + "\""));
+                case XrayCucumberService.CLOUD_ENDPOINT_EXPORT_TEST:
+                    return createHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_OCTET_STREAM, TestData.sampleTestDownloadZip(TestData.MYCOOL_FEATURE_ZIP));
+                default:
+                    return createHttpResponse(HttpStatus.SC_OK, ContentType.APPLICATION_JSON, TestData.importResponse("TEST-1"));
+            }
+        });
+    }
+
+    private String exportCacheKey(Path outputDir) {
+        return serviceParameters.url() + XrayCucumberService.REST_ENDPOINT_EXPORT_TEST + "?filter=42&outputDir=" + outputDir.toAbsolutePath().normalize();
+    }
+
+    private String jwt(long expiresAtSeconds) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString("{\"alg\":\"HS256\"}".getBytes(StandardCharsets.UTF_8)) + "."
+                + encoder.encodeToString(("{\"exp\":" + expiresAtSeconds + "}").getBytes(StandardCharsets.UTF_8)) + ".signature";
+    }
+
+    private void setupHttpResponsesPerFilter(Map<Long, HttpResponse> httpResponses) throws IOException {
+        when(httpClient.execute(any())).thenAnswer(invocation -> {
+            HttpUriRequest request = invocation.getArgument(0);
+            return new URIBuilder(request.getURI()).getQueryParams().stream()
+                    .filter(parameter -> parameter.getName().equals("filter"))
+                    .map(parameter -> httpResponses.get(Long.valueOf(parameter.getValue())))
+                    .findFirst()
+                    .orElseThrow(IllegalArgumentException::new);
+        });
+    }
+
+    private HttpResponse createHttpResponse(int httpStatus, ContentType contentType, InputStream content) throws IOException {
+        HttpResponse httpResponse = mock(HttpResponse.class);
+        StatusLine statusLine = mock(StatusLine.class);
+        HttpEntity httpEntity = mock(HttpEntity.class);
         when(httpResponse.getStatusLine()).thenReturn(statusLine);
         when(statusLine.getStatusCode()).thenReturn(httpStatus);
         when(httpResponse.getEntity()).thenReturn(httpEntity);
-        when(httpEntity.getContent()).thenReturn(TestData.sampleTestDownloadZip(TestData.MYCOOL_FEATURE_ZIP));
+        when(httpEntity.getContent()).thenReturn(content);
         when(httpEntity.getContentType()).thenReturn(new BasicHeader("content-type", contentType.getMimeType()));
+        return httpResponse;
     }
-}
\ No newline at end of file
+}
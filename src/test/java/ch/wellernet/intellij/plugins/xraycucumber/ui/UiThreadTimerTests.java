@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package ch.wellernet.intellij.plugins.xraycucumber.ui;
+
+import ch.wellernet.intellij.plugins.xraycucumber.service.MetricsListener;
+import ch.wellernet.intellij.plugins.xraycucumber.service.OperationMetrics;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class UiThreadTimerTests {
+    private final MetricsListener delegate = mock(MetricsListener.class);
+
+    @Test
+    void stoppedBeforeOperationCompleted_shallAddUiThreadTime() throws InterruptedException {
+        UiThreadTimer uiThreadTimer = new UiThreadTimer(delegate);
+        OperationMetrics metrics = new OperationMetrics("download");
+        Thread.sleep(20);
+
+        // act
+        uiThreadTimer.stop();
+        uiThreadTimer.operationCompleted(metrics);
+
+        // assert
+        assertThat(metrics.phaseMillis(OperationMetrics.Phase.UI_THREAD)).isGreaterThanOrEqualTo(20);
+        verify(delegate).operationCompleted(metrics);
+    }
+
+    @Test
+    void operationCompletedBeforeStopped_shallAddUiThreadTime() throws InterruptedException {
+        UiThreadTimer uiThreadTimer = new UiThreadTimer(delegate);
+        OperationMetrics metrics = new OperationMetrics("download");
+        Thread.sleep(20);
+
+        // act
+        uiThreadTimer.operationCompleted(metrics);
+        uiThreadTimer.stop();
+
+        // assert
+        assertThat(metrics.phaseMillis(OperationMetrics.Phase.UI_THREAD)).isGreaterThanOrEqualTo(20);
+        verify(delegate).operationCompleted(metrics);
+    }
+
+    @Test
+    void severalOperationsCompleted_shallAddUiThreadTimeToFirstOnly() {
+        UiThreadTimer uiThreadTimer = new UiThreadTimer(delegate);
+        OperationMetrics first = new OperationMetrics("download");
+        OperationMetrics second = new OperationMetrics("download");
+
+        // act
+        uiThreadTimer.operationCompleted(first);
+        uiThreadTimer.stop();
+        uiThreadTimer.operationCompleted(second);
+        uiThreadTimer.stop();
+
+        // assert
+        assertThat(second.phaseMillis(OperationMetrics.Phase.UI_THREAD)).isZero();
+        verify(delegate).operationCompleted(first);
+        verify(delegate).operationCompleted(second);
+    }
+}